@@ -0,0 +1,41 @@
+package eu.europa.esig.dss.web;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.CommonDocument;
+import eu.europa.esig.dss.model.DSSDocument;
+
+/**
+ * Document whose digests are computed in advance. The content stays available for the operations which need it, the
+ * digests in the other algorithms are computed by the wrapped document.
+ */
+public class DigestedDocument extends CommonDocument {
+
+	private final DSSDocument document;
+
+	private final Map<DigestAlgorithm, String> base64Digests;
+
+	public DigestedDocument(DSSDocument document, Map<DigestAlgorithm, String> base64Digests) {
+		this.document = document;
+		this.base64Digests = base64Digests;
+		this.name = document.getName();
+		this.mimeType = document.getMimeType();
+	}
+
+	@Override
+	public InputStream openStream() {
+		return document.openStream();
+	}
+
+	@Override
+	public String getDigest(DigestAlgorithm digestAlgorithm) {
+		String base64Digest = base64Digests.get(digestAlgorithm);
+		if (base64Digest != null) {
+			return base64Digest;
+		}
+		return document.getDigest(digestAlgorithm);
+	}
+
+}
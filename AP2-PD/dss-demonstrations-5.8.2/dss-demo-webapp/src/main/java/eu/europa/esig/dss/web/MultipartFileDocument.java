@@ -0,0 +1,35 @@
+package eu.europa.esig.dss.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import eu.europa.esig.dss.model.CommonDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.MimeType;
+
+/**
+ * Document streamed from an upload, without loading it in memory. It can only be read as long as the upload is
+ * available (usually until the end of the request).
+ */
+public class MultipartFileDocument extends CommonDocument {
+
+	private final MultipartFile multipartFile;
+
+	public MultipartFileDocument(MultipartFile multipartFile) {
+		this.multipartFile = multipartFile;
+		this.name = multipartFile.getOriginalFilename();
+		this.mimeType = MimeType.fromFileName(name);
+	}
+
+	@Override
+	public InputStream openStream() {
+		try {
+			return multipartFile.getInputStream();
+		} catch (IOException e) {
+			throw new DSSException("Unable to read the uploaded file " + name + " : " + e.getMessage(), e);
+		}
+	}
+
+}
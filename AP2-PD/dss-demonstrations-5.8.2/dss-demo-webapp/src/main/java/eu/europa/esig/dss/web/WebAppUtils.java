@@ -1,23 +1,36 @@
 package eu.europa.esig.dss.web;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.fileupload.FileItem;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.commons.CommonsMultipartFile;
 
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
 import eu.europa.esig.dss.model.DSSDocument;
 import eu.europa.esig.dss.model.DSSException;
 import eu.europa.esig.dss.model.DigestDocument;
 import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.model.MimeType;
 import eu.europa.esig.dss.model.x509.CertificateToken;
 import eu.europa.esig.dss.spi.DSSUtils;
 import eu.europa.esig.dss.spi.x509.CertificateSource;
 import eu.europa.esig.dss.spi.x509.CommonCertificateSource;
 import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.validation.timestamp.TimestampToken;
+import eu.europa.esig.dss.web.config.DigestingFileItem;
+import eu.europa.esig.dss.web.config.MultipartFormDataFilter;
 import eu.europa.esig.dss.web.model.OriginalFile;
 import eu.europa.esig.dss.ws.dto.TimestampDTO;
 import eu.europa.esig.dss.ws.signature.common.TimestampTokenConverter;
@@ -32,6 +45,10 @@ public final class WebAppUtils {
 	public static DSSDocument toDSSDocument(MultipartFile multipartFile) {
 		try {
 			if ((multipartFile != null) && !multipartFile.isEmpty()) {
+				if (multipartFile.getSize() > MultipartFormDataFilter.MAX_IN_MEMORY_SIZE) {
+					// streamed from the temporary file of the upload
+					return new MultipartFileDocument(multipartFile);
+				}
 				return new InMemoryDocument(multipartFile.getBytes(), multipartFile.getOriginalFilename());
 			}
 		} catch (IOException e) {
@@ -53,6 +70,108 @@ public final class WebAppUtils {
 		return dssDocuments;
 	}
 
+	/**
+	 * Returns the digests of the upload, in all the {@link DigestingFileItem#DIGEST_ALGORITHMS}, without keeping its
+	 * content. The digests computed while the file was received are reused.
+	 *
+	 * @param multipartFile the uploaded file
+	 * @return the digest document, or null if the file is empty
+	 */
+	public static DigestDocument toDigestDocument(MultipartFile multipartFile) {
+		if ((multipartFile == null) || multipartFile.isEmpty()) {
+			return null;
+		}
+		DigestDocument digestDocument = new DigestDocument();
+		for (Map.Entry<DigestAlgorithm, String> digest : getBase64Digests(multipartFile).entrySet()) {
+			digestDocument.addDigest(digest.getKey(), digest.getValue());
+		}
+		digestDocument.setName(multipartFile.getOriginalFilename());
+		digestDocument.setMimeType(MimeType.fromFileName(multipartFile.getOriginalFilename()));
+		return digestDocument;
+	}
+
+	public static List<DSSDocument> toDigestDocuments(List<MultipartFile> multipartFiles) {
+		List<DSSDocument> digestDocuments = new ArrayList<DSSDocument>();
+		if (Utils.isCollectionNotEmpty(multipartFiles)) {
+			for (MultipartFile multipartFile : multipartFiles) {
+				DigestDocument digestDocument = toDigestDocument(multipartFile);
+				if (digestDocument != null) {
+					digestDocuments.add(digestDocument);
+				}
+			}
+		}
+		return digestDocuments;
+	}
+
+	private static Map<DigestAlgorithm, String> getBase64Digests(MultipartFile multipartFile) {
+		if (multipartFile instanceof CommonsMultipartFile) {
+			FileItem fileItem = ((CommonsMultipartFile) multipartFile).getFileItem();
+			if (fileItem instanceof DigestingFileItem && ((DigestingFileItem) fileItem).getBase64Digests() != null) {
+				return ((DigestingFileItem) fileItem).getBase64Digests();
+			}
+		}
+		// not received by the DiskSpillingMultipartResolver : all the digests are computed in a single read
+		try (InputStream is = multipartFile.getInputStream()) {
+			return getBase64Digests(is);
+		} catch (IOException e) {
+			throw new DSSException("Unable to read the uploaded file " + multipartFile.getOriginalFilename() + " : " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the digests of the document in all the {@link DigestingFileItem#DIGEST_ALGORITHMS}, computed in a single
+	 * read
+	 */
+	public static Map<DigestAlgorithm, String> getBase64Digests(DSSDocument document) {
+		try (InputStream is = document.openStream()) {
+			return getBase64Digests(is);
+		} catch (IOException e) {
+			throw new DSSException("Unable to read the document " + document.getName() + " : " + e.getMessage(), e);
+		}
+	}
+
+	private static Map<DigestAlgorithm, String> getBase64Digests(InputStream is) throws IOException {
+		DigestAlgorithm[] digestAlgorithms = DigestingFileItem.DIGEST_ALGORITHMS;
+		MessageDigest[] messageDigests = new MessageDigest[digestAlgorithms.length];
+		for (int i = 0; i < digestAlgorithms.length; i++) {
+			messageDigests[i] = digestAlgorithms[i].getMessageDigest();
+		}
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			for (MessageDigest messageDigest : messageDigests) {
+				messageDigest.update(buffer, 0, read);
+			}
+		}
+		Map<DigestAlgorithm, String> digests = new EnumMap<>(DigestAlgorithm.class);
+		for (int i = 0; i < digestAlgorithms.length; i++) {
+			digests.put(digestAlgorithms[i], Utils.toBase64(messageDigests[i].digest()));
+		}
+		return digests;
+	}
+
+	/**
+	 * Returns the upload with the digests computed while it was received, its content stays available
+	 */
+	public static DSSDocument toDigestedDocument(MultipartFile multipartFile) {
+		DSSDocument document = toDSSDocument(multipartFile);
+		if (document == null) {
+			return null;
+		}
+		return new DigestedDocument(document, getBase64Digests(multipartFile));
+	}
+
+	/**
+	 * Detached XAdES and CAdES signatures only need the digests of the signed documents
+	 *
+	 * @param containerType the ASiC container type, if any
+	 * @param signatureForm the signature form
+	 * @return true if digest documents can be used instead of the documents
+	 */
+	public static boolean isDigestSufficient(ASiCContainerType containerType, SignatureForm signatureForm) {
+		return containerType == null && (SignatureForm.XAdES == signatureForm || SignatureForm.CAdES == signatureForm);
+	}
+
 	public static TimestampDTO fromTimestampToken(TimestampToken token) {
 		return TimestampTokenConverter.toTimestampDTO(token);
 	}
@@ -61,6 +180,18 @@ public final class WebAppUtils {
 		return TimestampTokenConverter.toTimestampToken(dto);
 	}
 
+	/**
+	 * @param certificates the certificates, e.g. the chain of a CMD user
+	 * @return the base64 DER encoding of every certificate, in the same order
+	 */
+	public static List<String> toBase64Certificates(List<CertificateToken> certificates) {
+		List<String> base64Certificates = new ArrayList<String>();
+		for (CertificateToken certificate : certificates) {
+			base64Certificates.add(Utils.toBase64(certificate.getEncoded()));
+		}
+		return base64Certificates;
+	}
+
 	public static List<DSSDocument> originalFilesToDSSDocuments(List<OriginalFile> originalFiles) {
 		List<DSSDocument> dssDocuments = new ArrayList<DSSDocument>();
 		if (Utils.isCollectionNotEmpty(originalFiles)) {
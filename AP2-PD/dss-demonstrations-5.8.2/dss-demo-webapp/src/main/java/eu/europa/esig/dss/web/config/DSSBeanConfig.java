@@ -48,6 +48,13 @@ import eu.europa.esig.dss.tsl.job.TLValidationJob;
 import eu.europa.esig.dss.tsl.source.LOTLSource;
 import eu.europa.esig.dss.validation.CertificateVerifier;
 import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.web.service.ArchiveTimestampIndex;
+import eu.europa.esig.dss.web.service.CMDConnectorPool;
+import eu.europa.esig.dss.web.service.ContentTimestampCache;
+import eu.europa.esig.dss.web.service.InMemoryPendingSignatureStore;
+import eu.europa.esig.dss.web.service.JdbcPendingSignatureStore;
+import eu.europa.esig.dss.web.service.PendingSignatureStore;
+import eu.europa.esig.dss.web.tsp.CachingTSPSource;
 import eu.europa.esig.dss.ws.cert.validation.common.RemoteCertificateValidationService;
 import eu.europa.esig.dss.ws.server.signing.common.RemoteSignatureTokenConnection;
 import eu.europa.esig.dss.ws.server.signing.common.RemoteSignatureTokenConnectionImpl;
@@ -56,6 +63,7 @@ import eu.europa.esig.dss.ws.signature.common.RemoteMultipleDocumentsSignatureSe
 import eu.europa.esig.dss.ws.timestamp.remote.RemoteTimestampService;
 import eu.europa.esig.dss.ws.validation.common.RemoteDocumentValidationService;
 import eu.europa.esig.dss.xades.signature.XAdESService;
+import wsdlservice.CCMovelDigitalSignature;
 
 @Configuration
 @ComponentScan(basePackages = { "eu.europa.esig.dss.web.job", "eu.europa.esig.dss.web.service" })
@@ -96,9 +104,30 @@ public class DSSBeanConfig {
 	@Value("${dss.server.signing.keystore.password}")
 	private String serverSigningKeystorePassword;
 
+	@Value("${cmd.pool.size}")
+	private int cmdPoolSize;
+
+	@Value("${cmd.pool.borrow.timeout}")
+	private long cmdPoolBorrowTimeout;
+
+	@Value("${cmd.connection.timeout}")
+	private long cmdConnectionTimeout;
+
+	@Value("${cmd.receive.timeout}")
+	private long cmdReceiveTimeout;
+
+	@Value("${cmd.receive.timeout.otp}")
+	private long cmdOtpReceiveTimeout;
+
+	@Value("${cmd.pending.store}")
+	private String cmdPendingStore;
+
 	@Autowired
 	private TSPSource tspSource;
 
+	@Autowired
+	private ContentTimestampCache contentTimestampCache;
+
 	@Autowired
 	private DataSource dataSource;
 
@@ -197,45 +226,50 @@ public class DSSBeanConfig {
 		return new ClassPathResource(defaultValidationPolicy);
 	}
 
+	@Bean
+	public CachingTSPSource serviceTspSource() {
+		return new CachingTSPSource(tspSource, contentTimestampCache);
+	}
+
 	@Bean
 	public CAdESService cadesService() {
 		CAdESService service = new CAdESService(certificateVerifier());
-		service.setTspSource(tspSource);
+		service.setTspSource(serviceTspSource());
 		return service;
 	}
 
 	@Bean
 	public XAdESService xadesService() {
 		XAdESService service = new XAdESService(certificateVerifier());
-		service.setTspSource(tspSource);
+		service.setTspSource(serviceTspSource());
 		return service;
 	}
 
 	@Bean
 	public PAdESService padesService() {
 		PAdESService service = new PAdESService(certificateVerifier());
-		service.setTspSource(tspSource);
+		service.setTspSource(serviceTspSource());
 		return service;
 	}
 
 	@Bean
 	public JAdESService jadesService() {
 		JAdESService service = new JAdESService(certificateVerifier());
-		service.setTspSource(tspSource);
+		service.setTspSource(serviceTspSource());
 		return service;
 	}
 
 	@Bean
 	public ASiCWithCAdESService asicWithCadesService() {
 		ASiCWithCAdESService service = new ASiCWithCAdESService(certificateVerifier());
-		service.setTspSource(tspSource);
+		service.setTspSource(serviceTspSource());
 		return service;
 	}
 
 	@Bean
 	public ASiCWithXAdESService asicWithXadesService() {
 		ASiCWithXAdESService service = new ASiCWithXAdESService(certificateVerifier());
-		service.setTspSource(tspSource);
+		service.setTspSource(serviceTspSource());
 		return service;
 	}
 
@@ -352,6 +386,38 @@ public class DSSBeanConfig {
 		return tslCache;
 	}
 	
+	/* CMD */
+
+	@Bean(destroyMethod = "close")
+	public CMDConnectorPool cmdConnectorPool() {
+		CCMovelDigitalSignature service = new CCMovelDigitalSignature();
+		CMDConnectorPool pool = new CMDConnectorPool(service::getBasicHttpBindingCCMovelSignature);
+		pool.setMaxSize(cmdPoolSize);
+		pool.setBorrowTimeout(cmdPoolBorrowTimeout);
+		pool.setConnectionTimeout(cmdConnectionTimeout);
+		pool.setReceiveTimeout(cmdReceiveTimeout);
+		// the OTP validation waits for the signature to be produced on the AMA side
+		pool.setReceiveTimeout(CMDConnectorPool.Operation.VALIDATE_OTP, cmdOtpReceiveTimeout);
+		return pool;
+	}
+
+	@Bean
+	public PendingSignatureStore pendingSignatureStore() throws SQLException {
+		if ("jdbc".equalsIgnoreCase(cmdPendingStore)) {
+			JdbcPendingSignatureStore jdbcPendingSignatureStore = new JdbcPendingSignatureStore(dataSource);
+			jdbcPendingSignatureStore.initTable();
+			return jdbcPendingSignatureStore;
+		}
+		return new InMemoryPendingSignatureStore();
+	}
+
+	@Bean
+	public ArchiveTimestampIndex archiveTimestampIndex() throws SQLException {
+		ArchiveTimestampIndex archiveTimestampIndex = new ArchiveTimestampIndex(dataSource);
+		archiveTimestampIndex.initTable();
+		return archiveTimestampIndex;
+	}
+
     /* QWAC Validation */
 
     @Bean
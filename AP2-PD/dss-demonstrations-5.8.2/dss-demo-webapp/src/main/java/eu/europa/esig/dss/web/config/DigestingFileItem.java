@@ -0,0 +1,95 @@
+package eu.europa.esig.dss.web.config;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.commons.fileupload.disk.DiskFileItem;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.utils.Utils;
+
+/**
+ * Uploaded file which computes its digests while it is received, so that detached contents can be turned into
+ * digest documents without reading the upload again.
+ */
+public class DigestingFileItem extends DiskFileItem {
+
+	private static final long serialVersionUID = 2947013856207815329L;
+
+	/* The digest algorithms offered by the signature forms */
+	public static final DigestAlgorithm[] DIGEST_ALGORITHMS = { DigestAlgorithm.SHA1, DigestAlgorithm.SHA256, DigestAlgorithm.SHA384,
+			DigestAlgorithm.SHA512 };
+
+	private Map<DigestAlgorithm, String> base64Digests;
+
+	public DigestingFileItem(String fieldName, String contentType, boolean isFormField, String fileName, int sizeThreshold, File repository) {
+		super(fieldName, contentType, isFormField, fileName, sizeThreshold, repository);
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		base64Digests = null;
+		return new DigestingOutputStream(super.getOutputStream());
+	}
+
+	File getTemporaryFile() {
+		return getTempFile();
+	}
+
+	/**
+	 * @return the base64 encoded digests of the upload, or null if it has not been received completely
+	 */
+	public Map<DigestAlgorithm, String> getBase64Digests() {
+		return base64Digests;
+	}
+
+	private class DigestingOutputStream extends FilterOutputStream {
+
+		private final MessageDigest[] messageDigests = new MessageDigest[DIGEST_ALGORITHMS.length];
+
+		private boolean closed;
+
+		DigestingOutputStream(OutputStream out) {
+			super(out);
+			for (int i = 0; i < DIGEST_ALGORITHMS.length; i++) {
+				messageDigests[i] = DIGEST_ALGORITHMS[i].getMessageDigest();
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			for (MessageDigest messageDigest : messageDigests) {
+				messageDigest.update((byte) b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			for (MessageDigest messageDigest : messageDigests) {
+				messageDigest.update(b, off, len);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			super.close();
+			if (!closed) {
+				closed = true;
+				Map<DigestAlgorithm, String> digests = new EnumMap<>(DigestAlgorithm.class);
+				for (int i = 0; i < DIGEST_ALGORITHMS.length; i++) {
+					digests.put(DIGEST_ALGORITHMS[i], Utils.toBase64(messageDigests[i].digest()));
+				}
+				base64Digests = digests;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package eu.europa.esig.dss.web.config;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+import org.apache.commons.io.FileCleaningTracker;
+
+/**
+ * Creates {@link DigestingFileItem}s for the uploaded files, the other form fields are kept as plain items.
+ */
+public class DigestingFileItemFactory extends DiskFileItemFactory {
+
+	@Override
+	public FileItem createItem(String fieldName, String contentType, boolean isFormField, String fileName) {
+		if (isFormField) {
+			return super.createItem(fieldName, contentType, isFormField, fileName);
+		}
+		DigestingFileItem item = new DigestingFileItem(fieldName, contentType, isFormField, fileName, getSizeThreshold(), getRepository());
+		item.setDefaultCharset(getDefaultCharset());
+		FileCleaningTracker tracker = getFileCleaningTracker();
+		if (tracker != null) {
+			tracker.track(item.getTemporaryFile(), item);
+		}
+		return item;
+	}
+
+}
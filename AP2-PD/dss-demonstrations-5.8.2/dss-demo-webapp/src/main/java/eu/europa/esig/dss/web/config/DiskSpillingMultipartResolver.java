@@ -0,0 +1,119 @@
+package eu.europa.esig.dss.web.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+import org.apache.commons.io.FileCleaningTracker;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.commons.CommonsMultipartFile;
+import org.springframework.web.multipart.commons.CommonsMultipartResolver;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Multipart resolver which writes the uploads above the in-memory threshold to temporary files.
+ *
+ * The temporary files are deleted at the end of the request, unless the uploads have been kept for the next requests
+ * of a flow (see {@link #keepUploads(HttpServletRequest, String)}). They are then deleted at the end of the flow (see
+ * {@link #releaseUploads(HttpSession, String)}), when the same flow is started again or when the session ends.
+ *
+ * The digests of the uploaded files are computed while they are received (see {@link DigestingFileItem}).
+ */
+public class DiskSpillingMultipartResolver extends CommonsMultipartResolver {
+
+	private static final String KEEP_UPLOADS_ATTRIBUTE = DiskSpillingMultipartResolver.class.getName() + ".KEEP_UPLOADS";
+
+	private final FileCleaningTracker fileCleaningTracker = new FileCleaningTracker();
+
+	public DiskSpillingMultipartResolver() {
+		super();
+		getFileItemFactory().setFileCleaningTracker(fileCleaningTracker);
+	}
+
+	@Override
+	protected DiskFileItemFactory newFileItemFactory() {
+		return new DigestingFileItemFactory();
+	}
+
+	/**
+	 * To be called when the uploaded files of the request are stored in the session, to be read by the next requests
+	 * of the flow. The files kept by a previous request of the same flow are deleted.
+	 *
+	 * @param request the multipart request, or a wrapper of it (e.g. the one of Spring Security)
+	 * @param flow the name of the flow, e.g. the session attribute of its form
+	 */
+	public static void keepUploads(HttpServletRequest request, String flow) {
+		List<FileItem> fileItems = new ArrayList<>();
+		MultipartHttpServletRequest multipartRequest = WebUtils.getNativeRequest(request, MultipartHttpServletRequest.class);
+		if (multipartRequest != null) {
+			// the files are only kept when they are tracked, to be deleted at the end of the flow
+			multipartRequest.setAttribute(KEEP_UPLOADS_ATTRIBUTE, Boolean.TRUE);
+			for (List<MultipartFile> files : multipartRequest.getMultiFileMap().values()) {
+				for (MultipartFile file : files) {
+					if (file instanceof CommonsMultipartFile) {
+						fileItems.add(((CommonsMultipartFile) file).getFileItem());
+					}
+				}
+			}
+		}
+		request.getSession().setAttribute(getUploadsAttribute(flow), new KeptUploads(fileItems));
+	}
+
+	/**
+	 * To be called at the end of the flow, deletes the files kept by {@link #keepUploads(HttpServletRequest, String)}
+	 *
+	 * @param session the session of the flow
+	 * @param flow the name of the flow
+	 */
+	public static void releaseUploads(HttpSession session, String flow) {
+		session.removeAttribute(getUploadsAttribute(flow));
+	}
+
+	private static String getUploadsAttribute(String flow) {
+		return KEEP_UPLOADS_ATTRIBUTE + "." + flow;
+	}
+
+	@Override
+	public void cleanupMultipart(MultipartHttpServletRequest request) {
+		if (request.getAttribute(KEEP_UPLOADS_ATTRIBUTE) == null) {
+			super.cleanupMultipart(request);
+		}
+	}
+
+	public void shutdown() {
+		fileCleaningTracker.exitWhenFinished();
+	}
+
+	/**
+	 * The uploads of a flow, deleted when they are removed from the session, replaced, or when the session ends
+	 */
+	private static class KeptUploads implements HttpSessionBindingListener {
+
+		private final List<FileItem> fileItems;
+
+		private KeptUploads(List<FileItem> fileItems) {
+			this.fileItems = fileItems;
+		}
+
+		@Override
+		public void valueBound(HttpSessionBindingEvent event) {
+			// nothing to do
+		}
+
+		@Override
+		public void valueUnbound(HttpSessionBindingEvent event) {
+			for (FileItem fileItem : fileItems) {
+				fileItem.delete();
+			}
+		}
+
+	}
+
+}
@@ -1,12 +1,14 @@
 package eu.europa.esig.dss.web.config;
 
 import org.springframework.web.multipart.MultipartResolver;
-import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 import org.springframework.web.multipart.support.MultipartFilter;
 
 public class MultipartFormDataFilter extends MultipartFilter {
+
+	/* Uploads above this size are written to temporary files instead of being kept in memory */
+	public static final int MAX_IN_MEMORY_SIZE = 1048576;
 	
-	private CommonsMultipartResolver multipartResolver;
+	private DiskSpillingMultipartResolver multipartResolver;
 	
 	/**
 	 * Returns a configured multipartResolver
@@ -15,8 +17,8 @@ public class MultipartFormDataFilter extends MultipartFilter {
 	 */
 	public MultipartResolver multipartResolver() {
 		if (multipartResolver == null) {
-			multipartResolver = new CommonsMultipartResolver();
-			multipartResolver.setMaxInMemorySize(52428800);
+			multipartResolver = new DiskSpillingMultipartResolver();
+			multipartResolver.setMaxInMemorySize(MAX_IN_MEMORY_SIZE);
 			multipartResolver.setMaxUploadSize(52428800);
 			multipartResolver.setResolveLazily(true);
 		}
@@ -27,5 +29,12 @@ public class MultipartFormDataFilter extends MultipartFilter {
 	protected MultipartResolver lookupMultipartResolver() {
 		return multipartResolver();
 	}
+
+	@Override
+	public void destroy() {
+		if (multipartResolver != null) {
+			multipartResolver.shutdown();
+		}
+	}
 	
 }
\ No newline at end of file
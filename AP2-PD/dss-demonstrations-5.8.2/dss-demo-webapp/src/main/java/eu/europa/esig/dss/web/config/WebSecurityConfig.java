@@ -16,9 +16,9 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 @EnableWebSecurity
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 	
-	/** API urls (REST/SOAP webServices) */
+	/** API urls (REST/SOAP webServices, batch signatures, batch validation) */
 	private static final String[] API_URLS = new String[] {
-			"/services/rest/**", "/services/soap/**"
+			"/services/rest/**", "/services/soap/**", "/batch-sign/**", "/batch-validation/**"
 	};
 
 	@Override
@@ -28,7 +28,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 		http.headers().addHeaderWriter(svgHeaderWriter());
 		http.headers().addHeaderWriter(serverEsigDSS());
 		
-		http.csrf().ignoringAntMatchers(API_URLS); // disable CSRF for API calls (REST/SOAP webServices)
+		http.csrf().ignoringAntMatchers(API_URLS); // disable CSRF for API calls (REST/SOAP webServices, batch signatures, batch validation)
 	}
 
 	@Bean
@@ -1,10 +1,16 @@
 package eu.europa.esig.dss.web.controller;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+
+import javax.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.ui.Model;
+import org.springframework.web.util.WebUtils;
 
 import eu.europa.esig.dss.diagnostic.AbstractTokenProxy;
 import eu.europa.esig.dss.diagnostic.CertificateWrapper;
@@ -14,16 +20,17 @@ import eu.europa.esig.dss.validation.reports.AbstractReports;
 import eu.europa.esig.dss.validation.reports.CertificateReports;
 import eu.europa.esig.dss.validation.reports.Reports;
 import eu.europa.esig.dss.web.model.TokenDTO;
+import eu.europa.esig.dss.web.service.ValidationPolicyCache;
 import eu.europa.esig.dss.web.service.XSLTService;
 import eu.europa.esig.validationreport.jaxb.ValidationReportType;
 
 public abstract class AbstractValidationController {
 
 	protected static final String SIMPLE_REPORT_ATTRIBUTE = "simpleReport";
-	protected static final String DETAILED_REPORT_ATTRIBUTE = "detailedReport";
 	
 	protected static final String XML_SIMPLE_REPORT_ATTRIBUTE = "simpleReportXml";
 	protected static final String XML_DETAILED_REPORT_ATTRIBUTE = "detailedReportXml";
+	protected static final String DETAILED_REPORT_ID_ATTRIBUTE = "detailedReportId";
 	protected static final String XML_DIAGNOSTIC_DATA_ATTRIBUTE = "diagnosticDataXml";
 	protected static final String ETSI_VALIDATION_REPORT_ATTRIBUTE = "etsiValidationReport";
 	
@@ -31,13 +38,21 @@ public abstract class AbstractValidationController {
 	protected static final String ALL_REVOCATION_DATA_ATTRIBUTE = "allRevocationData";
 	protected static final String ALL_TIMESTAMPS_ATTRIBUTE = "allTimestamps";
 
+	private static final String DETAILED_REPORTS_SESSION_ATTRIBUTE = AbstractValidationController.class.getName() + ".DETAILED_REPORTS";
+
+	/* The detailed reports of the last validations of the session, still displayed by their result pages */
+	private static final int MAX_DETAILED_REPORTS = 10;
+
 	@Autowired
 	protected CertificateVerifier certificateVerifier;
 
 	@Autowired
 	protected XSLTService xsltService;
 
-	public void setAttributesModels(Model model, AbstractReports reports) {
+	@Autowired
+	protected ValidationPolicyCache validationPolicyCache;
+
+	public void setAttributesModels(Model model, HttpSession session, AbstractReports reports) {
 		String xmlSimpleReport = reports.getXmlSimpleReport();
 		model.addAttribute(XML_SIMPLE_REPORT_ATTRIBUTE, xmlSimpleReport);
 		if (reports instanceof CertificateReports) {
@@ -48,7 +63,9 @@ public abstract class AbstractValidationController {
 
 		String xmlDetailedReport = reports.getXmlDetailedReport();
 		model.addAttribute(XML_DETAILED_REPORT_ATTRIBUTE, xmlDetailedReport);
-		model.addAttribute(DETAILED_REPORT_ATTRIBUTE, xsltService.generateDetailedReport(xmlDetailedReport));
+		// the HTML detailed report is streamed by /validation/detailed-report when its tab is displayed, the id keeps
+		// the report of this page when another file is validated in the same session
+		model.addAttribute(DETAILED_REPORT_ID_ATTRIBUTE, storeDetailedReport(session, xmlDetailedReport));
 
 		DiagnosticData diagnosticData = reports.getDiagnosticData();
 		model.addAttribute(XML_DIAGNOSTIC_DATA_ATTRIBUTE, reports.getXmlDiagnosticData());
@@ -72,6 +89,39 @@ public abstract class AbstractValidationController {
 		model.addAttribute(ALL_TIMESTAMPS_ATTRIBUTE, buildTokenDtos(diagnosticData.getTimestampSet()));
 	}
 
+	/**
+	 * Keeps the detailed report in the session, with the ones of the last validations
+	 *
+	 * @param session the HTTP session
+	 * @param xmlDetailedReport the XML detailed report
+	 * @return the id of the detailed report
+	 */
+	protected String storeDetailedReport(HttpSession session, String xmlDetailedReport) {
+		String id = UUID.randomUUID().toString();
+		synchronized (WebUtils.getSessionMutex(session)) {
+			DetailedReports detailedReports = (DetailedReports) session.getAttribute(DETAILED_REPORTS_SESSION_ATTRIBUTE);
+			if (detailedReports == null) {
+				detailedReports = new DetailedReports();
+			}
+			detailedReports.put(id, xmlDetailedReport);
+			// set again for the replicated sessions
+			session.setAttribute(DETAILED_REPORTS_SESSION_ATTRIBUTE, detailedReports);
+		}
+		return id;
+	}
+
+	/**
+	 * @param session the HTTP session
+	 * @param id the id returned by {@link #storeDetailedReport(HttpSession, String)}
+	 * @return the XML detailed report, or null if it is unknown or replaced by the ones of later validations
+	 */
+	protected String getDetailedReport(HttpSession session, String id) {
+		synchronized (WebUtils.getSessionMutex(session)) {
+			DetailedReports detailedReports = (DetailedReports) session.getAttribute(DETAILED_REPORTS_SESSION_ATTRIBUTE);
+			return detailedReports != null ? detailedReports.get(id) : null;
+		}
+	}
+
 	private Set<TokenDTO> buildTokenDtos(Set<? extends AbstractTokenProxy> abstractTokens) {
 		Set<TokenDTO> tokenDtos = new HashSet<TokenDTO>();
 		for (AbstractTokenProxy token : abstractTokens) {
@@ -82,4 +132,18 @@ public abstract class AbstractValidationController {
 		return tokenDtos;
 	}
 
+	/**
+	 * The detailed reports by id, the oldest one is removed above {@link #MAX_DETAILED_REPORTS}
+	 */
+	private static class DetailedReports extends LinkedHashMap<String, String> {
+
+		private static final long serialVersionUID = -3012437842615316154L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_DETAILED_REPORTS;
+		}
+
+	}
+
 }
@@ -0,0 +1,110 @@
+package eu.europa.esig.dss.web.controller;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.EncryptionAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+import eu.europa.esig.dss.model.MimeType;
+import eu.europa.esig.dss.web.editor.ASiCContainerTypePropertyEditor;
+import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
+import eu.europa.esig.dss.web.exception.ApplicationJsonRequestException;
+import eu.europa.esig.dss.web.model.BatchSignatureForm;
+import eu.europa.esig.dss.web.model.BatchSignatureValues;
+import eu.europa.esig.dss.web.model.GetBatchDataToSignResponse;
+import eu.europa.esig.dss.web.service.BatchSignatureService;
+
+/**
+ * Batch API : the documents are sent once with the common parameters and the signing certificate, the client signs
+ * the returned data to sign and sends all the signature values back to receive a ZIP archive of the signed documents.
+ * The documents can also be signed at once with the key of the server.
+ */
+@Controller
+@RequestMapping(value = "/batch-sign")
+public class BatchSignatureController {
+
+	private static final String ZIP_NAME = "signed-documents.zip";
+
+	private static final String[] ALLOWED_FIELDS = { "documentsToSign", "containerType", "signatureForm", "signaturePackaging",
+			"signatureLevel", "digestAlgorithm", "signWithExpiredCertificate", "base64Certificate", "base64CertificateChain",
+			"encryptionAlgorithm" };
+
+	@Autowired
+	private BatchSignatureService batchSignatureService;
+
+	@InitBinder
+	public void initBinder(WebDataBinder webDataBinder) {
+		webDataBinder.registerCustomEditor(SignatureForm.class, new EnumPropertyEditor(SignatureForm.class));
+		webDataBinder.registerCustomEditor(ASiCContainerType.class, new ASiCContainerTypePropertyEditor());
+		webDataBinder.registerCustomEditor(SignaturePackaging.class, new EnumPropertyEditor(SignaturePackaging.class));
+		webDataBinder.registerCustomEditor(SignatureLevel.class, new EnumPropertyEditor(SignatureLevel.class));
+		webDataBinder.registerCustomEditor(DigestAlgorithm.class, new EnumPropertyEditor(DigestAlgorithm.class));
+		webDataBinder.registerCustomEditor(EncryptionAlgorithm.class, new EnumPropertyEditor(EncryptionAlgorithm.class));
+	}
+
+	@InitBinder
+	public void setAllowedFields(WebDataBinder webDataBinder) {
+		webDataBinder.setAllowedFields(ALLOWED_FIELDS);
+	}
+
+	@RequestMapping(value = "/get-data-to-sign", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public GetBatchDataToSignResponse getDataToSign(@ModelAttribute("batchSignatureForm") @Valid BatchSignatureForm batchSignatureForm,
+			BindingResult result) {
+		checkForm(batchSignatureForm, result);
+		if (batchSignatureForm.getBase64Certificate() == null) {
+			throw new ApplicationJsonRequestException("The signing certificate is mandatory");
+		}
+		return batchSignatureService.getDataToSign(batchSignatureForm);
+	}
+
+	@RequestMapping(value = "/{batchId}/sign-document", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+	public void signDocument(@PathVariable("batchId") String batchId, @RequestBody @Valid BatchSignatureValues signatureValues,
+			HttpServletResponse response) throws IOException {
+		prepareZipResponse(response);
+		if (!batchSignatureService.sign(batchId, signatureValues.getSignatureValues(), response.getOutputStream())) {
+			response.reset();
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+		}
+	}
+
+	@RequestMapping(value = "/sign-with-server-token", method = RequestMethod.POST)
+	public void signWithServerToken(@ModelAttribute("batchSignatureForm") @Valid BatchSignatureForm batchSignatureForm, BindingResult result,
+			HttpServletResponse response) throws IOException {
+		checkForm(batchSignatureForm, result);
+		prepareZipResponse(response);
+		batchSignatureService.signWithServerToken(batchSignatureForm, response.getOutputStream());
+	}
+
+	private void checkForm(BatchSignatureForm batchSignatureForm, BindingResult result) {
+		if (result.hasErrors()) {
+			throw new ApplicationJsonRequestException(result.getAllErrors().get(0).getDefaultMessage());
+		}
+	}
+
+	private void prepareZipResponse(HttpServletResponse response) {
+		response.setContentType(MimeType.ZIP.getMimeTypeString());
+		response.setHeader("Content-Transfer-Encoding", "binary");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + ZIP_NAME + "\"");
+	}
+
+}
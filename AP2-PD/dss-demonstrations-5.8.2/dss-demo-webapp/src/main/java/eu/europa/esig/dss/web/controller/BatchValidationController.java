@@ -0,0 +1,53 @@
+package eu.europa.esig.dss.web.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.web.exception.ApplicationJsonRequestException;
+import eu.europa.esig.dss.web.service.BatchValidationService;
+
+/**
+ * Batch validation API : the signed files are sent as a multipart list ({@code files}) and/or a ZIP archive
+ * ({@code archive}), the results are streamed as newline delimited JSON, one line by file as soon as it is validated.
+ * The cached reports are ignored with {@code bypassCache=true}.
+ */
+@Controller
+@RequestMapping(value = "/batch-validation")
+public class BatchValidationController {
+
+	private static final String NDJSON = "application/x-ndjson";
+
+	@Autowired
+	private BatchValidationService batchValidationService;
+
+	@RequestMapping(method = RequestMethod.POST)
+	public void validate(@RequestParam(value = "files", required = false) List<MultipartFile> files,
+			@RequestParam(value = "archive", required = false) MultipartFile archive,
+			@RequestParam(value = "bypassCache", defaultValue = "false") boolean bypassCache, HttpServletResponse response) throws IOException {
+		List<DSSDocument> documents;
+		try {
+			documents = batchValidationService.toDocuments(files, archive);
+		} catch (DSSException e) {
+			throw new ApplicationJsonRequestException(e.getMessage());
+		}
+		if (Utils.isCollectionEmpty(documents)) {
+			throw new ApplicationJsonRequestException("No file to validate");
+		}
+		response.setContentType(NDJSON);
+		response.setCharacterEncoding("UTF-8");
+		batchValidationService.validate(documents, bypassCache, response.getOutputStream());
+	}
+
+}
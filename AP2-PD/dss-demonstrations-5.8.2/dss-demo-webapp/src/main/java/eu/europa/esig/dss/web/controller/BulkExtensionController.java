@@ -0,0 +1,61 @@
+package eu.europa.esig.dss.web.controller;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import eu.europa.esig.dss.web.exception.SourceNotFoundException;
+import eu.europa.esig.dss.web.model.BulkExtensionRequest;
+import eu.europa.esig.dss.web.model.BulkExtensionStatus;
+import eu.europa.esig.dss.web.service.BulkExtensionService;
+
+/**
+ * Starts and follows the extension of the signed files stored on the server. The endpoints read and write the files
+ * of the server, they are disabled unless {@code bulk.extension.enabled} is true, and the POST requests need the CSRF
+ * token of the application.
+ */
+@Controller
+@RequestMapping(value = "/bulk-extension")
+public class BulkExtensionController {
+
+	@Value("${bulk.extension.enabled:false}")
+	private boolean enabled;
+
+	@Autowired
+	private BulkExtensionService bulkExtensionService;
+
+	@RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public BulkExtensionStatus getStatus() {
+		checkEnabled();
+		return bulkExtensionService.getStatus();
+	}
+
+	@RequestMapping(value = "/start", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public BulkExtensionStatus start(@RequestBody @Valid BulkExtensionRequest request) {
+		checkEnabled();
+		return bulkExtensionService.start(request);
+	}
+
+	@RequestMapping(value = "/cancel", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public BulkExtensionStatus cancel() {
+		checkEnabled();
+		return bulkExtensionService.cancel();
+	}
+
+	private void checkEnabled() {
+		if (!enabled) {
+			throw new SourceNotFoundException("The bulk extension is disabled");
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package eu.europa.esig.dss.web.controller;
+
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.xml.ws.soap.SOAPFaultException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.EncryptionAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
+import eu.europa.esig.dss.web.model.CMDOTPForm;
+import eu.europa.esig.dss.web.model.CMDSignatureDigestForm;
+import eu.europa.esig.dss.web.model.StoredDocument;
+import eu.europa.esig.dss.web.service.CMDService;
+import eu.europa.esig.dss.web.service.DownloadService;
+import eu.europa.esig.dss.web.service.PendingSignatureService;
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
+import eu.europa.esig.dss.web.service.SigningService;
+
+/**
+ * CMD variant of the digest signature : the document is hashed by the browser and only its digest is sent to the
+ * server, which produces a detached signature.
+ */
+@Controller
+@RequestMapping(value = "/cmd-sign-a-digest")
+public class CMDDigestController {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CMDDigestController.class);
+
+	private static final String SIGN_DIGEST = "cmd-signature-digest";
+	private static final String SIGNATURE_GET_OTP = "cmd-signature-get-otp";
+	private static final String SIGNATURE_SIGNED = "cmd-signature-signed";
+
+	private static final String OTP_URL = "/cmd-sign-a-digest/sign-document";
+
+	private static final String[] ALLOWED_FIELDS = { "signatureForm", "digestAlgorithm", "digestToSign", "documentName", "signatureLevel",
+			"signWithExpiredCertificate", "addContentTimestamp", "userId", "userPin", "userOtp", "processId" };
+
+	@Value("${default.digest.algo}")
+	private String defaultDigestAlgo;
+
+	@Autowired
+	private SigningService signingService;
+
+	@Autowired
+	private DownloadService downloadService;
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
+	@Autowired
+	private CMDService cmdService;
+
+	@Autowired
+	private PendingSignatureService pendingSignatureService;
+
+	@InitBinder
+	public void initBinder(WebDataBinder webDataBinder) {
+		webDataBinder.registerCustomEditor(SignatureForm.class, new EnumPropertyEditor(SignatureForm.class));
+		webDataBinder.registerCustomEditor(SignatureLevel.class, new EnumPropertyEditor(SignatureLevel.class));
+		webDataBinder.registerCustomEditor(DigestAlgorithm.class, new EnumPropertyEditor(DigestAlgorithm.class));
+		webDataBinder.registerCustomEditor(EncryptionAlgorithm.class, new EnumPropertyEditor(EncryptionAlgorithm.class));
+	}
+
+	@InitBinder
+	public void setAllowedFields(WebDataBinder webDataBinder) {
+		webDataBinder.setAllowedFields(ALLOWED_FIELDS);
+	}
+
+	@RequestMapping(method = RequestMethod.GET)
+	public String showSignatureParameters(Model model, HttpServletRequest request) {
+		CMDSignatureDigestForm signatureDigestForm = new CMDSignatureDigestForm();
+		signatureDigestForm.setDigestAlgorithm(DigestAlgorithm.forName(defaultDigestAlgo, DigestAlgorithm.SHA256));
+		model.addAttribute("signatureDigestForm", signatureDigestForm);
+		return SIGN_DIGEST;
+	}
+
+	@RequestMapping(method = RequestMethod.POST)
+	public String requestSignature(Model model, HttpServletRequest request,
+			@ModelAttribute("signatureDigestForm") @Valid CMDSignatureDigestForm signatureDigestForm, BindingResult result) {
+		if (result.hasErrors()) {
+			if (LOG.isDebugEnabled()) {
+				List<ObjectError> allErrors = result.getAllErrors();
+				for (ObjectError error : allErrors) {
+					LOG.debug(error.getDefaultMessage());
+				}
+			}
+			return SIGN_DIGEST;
+		}
+
+		List<CertificateToken> certificates;
+		try {
+			certificates = cmdService.getCertificatesOf(signatureDigestForm.getUserId());
+		} catch (SOAPFaultException | CertificateException | IOException e) {
+			LOG.warn("Unable to retrieve the CMD certificates : {}", e.getMessage());
+			result.addError(new ObjectError("userId", "UserId is not valid!"));
+			return SIGN_DIGEST;
+		}
+
+		SignatureAlgorithm certificateSignatureAlgorithm = certificates.get(0).getSignatureAlgorithm();
+
+		signatureDigestForm.setBase64Certificate(Utils.toBase64(certificates.get(0).getEncoded()));
+		signatureDigestForm.setBase64CertificateChain(WebAppUtils.toBase64Certificates(certificates.subList(1, certificates.size())));
+		signatureDigestForm.setEncryptionAlgorithm(certificateSignatureAlgorithm.getEncryptionAlgorithm());
+		signatureDigestForm.setSigningDate(new Date());
+
+		if (signatureDigestForm.isAddContentTimestamp()) {
+			signatureDigestForm.setContentTimestamp(WebAppUtils.fromTimestampToken(signingService.getContentTimestamp(signatureDigestForm)));
+		}
+
+		ToBeSigned dataToSign = signingService.getDataToSign(signatureDigestForm);
+		if (dataToSign == null) {
+			return null;
+		}
+
+		String processId = cmdService.sign(signatureDigestForm.getDocumentName(),
+				dataToSign.getBytes(),
+				certificateSignatureAlgorithm.getEncryptionAlgorithm(),
+				signatureDigestForm.getDigestAlgorithm(),
+				signatureDigestForm.getUserId(),
+				signatureDigestForm.getUserPin());
+
+		pendingSignatureService.register(processId, signatureDigestForm);
+
+		CMDOTPForm cmdOtpForm = new CMDOTPForm();
+		cmdOtpForm.setProcessId(processId);
+		model.addAttribute("cmdOtpForm", cmdOtpForm);
+		model.addAttribute("digestAlgorithm", signatureDigestForm.getDigestAlgorithm());
+		model.addAttribute("otpUrl", OTP_URL);
+
+		return SIGNATURE_GET_OTP;
+	}
+
+	@RequestMapping(value = "/sign-document", method = RequestMethod.POST)
+	public String signDigest(Model model, @ModelAttribute("cmdOtpForm") @Valid CMDOTPForm cmdOtpForm, BindingResult result) {
+		String processId = cmdOtpForm.getProcessId();
+		if (pendingSignatureService.get(processId) == null) {
+			LOG.warn("The CMD process '{}' is unknown or expired", processId);
+			return "redirect:/cmd-sign-a-digest";
+		}
+
+		String signature = cmdService.validateOtp(processId, cmdOtpForm.getUserOtp());
+		if (signature == null) {
+			model.addAttribute("otpUrl", OTP_URL);
+			return SIGNATURE_GET_OTP;
+		}
+
+		List<StoredDocument> signedDocuments = pendingSignatureService.sign(processId, Collections.singletonList(signature));
+		if (signedDocuments == null) {
+			LOG.warn("The CMD process '{}' has already been completed", processId);
+			return "redirect:/cmd-sign-a-digest";
+		}
+
+		model.addAttribute("downloadToken", signedDocumentStore.put(signedDocuments.get(0)));
+		model.addAttribute("rootUrl", "sign-document");
+
+		return SIGNATURE_SIGNED;
+	}
+
+	@RequestMapping(value = "/sign-document/download", method = RequestMethod.GET)
+	public String downloadSignedFile(@RequestParam("token") String token, HttpServletRequest request, HttpServletResponse response) {
+		downloadService.write(signedDocumentStore.get(token), request, response);
+		return null;
+	}
+
+	@ModelAttribute("signatureForms")
+	public SignatureForm[] getSignatureForms() {
+		return new SignatureForm[] { SignatureForm.XAdES, SignatureForm.CAdES, SignatureForm.JAdES };
+	}
+
+	@ModelAttribute("digestAlgos")
+	public DigestAlgorithm[] getDigestAlgorithms() {
+		DigestAlgorithm[] algos = new DigestAlgorithm[] { DigestAlgorithm.SHA1, DigestAlgorithm.SHA256, DigestAlgorithm.SHA384,
+				DigestAlgorithm.SHA512 };
+		return algos;
+	}
+
+	@ModelAttribute("isMockUsed")
+	public boolean isMockUsed() {
+		return signingService.isMockTSPSourceUsed();
+	}
+
+}
@@ -1,18 +1,22 @@
 package eu.europa.esig.dss.web.controller;
 
 import eu.europa.esig.dss.enumerations.*;
-import eu.europa.esig.dss.model.DSSDocument;
-import eu.europa.esig.dss.model.InMemoryDocument;
-import eu.europa.esig.dss.model.MimeType;
 import eu.europa.esig.dss.model.ToBeSigned;
-import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.model.x509.CertificateToken;
 import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.web.WebAppUtils;
 import eu.europa.esig.dss.web.editor.ASiCContainerTypePropertyEditor;
 import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
 import eu.europa.esig.dss.web.model.CMDOTPForm;
 import eu.europa.esig.dss.web.model.CMDSignatureDocumentForm;
+import eu.europa.esig.dss.web.model.CMDSignatureMultipleDocumentsForm;
+import eu.europa.esig.dss.web.model.PendingSignature;
+import eu.europa.esig.dss.web.model.SignatureDocumentForm;
+import eu.europa.esig.dss.web.model.StoredDocument;
 import eu.europa.esig.dss.web.service.CMDService;
+import eu.europa.esig.dss.web.service.DownloadService;
+import eu.europa.esig.dss.web.service.PendingSignatureService;
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
 import eu.europa.esig.dss.web.service.SigningService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,32 +28,34 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.xml.ws.soap.SOAPFaultException;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 @Controller
-@SessionAttributes(value = { "signatureDocumentForm", "cmdOtpForm", "signedDocument" })
 @RequestMapping(value = "/cmd-sign-a-document")
 public class CMDSignatureController {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CMDSignatureController.class);
 
 	private static final String SIGNATURE_START = "cmd-signature";
+	private static final String SIGNATURE_MULTIPLE_START = "cmd-signature-multiple-documents";
 	private static final String SIGNATURE_GET_OTP = "cmd-signature-get-otp";
 	private static final String SIGNATURE_SIGNED = "cmd-signature-signed";
 
-	private static final String[] ALLOWED_FIELDS = { "documentToSign", "containerType", "signatureForm", "signaturePackaging",
-			"signatureLevel", "digestAlgorithm", "signWithExpiredCertificate", "addContentTimestamp", "userId", "userPin", "userOtp" };
+	private static final String[] ALLOWED_FIELDS = { "documentToSign", "documentsToSign", "containerType", "signatureForm", "signaturePackaging",
+			"signatureLevel", "digestAlgorithm", "signWithExpiredCertificate", "addContentTimestamp", "userId", "userPin", "userOtp", "processId" };
 	
     @Value("${default.digest.algo}")
     private String defaultDigestAlgo;
@@ -57,9 +63,18 @@ public class CMDSignatureController {
 	@Autowired
 	private SigningService signingService;
 
+	@Autowired
+	private DownloadService downloadService;
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
 	@Autowired
 	private CMDService cmdService;
 
+	@Autowired
+	private PendingSignatureService pendingSignatureService;
+
 	@InitBinder
 	public void initBinder(WebDataBinder webDataBinder) {
 		webDataBinder.registerCustomEditor(SignatureForm.class, new EnumPropertyEditor(SignatureForm.class));
@@ -100,7 +115,7 @@ public class CMDSignatureController {
 		}
 
 		// Get the user's certificates
-		List<String> certificates;
+		List<CertificateToken> certificates;
 		try {
 			certificates = cmdService.getCertificatesOf(signatureDocumentForm.getUserId());
 		} catch(SOAPFaultException | CertificateException | IOException e) {
@@ -110,8 +125,8 @@ public class CMDSignatureController {
 		}
 
 		// Set the user's certificates on the form object
-		signatureDocumentForm.setBase64Certificate(certificates.get(0));
-		signatureDocumentForm.setBase64CertificateChain(certificates.subList(1, certificates.size()));
+		signatureDocumentForm.setBase64Certificate(Utils.toBase64(certificates.get(0).getEncoded()));
+		signatureDocumentForm.setBase64CertificateChain(WebAppUtils.toBase64Certificates(certificates.subList(1, certificates.size())));
 
 		// Set the signing date and, if requested, the content timestamp
 		signatureDocumentForm.setSigningDate(new Date());
@@ -127,7 +142,8 @@ public class CMDSignatureController {
 			return null;
 		}
 
-		SignatureAlgorithm certificateSignatureAlgorithm = DSSUtils.loadCertificateFromBase64EncodedString(signatureDocumentForm.getBase64Certificate()).getSignatureAlgorithm();
+		SignatureAlgorithm certificateSignatureAlgorithm = certificates.get(0).getSignatureAlgorithm();
+		signatureDocumentForm.setEncryptionAlgorithm(certificateSignatureAlgorithm.getEncryptionAlgorithm());
 
 		String processId = cmdService.sign(docName,
 				dataToSign.getBytes(),
@@ -138,51 +154,196 @@ public class CMDSignatureController {
 
 		signatureDocumentForm.setProcessId(processId);
 
+		// Keep what the OTP step needs outside of the session
+		pendingSignatureService.register(processId, false, Collections.<SignatureDocumentForm> singletonList(signatureDocumentForm));
+
 		// Request OTP from user
 		CMDOTPForm cmdOtpForm = new CMDOTPForm();
+		cmdOtpForm.setProcessId(processId);
 		model.addAttribute("cmdOtpForm", cmdOtpForm);
 
-		model.addAttribute("signatureDocumentForm", signatureDocumentForm);
 		model.addAttribute("digestAlgorithm", signatureDocumentForm.getDigestAlgorithm());
+		model.addAttribute("otpUrl", "/cmd-sign-a-document/sign-document");
 
 		return SIGNATURE_GET_OTP;
 	}
 
 	@RequestMapping(value = "/sign-document", method = RequestMethod.POST)
 	public String signDocument(Model model, HttpServletRequest response,
-							   @ModelAttribute("signatureDocumentForm") @Valid CMDSignatureDocumentForm signatureDocumentForm,
 							   @ModelAttribute("cmdOtpForm") @Valid CMDOTPForm cmdOtpForm, BindingResult result) {
-		String signature = cmdService.validateOtp(signatureDocumentForm.getProcessId(), cmdOtpForm.getUserOtp());
+		return completeSignature(model, cmdOtpForm, "/cmd-sign-a-document", "/cmd-sign-a-document/sign-document");
+	}
+
+	@RequestMapping(value = "/multiple", method = RequestMethod.GET)
+	public String showMultipleSignatureParameters(Model model, HttpServletRequest request) {
+		CMDSignatureMultipleDocumentsForm multipleDocumentsForm = new CMDSignatureMultipleDocumentsForm();
+
+		multipleDocumentsForm.setDigestAlgorithm(DigestAlgorithm.forName(defaultDigestAlgo, DigestAlgorithm.SHA256));
+
+		model.addAttribute("cmdMultipleDocumentsForm", multipleDocumentsForm);
+
+		return SIGNATURE_MULTIPLE_START;
+	}
+
+	@RequestMapping(value = "/multiple", method = RequestMethod.POST)
+	public String requestMultipleSignature(Model model, HttpServletRequest response,
+			@ModelAttribute("cmdMultipleDocumentsForm") @Valid CMDSignatureMultipleDocumentsForm multipleDocumentsForm, BindingResult result) {
+		if (result.hasErrors()) {
+			if (LOG.isDebugEnabled()) {
+				List<ObjectError> allErrors = result.getAllErrors();
+				for (ObjectError error : allErrors) {
+					LOG.debug(error.getDefaultMessage());
+				}
+			}
+			return SIGNATURE_MULTIPLE_START;
+		}
+
+		// Get the user's certificates once for the whole batch
+		List<CertificateToken> certificates;
+		try {
+			certificates = cmdService.getCertificatesOf(multipleDocumentsForm.getUserId());
+		} catch(SOAPFaultException | CertificateException | IOException e) {
+			LOG.error("Unable to get the certificates of the user : " + e.getMessage(), e);
+			result.addError(new ObjectError("userId", "UserId is not valid!"));
+			return SIGNATURE_MULTIPLE_START;
+		}
+
+		multipleDocumentsForm.setBase64Certificate(Utils.toBase64(certificates.get(0).getEncoded()));
+		multipleDocumentsForm.setBase64CertificateChain(WebAppUtils.toBase64Certificates(certificates.subList(1, certificates.size())));
+		multipleDocumentsForm.setSigningDate(new Date());
+
+		SignatureAlgorithm certificateSignatureAlgorithm = certificates.get(0).getSignatureAlgorithm();
+		multipleDocumentsForm.setEncryptionAlgorithm(certificateSignatureAlgorithm.getEncryptionAlgorithm());
+
+		// Compute the data to sign of every document
+		List<SignatureDocumentForm> documentForms = new ArrayList<>();
+		List<String> docNames = new ArrayList<>();
+		List<byte[]> dataToSign = new ArrayList<>();
+		for (MultipartFile documentToSign : multipleDocumentsForm.getDocumentsToSign()) {
+			if (documentToSign == null || documentToSign.isEmpty()) {
+				continue;
+			}
 
-		if(signature == null) {
+			SignatureDocumentForm documentForm = toSignatureDocumentForm(multipleDocumentsForm, documentToSign);
+			if (documentForm.isAddContentTimestamp()) {
+				documentForm.setContentTimestamp(WebAppUtils.fromTimestampToken(signingService.getContentTimestamp(documentForm)));
+			}
+
+			ToBeSigned toBeSigned = signingService.getDataToSign(documentForm);
+			if (toBeSigned == null) {
+				return null;
+			}
+
+			documentForms.add(documentForm);
+			docNames.add(documentToSign.getOriginalFilename());
+			dataToSign.add(toBeSigned.getBytes());
+		}
+
+		if (documentForms.isEmpty()) {
+			result.addError(new ObjectError("documentsToSign", "File(s) to sign is mandatory"));
+			return SIGNATURE_MULTIPLE_START;
+		}
+
+		// Send all the hashes in a single request
+		String processId;
+		try {
+			processId = cmdService.signMultiple(docNames,
+					dataToSign,
+					multipleDocumentsForm.getEncryptionAlgorithm(),
+					multipleDocumentsForm.getDigestAlgorithm(),
+					multipleDocumentsForm.getUserId(),
+					multipleDocumentsForm.getUserPin());
+		} catch (SOAPFaultException e) {
+			LOG.error("Unable to request the signature of the documents : " + e.getMessage(), e);
+			result.addError(new ObjectError("userPin", "UserId or PIN is not valid!"));
+			return SIGNATURE_MULTIPLE_START;
+		}
+
+		multipleDocumentsForm.setProcessId(processId);
+
+		pendingSignatureService.register(processId, true, documentForms);
+
+		// Request one OTP for all the documents
+		CMDOTPForm cmdOtpForm = new CMDOTPForm();
+		cmdOtpForm.setProcessId(processId);
+		model.addAttribute("cmdOtpForm", cmdOtpForm);
+
+		model.addAttribute("digestAlgorithm", multipleDocumentsForm.getDigestAlgorithm());
+		model.addAttribute("otpUrl", "/cmd-sign-a-document/multiple/sign-document");
+
+		return SIGNATURE_GET_OTP;
+	}
+
+	@RequestMapping(value = "/multiple/sign-document", method = RequestMethod.POST)
+	public String signMultipleDocuments(Model model, HttpServletRequest response,
+			@ModelAttribute("cmdOtpForm") @Valid CMDOTPForm cmdOtpForm, BindingResult result) {
+		return completeSignature(model, cmdOtpForm, "/cmd-sign-a-document/multiple", "/cmd-sign-a-document/multiple/sign-document");
+	}
+
+	/**
+	 * Validates the OTP and signs the pending documents. The pending signature is taken from the shared store, so the
+	 * OTP can be submitted to another node than the one which received the PIN.
+	 */
+	private String completeSignature(Model model, CMDOTPForm cmdOtpForm, String startUrl, String otpUrl) {
+		String processId = cmdOtpForm.getProcessId();
+		PendingSignature pendingSignature = pendingSignatureService.get(processId);
+		if (pendingSignature == null) {
+			LOG.warn("The CMD process '{}' is unknown or expired", processId);
+			return "redirect:" + startUrl;
+		}
+
+		List<String> signatures;
+		if (pendingSignature.isMultiple()) {
+			signatures = cmdService.validateMultipleOtp(processId, cmdOtpForm.getUserOtp(), pendingSignature.getDocuments().size());
+		} else {
+			String signature = cmdService.validateOtp(processId, cmdOtpForm.getUserOtp());
+			signatures = signature != null ? Collections.singletonList(signature) : null;
+		}
+
+		if (signatures == null) {
+			model.addAttribute("otpUrl", otpUrl);
 			return SIGNATURE_GET_OTP;
 		}
 
-		signatureDocumentForm.setBase64SignatureValue(signature);
+		List<StoredDocument> signedDocuments = pendingSignatureService.sign(processId, signatures);
+		if (signedDocuments == null) {
+			LOG.warn("The CMD process '{}' has already been completed", processId);
+			return "redirect:" + startUrl;
+		}
 
-		DSSDocument document = signingService.signDocument(signatureDocumentForm);
-		InMemoryDocument signedDocument = new InMemoryDocument(DSSUtils.toByteArray(document), document.getName(), document.getMimeType());
+		StoredDocument signedDocument;
+		if (pendingSignature.isMultiple()) {
+			signedDocument = downloadService.zip(signedDocuments, "cmd-signed-documents.zip");
+		} else {
+			signedDocument = signedDocuments.get(0);
+		}
 
-		model.addAttribute("signedDocument", signedDocument);
+		model.addAttribute("downloadToken", signedDocumentStore.put(signedDocument));
 		model.addAttribute("rootUrl", "sign-document");
 
 		return SIGNATURE_SIGNED;
 	}
 
-	@RequestMapping(value = "/sign-document/download", method = RequestMethod.GET)
-	public String downloadSignedFile(@ModelAttribute("signedDocument") InMemoryDocument signedDocument, HttpServletResponse response) {
-		try {
-			MimeType mimeType = signedDocument.getMimeType();
-			if (mimeType != null) {
-				response.setContentType(mimeType.getMimeTypeString());
-			}
-			response.setHeader("Content-Transfer-Encoding", "binary");
-			response.setHeader("Content-Disposition", "attachment; filename=\"" + signedDocument.getName() + "\"");
-			Utils.copy(new ByteArrayInputStream(signedDocument.getBytes()), response.getOutputStream());
+	private SignatureDocumentForm toSignatureDocumentForm(CMDSignatureMultipleDocumentsForm multipleDocumentsForm, MultipartFile documentToSign) {
+		SignatureDocumentForm documentForm = new SignatureDocumentForm();
+		documentForm.setDocumentToSign(documentToSign);
+		documentForm.setContainerType(multipleDocumentsForm.getContainerType());
+		documentForm.setSignaturePackaging(multipleDocumentsForm.getSignaturePackaging());
+		documentForm.setSignatureForm(multipleDocumentsForm.getSignatureForm());
+		documentForm.setSignatureLevel(multipleDocumentsForm.getSignatureLevel());
+		documentForm.setDigestAlgorithm(multipleDocumentsForm.getDigestAlgorithm());
+		documentForm.setEncryptionAlgorithm(multipleDocumentsForm.getEncryptionAlgorithm());
+		documentForm.setSignWithExpiredCertificate(multipleDocumentsForm.isSignWithExpiredCertificate());
+		documentForm.setAddContentTimestamp(multipleDocumentsForm.isAddContentTimestamp());
+		documentForm.setSigningDate(multipleDocumentsForm.getSigningDate());
+		documentForm.setBase64Certificate(multipleDocumentsForm.getBase64Certificate());
+		documentForm.setBase64CertificateChain(multipleDocumentsForm.getBase64CertificateChain());
+		return documentForm;
+	}
 
-		} catch (Exception e) {
-			LOG.error("An error occurred while pushing file in response : " + e.getMessage(), e);
-		}
+	@RequestMapping(value = { "/sign-document/download", "/multiple/sign-document/download" }, method = RequestMethod.GET)
+	public String downloadSignedFile(@RequestParam("token") String token, HttpServletRequest request, HttpServletResponse response) {
+		downloadService.write(signedDocumentStore.get(token), request, response);
 		return null;
 	}
 
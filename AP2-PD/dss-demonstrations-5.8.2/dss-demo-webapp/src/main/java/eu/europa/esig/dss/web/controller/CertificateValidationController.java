@@ -101,12 +101,12 @@ public class CertificateValidationController extends AbstractValidationControlle
 		}
 		certificateValidator.setLocale(locale);
 
-		CertificateReports reports = certificateValidator.validate();
+		CertificateReports reports = certificateValidator.validate(validationPolicyCache.getDefaultPolicy());
 
 		// reports.print();
 		
         model.addAttribute("currentCertificate", certificate.getDSSIdAsString());
-		setAttributesModels(model, reports);
+		setAttributesModels(model, request.getSession(), reports);
 
 		return VALIDATION_RESULT_TILE;
 	}
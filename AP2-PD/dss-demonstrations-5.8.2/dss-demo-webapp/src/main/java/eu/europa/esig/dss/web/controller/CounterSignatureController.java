@@ -6,15 +6,13 @@ import eu.europa.esig.dss.enumerations.SignatureForm;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.model.DSSDocument;
 import eu.europa.esig.dss.model.DSSException;
-import eu.europa.esig.dss.model.InMemoryDocument;
-import eu.europa.esig.dss.model.MimeType;
 import eu.europa.esig.dss.model.ToBeSigned;
-import eu.europa.esig.dss.spi.DSSUtils;
 import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.validation.AdvancedSignature;
 import eu.europa.esig.dss.validation.CertificateVerifier;
 import eu.europa.esig.dss.validation.SignedDocumentValidator;
 import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.config.DiskSpillingMultipartResolver;
 import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
 import eu.europa.esig.dss.web.exception.ApplicationJsonRequestException;
 import eu.europa.esig.dss.web.model.CounterSignatureForm;
@@ -23,6 +21,8 @@ import eu.europa.esig.dss.web.model.DataToSignParams;
 import eu.europa.esig.dss.web.model.GetDataToSignResponse;
 import eu.europa.esig.dss.web.model.SignDocumentResponse;
 import eu.europa.esig.dss.web.model.SignatureValueAsString;
+import eu.europa.esig.dss.web.service.DownloadService;
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
 import eu.europa.esig.dss.web.service.SigningService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,15 +46,15 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
 import javax.xml.bind.DatatypeConverter;
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Controller
-@SessionAttributes(value = { "counterSignatureForm", "signedDocument" })
+@SessionAttributes(value = { "counterSignatureForm" })
 @RequestMapping(value = "/counter-sign")
 public class CounterSignatureController {
 
@@ -78,6 +78,12 @@ public class CounterSignatureController {
 	@Autowired
 	private SigningService signingService;
 
+	@Autowired
+	private DownloadService downloadService;
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
 	@Autowired
 	protected CertificateVerifier certificateVerifier;
 
@@ -115,6 +121,8 @@ public class CounterSignatureController {
 			}
 			return COUNTER_SIGN;
 		}
+		// the uploaded files are read again by the next requests
+		DiskSpillingMultipartResolver.keepUploads(response, "counterSignatureForm");
 		model.addAttribute("counterSignatureForm", counterSignatureForm);
 		model.addAttribute("digestAlgorithm", counterSignatureForm.getDigestAlgorithm());
 		model.addAttribute("rootUrl", "counter-sign");
@@ -146,33 +154,23 @@ public class CounterSignatureController {
 	@RequestMapping(value = "/sign-document", method = RequestMethod.POST)
 	@ResponseBody
 	public SignDocumentResponse counterSignSignature(Model model, @RequestBody @Valid SignatureValueAsString signatureValue,
-			@ModelAttribute("counterSignatureForm") @Valid CounterSignatureForm counterSignatureForm, BindingResult result) {
+			@ModelAttribute("counterSignatureForm") @Valid CounterSignatureForm counterSignatureForm, BindingResult result, HttpSession session) {
 
 		counterSignatureForm.setBase64SignatureValue(signatureValue.getSignatureValue());
 
 		DSSDocument document = signingService.counterSignSignature(counterSignatureForm);
-		InMemoryDocument signedDocument = new InMemoryDocument(DSSUtils.toByteArray(document), document.getName(), document.getMimeType());
-		model.addAttribute("signedDocument", signedDocument);
+		String token = signedDocumentStore.put(document);
+		// the uploaded files are no longer needed
+		DiskSpillingMultipartResolver.releaseUploads(session, "counterSignatureForm");
 
 		SignDocumentResponse signedDocumentResponse = new SignDocumentResponse();
-		signedDocumentResponse.setUrlToDownload("download");
+		signedDocumentResponse.setUrlToDownload("download?token=" + token);
 		return signedDocumentResponse;
 	}
 
 	@RequestMapping(value = "/download", method = RequestMethod.GET)
-	public String downloadSignedFile(@ModelAttribute("signedDocument") InMemoryDocument signedDocument, HttpServletResponse response) {
-		try {
-			MimeType mimeType = signedDocument.getMimeType();
-			if (mimeType != null) {
-				response.setContentType(mimeType.getMimeTypeString());
-			}
-			response.setHeader("Content-Transfer-Encoding", "binary");
-			response.setHeader("Content-Disposition", "attachment; filename=\"" + signedDocument.getName() + "\"");
-			Utils.copy(new ByteArrayInputStream(signedDocument.getBytes()), response.getOutputStream());
-
-		} catch (Exception e) {
-			LOG.error("An error occurred while pushing file in response : " + e.getMessage(), e);
-		}
+	public String downloadSignedFile(@RequestParam("token") String token, HttpServletRequest request, HttpServletResponse response) {
+		downloadService.write(signedDocumentStore.get(token), request, response);
 		return null;
 	}
 
@@ -17,6 +17,7 @@ import org.springframework.web.servlet.NoHandlerFoundException;
 import eu.europa.esig.dss.model.DSSException;
 import eu.europa.esig.dss.web.exception.ApplicationJsonRequestException;
 import eu.europa.esig.dss.web.exception.InternalServerException;
+import eu.europa.esig.dss.web.exception.PayloadTooLargeException;
 import eu.europa.esig.dss.web.exception.SourceNotFoundException;
 
 @ControllerAdvice
@@ -84,4 +85,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<String>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<String> payloadTooLargeExceptionHandler(HttpServletRequest req, Exception e) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Request too large : uri = '{}', message = '{}'", req.getRequestURI(), e.getMessage());
+        }
+        return new ResponseEntity<String>(e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
 }
\ No newline at end of file
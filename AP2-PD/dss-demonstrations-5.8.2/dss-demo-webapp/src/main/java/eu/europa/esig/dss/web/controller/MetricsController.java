@@ -0,0 +1,151 @@
+package eu.europa.esig.dss.web.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.google.common.cache.CacheStats;
+
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.web.service.BatchSignatureService;
+import eu.europa.esig.dss.web.service.BatchValidationService;
+import eu.europa.esig.dss.web.service.BulkExtensionService;
+import eu.europa.esig.dss.web.service.CMDConnectorPool;
+import eu.europa.esig.dss.web.service.CMDService;
+import eu.europa.esig.dss.web.service.CertificateTokenCache;
+import eu.europa.esig.dss.web.service.ContentTimestampCache;
+import eu.europa.esig.dss.web.service.PendingSignatureService;
+import eu.europa.esig.dss.web.service.PreparedSignatureCache;
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
+import eu.europa.esig.dss.web.service.ValidationPolicyCache;
+import eu.europa.esig.dss.web.service.ValidationReportsCache;
+import eu.europa.esig.dss.web.tsp.AggregatingTSPSource;
+import eu.europa.esig.dss.web.tsp.CompositeTSPSource;
+
+/**
+ * Exposes the runtime metrics of the pools and caches used by the application
+ */
+@Controller
+@RequestMapping(value = "/metrics")
+public class MetricsController {
+
+	@Autowired
+	private CMDConnectorPool cmdConnectorPool;
+
+	@Autowired
+	private CMDService cmdService;
+
+	@Autowired
+	private PendingSignatureService pendingSignatureService;
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
+	@Autowired
+	private BatchSignatureService batchSignatureService;
+
+	@Autowired
+	private BatchValidationService batchValidationService;
+
+	@Autowired
+	private PreparedSignatureCache preparedSignatureCache;
+
+	@Autowired
+	private CertificateTokenCache certificateTokenCache;
+
+	@Autowired
+	private BulkExtensionService bulkExtensionService;
+
+	@Autowired
+	private ContentTimestampCache contentTimestampCache;
+
+	@Autowired
+	private ValidationReportsCache validationReportsCache;
+
+	@Autowired
+	private ValidationPolicyCache validationPolicyCache;
+
+	@Autowired
+	private TSPSource tspSource;
+
+	@RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("cmdConnectorPool", getCMDConnectorPoolMetrics());
+		metrics.put("cmdCertificateCache", getCacheMetrics(cmdService.getCertificateCacheStats(), cmdService.getCertificateCacheSize()));
+		metrics.put("cmdPendingSignatures", pendingSignatureService.getPendingCount());
+		metrics.put("signedDocumentStore", getSignedDocumentStoreMetrics());
+		metrics.put("batchSignatures", getBatchSignatureMetrics());
+		metrics.put("batchValidation", getBatchValidationMetrics());
+		metrics.put("preparedSignatureCache", getCacheMetrics(preparedSignatureCache.getStats(), preparedSignatureCache.getSize()));
+		metrics.put("certificateTokenCache", getCacheMetrics(certificateTokenCache.getStats(), certificateTokenCache.getSize()));
+		metrics.put("bulkExtension", bulkExtensionService.getStatus());
+		metrics.put("contentTimestampCache", getCacheMetrics(contentTimestampCache.getStats(), contentTimestampCache.getSize()));
+		metrics.put("validationReportsCache", getCacheMetrics(validationReportsCache.getStats(), validationReportsCache.getSize()));
+		metrics.put("validationPolicyCache", getCacheMetrics(validationPolicyCache.getStats(), validationPolicyCache.getSize()));
+		TSPSource source = tspSource;
+		if (source instanceof AggregatingTSPSource) {
+			metrics.put("tspAggregation", ((AggregatingTSPSource) source).getMetrics());
+			source = ((AggregatingTSPSource) source).getTspSource();
+		}
+		if (source instanceof CompositeTSPSource) {
+			metrics.put("tspPool", ((CompositeTSPSource) source).getMetrics());
+		}
+		return metrics;
+	}
+
+	private Map<String, Object> getCMDConnectorPoolMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("maxSize", cmdConnectorPool.getMaxSize());
+		metrics.put("created", cmdConnectorPool.getCreatedConnectors());
+		metrics.put("active", cmdConnectorPool.getActiveConnectors());
+		metrics.put("idle", cmdConnectorPool.getIdleConnectors());
+		metrics.put("waitingThreads", cmdConnectorPool.getWaitingThreads());
+		metrics.put("borrowCount", cmdConnectorPool.getBorrowCount());
+		metrics.put("borrowTimeoutCount", cmdConnectorPool.getBorrowTimeoutCount());
+		metrics.put("averageWaitTimeMs", cmdConnectorPool.getAverageWaitTime());
+		metrics.put("maxWaitTimeMs", cmdConnectorPool.getMaxWaitTime());
+		return metrics;
+	}
+
+	private Map<String, Object> getSignedDocumentStoreMetrics() {
+		Map<String, Object> metrics = getCacheMetrics(signedDocumentStore.getStats(), signedDocumentStore.getSize());
+		metrics.put("occupancyBytes", signedDocumentStore.getOccupancy());
+		metrics.put("maxOccupancyBytes", signedDocumentStore.getMaxOccupancy());
+		return metrics;
+	}
+
+	private Map<String, Object> getBatchSignatureMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("pending", batchSignatureService.getPendingCount());
+		metrics.put("activeThreads", batchSignatureService.getActiveThreads());
+		metrics.put("queuedTasks", batchSignatureService.getQueuedTasks());
+		return metrics;
+	}
+
+	private Map<String, Object> getBatchValidationMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("validatedFiles", batchValidationService.getValidatedFiles());
+		metrics.put("activeThreads", batchValidationService.getActiveThreads());
+		metrics.put("queuedTasks", batchValidationService.getQueuedTasks());
+		return metrics;
+	}
+
+	private Map<String, Object> getCacheMetrics(CacheStats stats, long size) {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("size", size);
+		metrics.put("hitCount", stats.hitCount());
+		metrics.put("missCount", stats.missCount());
+		metrics.put("hitRate", stats.hitRate());
+		metrics.put("evictionCount", stats.evictionCount());
+		return metrics;
+	}
+
+}
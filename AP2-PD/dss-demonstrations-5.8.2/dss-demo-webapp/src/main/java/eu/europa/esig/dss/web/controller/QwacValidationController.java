@@ -3,6 +3,7 @@ package eu.europa.esig.dss.web.controller;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
@@ -59,7 +60,8 @@ public class QwacValidationController extends AbstractValidationController {
 	}
 
 	@RequestMapping(method = RequestMethod.POST)
-	public String validate(@ModelAttribute("qwacValidationForm") @Valid QwacValidationForm qwacValidationForm, BindingResult result, Model model) {
+	public String validate(@ModelAttribute("qwacValidationForm") @Valid QwacValidationForm qwacValidationForm, BindingResult result, Model model,
+			HttpSession session) {
 		if (result.hasErrors()) {
 			if (LOG.isDebugEnabled()) {
 				List<ObjectError> allErrors = result.getAllErrors();
@@ -92,9 +94,9 @@ public class QwacValidationController extends AbstractValidationController {
 			certificateValidator.setTokenExtractionStrategy(TokenExtractionStrategy.fromParameters(qwacValidationForm.isIncludeCertificateTokens(), false,
 					qwacValidationForm.isIncludeRevocationTokens()));
 
-			CertificateReports reports = certificateValidator.validate();
+			CertificateReports reports = certificateValidator.validate(validationPolicyCache.getDefaultPolicy());
 			
-			setAttributesModels(model, reports);
+			setAttributesModels(model, session, reports);
 
 			model.addAttribute("currentCertificate", qwacCertificate.getDSSIdAsString());
 
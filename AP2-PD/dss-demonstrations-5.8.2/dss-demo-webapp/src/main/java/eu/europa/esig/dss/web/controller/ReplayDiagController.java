@@ -24,8 +24,6 @@ import org.springframework.web.bind.annotation.SessionAttributes;
 import eu.europa.esig.dss.diagnostic.DiagnosticDataFacade;
 import eu.europa.esig.dss.diagnostic.jaxb.XmlCertificate;
 import eu.europa.esig.dss.diagnostic.jaxb.XmlDiagnosticData;
-import eu.europa.esig.dss.policy.EtsiValidationPolicy;
-import eu.europa.esig.dss.policy.ValidationPolicyFacade;
 import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.validation.executor.ProcessExecutor;
 import eu.europa.esig.dss.validation.executor.ValidationLevel;
@@ -33,6 +31,7 @@ import eu.europa.esig.dss.validation.executor.certificate.CertificateProcessExec
 import eu.europa.esig.dss.validation.executor.certificate.DefaultCertificateProcessExecutor;
 import eu.europa.esig.dss.validation.executor.signature.DefaultSignatureProcessExecutor;
 import eu.europa.esig.dss.validation.reports.AbstractReports;
+import eu.europa.esig.dss.web.WebAppUtils;
 import eu.europa.esig.dss.web.exception.InternalServerException;
 import eu.europa.esig.dss.web.model.ReplayDiagForm;
 
@@ -105,15 +104,15 @@ public class ReplayDiagController extends AbstractValidationController {
 		
 		// Set policy
 		if (!replayDiagForm.isDefaultPolicy() && ((replayDiagForm.getPolicyFile() != null) && !replayDiagForm.getPolicyFile().isEmpty())) {
-			try (InputStream policyIs = replayDiagForm.getPolicyFile().getInputStream()) {
-				executor.setValidationPolicy(new EtsiValidationPolicy(ValidationPolicyFacade.newFacade().unmarshall(policyIs)));
+			try {
+				executor.setValidationPolicy(validationPolicyCache.get(WebAppUtils.toDSSDocument(replayDiagForm.getPolicyFile())));
 			} catch (Exception e) {
 				LOG.warn("Unable to parse the provided validation policy", e);
 				throw new InternalServerException("Error while loading the provided validation policy");
 			}
 		} else {
 			try {
-				executor.setValidationPolicy(ValidationPolicyFacade.newFacade().getDefaultValidationPolicy());
+				executor.setValidationPolicy(validationPolicyCache.getDefaultPolicy());
 			} catch (Exception e) {
 				LOG.warn("Unable to parse the default validation policy", e);
 				throw new InternalServerException("Error while loading the default validation policy");
@@ -128,7 +127,7 @@ public class ReplayDiagController extends AbstractValidationController {
 		}
 		
 		AbstractReports reports = executor.execute();
-		setAttributesModels(model, reports);
+		setAttributesModels(model, request.getSession(), reports);
 		
 		return VALIDATION_RESULT_TILE;
 		
@@ -7,12 +7,9 @@ import eu.europa.esig.dss.enumerations.SignatureForm;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.enumerations.SignaturePackaging;
 import eu.europa.esig.dss.model.DSSDocument;
-import eu.europa.esig.dss.model.InMemoryDocument;
-import eu.europa.esig.dss.model.MimeType;
 import eu.europa.esig.dss.model.ToBeSigned;
-import eu.europa.esig.dss.spi.DSSUtils;
-import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.config.DiskSpillingMultipartResolver;
 import eu.europa.esig.dss.web.editor.ASiCContainerTypePropertyEditor;
 import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
 import eu.europa.esig.dss.web.model.DataToSignParams;
@@ -20,6 +17,8 @@ import eu.europa.esig.dss.web.model.GetDataToSignResponse;
 import eu.europa.esig.dss.web.model.SignDocumentResponse;
 import eu.europa.esig.dss.web.model.SignatureDocumentForm;
 import eu.europa.esig.dss.web.model.SignatureValueAsString;
+import eu.europa.esig.dss.web.service.DownloadService;
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
 import eu.europa.esig.dss.web.service.SigningService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,19 +35,20 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.SessionAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
 import javax.xml.bind.DatatypeConverter;
-import java.io.ByteArrayInputStream;
 import java.util.Date;
 import java.util.List;
 
 @Controller
-@SessionAttributes(value = { "signatureDocumentForm", "signedDocument" })
+@SessionAttributes(value = { "signatureDocumentForm" })
 @RequestMapping(value = "/sign-a-document")
 public class SignatureController {
 
@@ -72,6 +72,12 @@ public class SignatureController {
 	@Autowired
 	private SigningService signingService;
 
+	@Autowired
+	private DownloadService downloadService;
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
 	@InitBinder
 	public void initBinder(WebDataBinder webDataBinder) {
 		webDataBinder.registerCustomEditor(SignatureForm.class, new EnumPropertyEditor(SignatureForm.class));
@@ -108,6 +114,8 @@ public class SignatureController {
 			}
 			return SIGNATURE_PARAMETERS;
 		}
+		// the uploaded files are read again by the next requests
+		DiskSpillingMultipartResolver.keepUploads(response, "signatureDocumentForm");
 		model.addAttribute("signatureDocumentForm", signatureDocumentForm);
 		model.addAttribute("digestAlgorithm", signatureDocumentForm.getDigestAlgorithm());
 		model.addAttribute("rootUrl", "sign-a-document");
@@ -143,33 +151,23 @@ public class SignatureController {
 	@RequestMapping(value = "/sign-document", method = RequestMethod.POST)
 	@ResponseBody
 	public SignDocumentResponse signDocument(Model model, @RequestBody @Valid SignatureValueAsString signatureValue,
-			@ModelAttribute("signatureDocumentForm") @Valid SignatureDocumentForm signatureDocumentForm, BindingResult result) {
+			@ModelAttribute("signatureDocumentForm") @Valid SignatureDocumentForm signatureDocumentForm, BindingResult result, HttpSession session) {
 
 		signatureDocumentForm.setBase64SignatureValue(signatureValue.getSignatureValue());
 
 		DSSDocument document = signingService.signDocument(signatureDocumentForm);
-		InMemoryDocument signedDocument = new InMemoryDocument(DSSUtils.toByteArray(document), document.getName(), document.getMimeType());
-		model.addAttribute("signedDocument", signedDocument);
+		String token = signedDocumentStore.put(document);
+		// the uploaded files are no longer needed
+		DiskSpillingMultipartResolver.releaseUploads(session, "signatureDocumentForm");
 
 		SignDocumentResponse signedDocumentResponse = new SignDocumentResponse();
-		signedDocumentResponse.setUrlToDownload("download");
+		signedDocumentResponse.setUrlToDownload("download?token=" + token);
 		return signedDocumentResponse;
 	}
 
 	@RequestMapping(value = "/download", method = RequestMethod.GET)
-	public String downloadSignedFile(@ModelAttribute("signedDocument") InMemoryDocument signedDocument, HttpServletResponse response) {
-		try {
-			MimeType mimeType = signedDocument.getMimeType();
-			if (mimeType != null) {
-				response.setContentType(mimeType.getMimeTypeString());
-			}
-			response.setHeader("Content-Transfer-Encoding", "binary");
-			response.setHeader("Content-Disposition", "attachment; filename=\"" + signedDocument.getName() + "\"");
-			Utils.copy(new ByteArrayInputStream(signedDocument.getBytes()), response.getOutputStream());
-
-		} catch (Exception e) {
-			LOG.error("An error occurred while pushing file in response : " + e.getMessage(), e);
-		}
+	public String downloadSignedFile(@RequestParam("token") String token, HttpServletRequest request, HttpServletResponse response) {
+		downloadService.write(signedDocumentStore.get(token), request, response);
 		return null;
 	}
 
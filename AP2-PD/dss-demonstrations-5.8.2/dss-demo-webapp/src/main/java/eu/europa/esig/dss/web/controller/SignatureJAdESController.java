@@ -8,18 +8,17 @@ import eu.europa.esig.dss.enumerations.SignatureForm;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.enumerations.SignaturePackaging;
 import eu.europa.esig.dss.model.DSSDocument;
-import eu.europa.esig.dss.model.InMemoryDocument;
-import eu.europa.esig.dss.model.MimeType;
 import eu.europa.esig.dss.model.ToBeSigned;
-import eu.europa.esig.dss.spi.DSSUtils;
-import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.config.DiskSpillingMultipartResolver;
 import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
 import eu.europa.esig.dss.web.model.DataToSignParams;
 import eu.europa.esig.dss.web.model.GetDataToSignResponse;
 import eu.europa.esig.dss.web.model.SignDocumentResponse;
 import eu.europa.esig.dss.web.model.SignatureJAdESForm;
 import eu.europa.esig.dss.web.model.SignatureValueAsString;
+import eu.europa.esig.dss.web.service.DownloadService;
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
 import eu.europa.esig.dss.web.service.SigningService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,19 +35,20 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.SessionAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
 import javax.xml.bind.DatatypeConverter;
-import java.io.ByteArrayInputStream;
 import java.util.Date;
 import java.util.List;
 
 @Controller
-@SessionAttributes(value = { "signatureJAdESForm", "signedJAdESDocument" })
+@SessionAttributes(value = { "signatureJAdESForm" })
 @RequestMapping(value = "/sign-with-jades")
 public class SignatureJAdESController {
 
@@ -73,6 +73,12 @@ public class SignatureJAdESController {
 	@Autowired
 	private SigningService signingService;
 
+	@Autowired
+	private DownloadService downloadService;
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
 	@InitBinder
 	public void initBinder(WebDataBinder webDataBinder) {
 		webDataBinder.registerCustomEditor(JWSSerializationType.class, new EnumPropertyEditor(JWSSerializationType.class));
@@ -115,6 +121,8 @@ public class SignatureJAdESController {
 			}
 			return SIGNATURE_JAdES;
 		}
+		// the uploaded files are read again by the next requests
+		DiskSpillingMultipartResolver.keepUploads(response, "signatureJAdESForm");
 
 		model.addAttribute("signatureJAdESForm", signatureJAdESForm);
 		model.addAttribute("digestAlgorithm", signatureJAdESForm.getDigestAlgorithm());
@@ -153,33 +161,23 @@ public class SignatureJAdESController {
 	@RequestMapping(value = "/sign-document", method = RequestMethod.POST)
 	@ResponseBody
 	public SignDocumentResponse signDocument(Model model, @RequestBody @Valid SignatureValueAsString signatureValue,
-			@ModelAttribute("signatureJAdESForm") @Valid SignatureJAdESForm signatureJAdESForm, BindingResult result) {
+			@ModelAttribute("signatureJAdESForm") @Valid SignatureJAdESForm signatureJAdESForm, BindingResult result, HttpSession session) {
 
 		signatureJAdESForm.setBase64SignatureValue(signatureValue.getSignatureValue());
 
 		DSSDocument document = signingService.signDocument(signatureJAdESForm);
-		InMemoryDocument signedJAdESDocument = new InMemoryDocument(DSSUtils.toByteArray(document), document.getName(), document.getMimeType());
-		model.addAttribute("signedJAdESDocument", signedJAdESDocument);
+		String token = signedDocumentStore.put(document);
+		// the uploaded files are no longer needed
+		DiskSpillingMultipartResolver.releaseUploads(session, "signatureJAdESForm");
 
 		SignDocumentResponse signedDocumentResponse = new SignDocumentResponse();
-		signedDocumentResponse.setUrlToDownload("download");
+		signedDocumentResponse.setUrlToDownload("download?token=" + token);
 		return signedDocumentResponse;
 	}
 
 	@RequestMapping(value = "/download", method = RequestMethod.GET)
-	public String downloadSignedFile(@ModelAttribute("signedJAdESDocument") InMemoryDocument signedDocument, HttpServletResponse response) {
-		try {
-			MimeType mimeType = signedDocument.getMimeType();
-			if (mimeType != null) {
-				response.setContentType(mimeType.getMimeTypeString());
-			}
-			response.setHeader("Content-Transfer-Encoding", "binary");
-			response.setHeader("Content-Disposition", "attachment; filename=\"" + signedDocument.getName() + "\"");
-			Utils.copy(new ByteArrayInputStream(signedDocument.getBytes()), response.getOutputStream());
-
-		} catch (Exception e) {
-			LOG.error("An error occurred while pushing file in response : " + e.getMessage(), e);
-		}
+	public String downloadSignedFile(@RequestParam("token") String token, HttpServletRequest request, HttpServletResponse response) {
+		downloadService.write(signedDocumentStore.get(token), request, response);
 		return null;
 	}
 
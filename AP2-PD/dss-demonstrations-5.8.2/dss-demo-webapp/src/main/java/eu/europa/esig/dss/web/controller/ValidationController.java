@@ -17,7 +17,6 @@ import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -34,7 +33,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.SessionAttributes;
+import org.springframework.web.multipart.MultipartFile;
 
+import eu.europa.esig.dss.cades.validation.CMSDocumentValidator;
 import eu.europa.esig.dss.diagnostic.CertificateWrapper;
 import eu.europa.esig.dss.diagnostic.DiagnosticData;
 import eu.europa.esig.dss.diagnostic.DiagnosticDataFacade;
@@ -62,7 +63,9 @@ import eu.europa.esig.dss.web.WebAppUtils;
 import eu.europa.esig.dss.web.editor.EnumPropertyEditor;
 import eu.europa.esig.dss.web.exception.SourceNotFoundException;
 import eu.europa.esig.dss.web.model.ValidationForm;
+import eu.europa.esig.dss.web.service.DetachedContentDigester;
 import eu.europa.esig.dss.web.service.FOPService;
+import eu.europa.esig.dss.web.service.ValidationReportsCache;
 
 @Controller
 @SessionAttributes({ "simpleReportXml", "detailedReportXml", "diagnosticDataXml" })
@@ -76,13 +79,16 @@ public class ValidationController extends AbstractValidationController {
 	
 	private static final String[] ALLOWED_FIELDS = { "signedFile", "originalFiles[*].*", "digestToSend", "validationLevel", "defaultPolicy",
 			"policyFile", "signingCertificate", "adjunctCertificates", "includeCertificateTokens", "includeTimestampTokens", "includeRevocationTokens",
-			"includeSemantics" };
+			"includeSemantics", "bypassCache" };
 
 	@Autowired
 	private FOPService fopService;
 
 	@Autowired
-	private Resource defaultPolicy;
+	private DetachedContentDigester detachedContentDigester;
+
+	@Autowired
+	private ValidationReportsCache validationReportsCache;
 
 	@InitBinder
 	public void initBinder(WebDataBinder webDataBinder) {
@@ -117,15 +123,15 @@ public class ValidationController extends AbstractValidationController {
 			return VALIDATION_TILE;
 		}
 
-		SignedDocumentValidator documentValidator = SignedDocumentValidator
-				.fromDocument(WebAppUtils.toDSSDocument(validationForm.getSignedFile()));
+		DSSDocument signedDocument = WebAppUtils.toDSSDocument(validationForm.getSignedFile());
+		SignedDocumentValidator documentValidator = SignedDocumentValidator.fromDocument(signedDocument);
 		documentValidator.setCertificateVerifier(getCertificateVerifier(validationForm));
 		documentValidator.setTokenExtractionStrategy(TokenExtractionStrategy.fromParameters(validationForm.isIncludeCertificateTokens(),
 				validationForm.isIncludeTimestampTokens(), validationForm.isIncludeRevocationTokens()));
 		documentValidator.setIncludeSemantics(validationForm.isIncludeSemantics());
 
 		setSigningCertificate(documentValidator, validationForm);
-		setDetachedContents(documentValidator, validationForm);
+		List<DSSDocument> detachedContents = setDetachedContents(documentValidator, validationForm);
 		
 		Locale locale = request.getLocale();
 		LOG.trace("Requested locale : {}", locale);
@@ -135,18 +141,48 @@ public class ValidationController extends AbstractValidationController {
 		}
 		documentValidator.setLocale(locale);
 
-		Reports reports = validate(documentValidator, validationForm);
-		setAttributesModels(model, reports);
+		Reports reports = validationReportsCache.get(getReportsKey(signedDocument, detachedContents, validationForm, locale),
+				validationForm.isBypassCache(), () -> validate(documentValidator, validationForm));
+		setAttributesModels(model, request.getSession(), reports);
 
 		return VALIDATION_RESULT_TILE;
 	}
 	
-	private void setDetachedContents(DocumentValidator documentValidator, ValidationForm validationForm) {
+	private List<DSSDocument> setDetachedContents(DocumentValidator documentValidator, ValidationForm validationForm) {
+		List<DSSDocument> detachedContents = null;
 		List<DSSDocument> originalFiles = WebAppUtils.originalFilesToDSSDocuments(validationForm.getOriginalFiles());
 		if (Utils.isCollectionNotEmpty(originalFiles)) {
-			documentValidator.setDetachedContents(originalFiles);
+			if (documentValidator instanceof CMSDocumentValidator) {
+				detachedContents = detachedContentDigester.digest(originalFiles);
+			} else {
+				// the XAdES references are resolved by reading the documents
+				detachedContents = originalFiles;
+			}
+			documentValidator.setDetachedContents(detachedContents);
 		}
 		documentValidator.setValidationLevel(validationForm.getValidationLevel());
+		return detachedContents;
+	}
+
+	/**
+	 * @return the key of the reports in the cache, null when the signing certificate or adjunct certificates are given
+	 */
+	private String getReportsKey(DSSDocument signedDocument, List<DSSDocument> detachedContents, ValidationForm validationForm, Locale locale) {
+		MultipartFile signingCertificate = validationForm.getSigningCertificate();
+		if ((signingCertificate != null && !signingCertificate.isEmpty())
+				|| WebAppUtils.toCertificateSource(validationForm.getAdjunctCertificates()) != null) {
+			return null;
+		}
+		String policyDigest;
+		DSSDocument policyFile = WebAppUtils.toDSSDocument(validationForm.getPolicyFile());
+		if (!validationForm.isDefaultPolicy() && policyFile != null) {
+			policyDigest = validationPolicyCache.getDigest(policyFile);
+		} else {
+			policyDigest = validationPolicyCache.getDefaultPolicyDigest();
+		}
+		return validationReportsCache.getKey(signedDocument, detachedContents, policyDigest, validationForm.getValidationLevel(),
+				validationForm.isIncludeCertificateTokens(), validationForm.isIncludeTimestampTokens(), validationForm.isIncludeRevocationTokens(),
+				validationForm.isIncludeSemantics(), locale);
 	}
 	
 	private void setSigningCertificate(DocumentValidator documentValidator, ValidationForm validationForm) {
@@ -178,20 +214,10 @@ public class ValidationController extends AbstractValidationController {
 
 		Date start = new Date();
 		DSSDocument policyFile = WebAppUtils.toDSSDocument(validationForm.getPolicyFile());
-        if (!validationForm.isDefaultPolicy() && (policyFile != null)) {
-            try (InputStream is = policyFile.openStream()) {
-                reports = documentValidator.validateDocument(is);
-			} catch (IOException e) {
-				LOG.error(e.getMessage(), e);
-			}
-		} else if (defaultPolicy != null) {
-            try (InputStream is = defaultPolicy.getInputStream()) {
-                reports = documentValidator.validateDocument(is);
-            } catch (IOException e) {
-                LOG.error("Unable to parse policy : " + e.getMessage(), e);
-            }
+		if (!validationForm.isDefaultPolicy() && (policyFile != null)) {
+			reports = documentValidator.validateDocument(validationPolicyCache.get(policyFile));
 		} else {
-			LOG.error("Not correctly initialized");
+			reports = documentValidator.validateDocument(validationPolicyCache.getDefaultPolicy());
 		}
 		
 		Date end = new Date();
@@ -201,6 +227,29 @@ public class ValidationController extends AbstractValidationController {
 		return reports;
 	}
 
+	@RequestMapping(value = "/detailed-report")
+	public void detailedReport(@RequestParam(value = "id") String id, HttpSession session, HttpServletResponse response) throws IOException {
+		// the report of the page which requests it, not the one of the last validation of the session
+		String detailedReport = getDetailedReport(session, id);
+		if (Utils.isStringBlank(detailedReport)) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		response.setContentType(MediaType.TEXT_HTML_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		try {
+			xsltService.generateDetailedReport(detailedReport, response.getWriter());
+		} catch (Exception e) {
+			LOG.error("An error occurred while generating html for detailed report : " + e.getMessage(), e);
+			// the partial html is dropped as long as nothing was sent to the client
+			if (!response.isCommitted()) {
+				response.reset();
+				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			}
+		}
+	}
+
 	@RequestMapping(value = "/download-simple-report")
 	public void downloadSimpleReport(HttpSession session, HttpServletResponse response) {
 		try {
@@ -0,0 +1,15 @@
+package eu.europa.esig.dss.web.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class PayloadTooLargeException extends RuntimeException {
+
+	private static final long serialVersionUID = -3954870270476251375L;
+
+	public PayloadTooLargeException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,26 @@
+package eu.europa.esig.dss.web.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import eu.europa.esig.dss.web.service.ArchiveTimestampRenewalService;
+
+@Service
+public class ArchiveTimestampRenewalJob {
+
+	@Value("${cron.archive.renewal.enable}")
+	private boolean enable;
+
+	@Autowired
+	private ArchiveTimestampRenewalService archiveTimestampRenewalService;
+
+	@Scheduled(initialDelayString = "${cron.initial.delay.archive.renewal}", fixedDelayString = "${cron.delay.archive.renewal}")
+	public void renew() {
+		if (enable) {
+			archiveTimestampRenewalService.renew();
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+package eu.europa.esig.dss.web.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import eu.europa.esig.dss.web.service.BatchSignatureService;
+
+@Service
+public class BatchSignaturePurgeJob {
+
+	@Autowired
+	private BatchSignatureService batchSignatureService;
+
+	@Scheduled(initialDelayString = "${cron.delay.batch.signature.purge}", fixedDelayString = "${cron.delay.batch.signature.purge}")
+	public void purge() {
+		batchSignatureService.cleanUp();
+	}
+
+}
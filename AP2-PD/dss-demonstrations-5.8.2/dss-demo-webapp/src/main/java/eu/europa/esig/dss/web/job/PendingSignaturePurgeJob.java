@@ -0,0 +1,20 @@
+package eu.europa.esig.dss.web.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import eu.europa.esig.dss.web.service.PendingSignatureService;
+
+@Service
+public class PendingSignaturePurgeJob {
+
+	@Autowired
+	private PendingSignatureService pendingSignatureService;
+
+	@Scheduled(initialDelayString = "${cron.delay.cmd.pending.purge}", fixedDelayString = "${cron.delay.cmd.pending.purge}")
+	public void purge() {
+		pendingSignatureService.purgeExpired();
+	}
+
+}
@@ -0,0 +1,20 @@
+package eu.europa.esig.dss.web.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import eu.europa.esig.dss.web.service.SignedDocumentStore;
+
+@Service
+public class SignedDocumentPurgeJob {
+
+	@Autowired
+	private SignedDocumentStore signedDocumentStore;
+
+	@Scheduled(initialDelayString = "${cron.delay.signed.document.purge}", fixedDelayString = "${cron.delay.signed.document.purge}")
+	public void purge() {
+		signedDocumentStore.cleanUp();
+	}
+
+}
@@ -0,0 +1,65 @@
+package eu.europa.esig.dss.web.model;
+
+import java.util.Date;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+
+/**
+ * A signed file of the archive, with the time when its last archive timestamp stops protecting it
+ */
+public class ArchivedSignature {
+
+	/* Relative to the archive directory */
+	private String path;
+
+	private long lastModified;
+
+	/* Null if the file has no archive timestamp */
+	private Date expirationTime;
+
+	private SignatureForm signatureForm;
+
+	private ASiCContainerType containerType;
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(long lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public Date getExpirationTime() {
+		return expirationTime;
+	}
+
+	public void setExpirationTime(Date expirationTime) {
+		this.expirationTime = expirationTime;
+	}
+
+	public SignatureForm getSignatureForm() {
+		return signatureForm;
+	}
+
+	public void setSignatureForm(SignatureForm signatureForm) {
+		this.signatureForm = signatureForm;
+	}
+
+	public ASiCContainerType getContainerType() {
+		return containerType;
+	}
+
+	public void setContainerType(ASiCContainerType containerType) {
+		this.containerType = containerType;
+	}
+
+}
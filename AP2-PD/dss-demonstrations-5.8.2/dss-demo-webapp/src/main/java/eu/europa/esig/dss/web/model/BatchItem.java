@@ -0,0 +1,35 @@
+package eu.europa.esig.dss.web.model;
+
+public class BatchItem {
+
+	private String name;
+
+	private String dataToSign;
+
+	private String error;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getDataToSign() {
+		return dataToSign;
+	}
+
+	public void setDataToSign(String dataToSign) {
+		this.dataToSign = dataToSign;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+}
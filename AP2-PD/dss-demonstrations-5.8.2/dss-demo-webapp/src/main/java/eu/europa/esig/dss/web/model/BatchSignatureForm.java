@@ -0,0 +1,55 @@
+package eu.europa.esig.dss.web.model;
+
+import java.util.List;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+import eu.europa.esig.dss.web.WebAppUtils;
+
+/**
+ * Documents signed one by one with the same parameters
+ */
+public class BatchSignatureForm extends AbstractSignatureForm {
+
+	private List<MultipartFile> documentsToSign;
+
+	@NotNull(message = "{error.signature.packaging.mandatory}")
+	private SignaturePackaging signaturePackaging;
+
+	private ASiCContainerType containerType;
+
+	public List<MultipartFile> getDocumentsToSign() {
+		return documentsToSign;
+	}
+
+	public void setDocumentsToSign(List<MultipartFile> documentsToSign) {
+		this.documentsToSign = documentsToSign;
+	}
+
+	public SignaturePackaging getSignaturePackaging() {
+		return signaturePackaging;
+	}
+
+	public void setSignaturePackaging(SignaturePackaging signaturePackaging) {
+		this.signaturePackaging = signaturePackaging;
+	}
+
+	public ASiCContainerType getContainerType() {
+		return containerType;
+	}
+
+	public void setContainerType(ASiCContainerType containerType) {
+		this.containerType = containerType;
+	}
+
+	@AssertTrue(message = "{error.to.sign.files.mandatory}")
+	public boolean isDocumentsToSign() {
+		return WebAppUtils.isCollectionNotEmpty(documentsToSign);
+	}
+
+}
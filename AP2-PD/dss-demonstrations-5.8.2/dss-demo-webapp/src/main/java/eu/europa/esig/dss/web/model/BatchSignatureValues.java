@@ -0,0 +1,23 @@
+package eu.europa.esig.dss.web.model;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * The signature values in the order of the items, null for the items which are not signed
+ */
+public class BatchSignatureValues {
+
+	@NotNull
+	private List<String> signatureValues;
+
+	public List<String> getSignatureValues() {
+		return signatureValues;
+	}
+
+	public void setSignatureValues(List<String> signatureValues) {
+		this.signatureValues = signatureValues;
+	}
+
+}
@@ -0,0 +1,67 @@
+package eu.europa.esig.dss.web.model;
+
+import eu.europa.esig.dss.simplereport.jaxb.XmlSimpleReport;
+
+public class BatchValidationResult {
+
+	private String name;
+
+	private Integer signaturesCount;
+
+	private Integer validSignaturesCount;
+
+	private XmlSimpleReport simpleReport;
+
+	private String error;
+
+	private long durationMs;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Integer getSignaturesCount() {
+		return signaturesCount;
+	}
+
+	public void setSignaturesCount(Integer signaturesCount) {
+		this.signaturesCount = signaturesCount;
+	}
+
+	public Integer getValidSignaturesCount() {
+		return validSignaturesCount;
+	}
+
+	public void setValidSignaturesCount(Integer validSignaturesCount) {
+		this.validSignaturesCount = validSignaturesCount;
+	}
+
+	public XmlSimpleReport getSimpleReport() {
+		return simpleReport;
+	}
+
+	public void setSimpleReport(XmlSimpleReport simpleReport) {
+		this.simpleReport = simpleReport;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public long getDurationMs() {
+		return durationMs;
+	}
+
+	public void setDurationMs(long durationMs) {
+		this.durationMs = durationMs;
+	}
+
+}
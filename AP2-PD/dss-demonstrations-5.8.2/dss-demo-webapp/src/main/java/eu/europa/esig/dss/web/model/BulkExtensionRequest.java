@@ -0,0 +1,69 @@
+package eu.europa.esig.dss.web.model;
+
+import javax.validation.constraints.NotNull;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+
+/**
+ * The signed files to extend and the target level. The paths are relative to the bulk extension directory.
+ */
+public class BulkExtensionRequest {
+
+	/* A directory or a ZIP archive */
+	@NotNull
+	private String source;
+
+	@NotNull
+	private String target;
+
+	private ASiCContainerType containerType;
+
+	@NotNull
+	private SignatureForm signatureForm;
+
+	@NotNull
+	private SignatureLevel signatureLevel;
+
+	public String getSource() {
+		return source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public void setTarget(String target) {
+		this.target = target;
+	}
+
+	public ASiCContainerType getContainerType() {
+		return containerType;
+	}
+
+	public void setContainerType(ASiCContainerType containerType) {
+		this.containerType = containerType;
+	}
+
+	public SignatureForm getSignatureForm() {
+		return signatureForm;
+	}
+
+	public void setSignatureForm(SignatureForm signatureForm) {
+		this.signatureForm = signatureForm;
+	}
+
+	public SignatureLevel getSignatureLevel() {
+		return signatureLevel;
+	}
+
+	public void setSignatureLevel(SignatureLevel signatureLevel) {
+		this.signatureLevel = signatureLevel;
+	}
+
+}
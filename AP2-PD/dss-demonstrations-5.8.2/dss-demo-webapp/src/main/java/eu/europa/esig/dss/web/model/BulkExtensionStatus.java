@@ -0,0 +1,142 @@
+package eu.europa.esig.dss.web.model;
+
+import java.util.Date;
+
+public class BulkExtensionStatus {
+
+	public enum State {
+		SCANNING, RUNNING, COMPLETED, CANCELLED, FAILED
+	}
+
+	private State state;
+
+	private String source;
+
+	private String target;
+
+	private Date startTime;
+
+	private Date endTime;
+
+	private int total;
+
+	private int skipped;
+
+	private int extended;
+
+	private int failed;
+
+	private int groups;
+
+	/* Over the last minute */
+	private double filesPerMinute;
+
+	private double averageFilesPerMinute;
+
+	private String message;
+
+	public State getState() {
+		return state;
+	}
+
+	public void setState(State state) {
+		this.state = state;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public void setTarget(String target) {
+		this.target = target;
+	}
+
+	public Date getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(Date startTime) {
+		this.startTime = startTime;
+	}
+
+	public Date getEndTime() {
+		return endTime;
+	}
+
+	public void setEndTime(Date endTime) {
+		this.endTime = endTime;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public void setTotal(int total) {
+		this.total = total;
+	}
+
+	public int getSkipped() {
+		return skipped;
+	}
+
+	public void setSkipped(int skipped) {
+		this.skipped = skipped;
+	}
+
+	public int getExtended() {
+		return extended;
+	}
+
+	public void setExtended(int extended) {
+		this.extended = extended;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public void setFailed(int failed) {
+		this.failed = failed;
+	}
+
+	public int getGroups() {
+		return groups;
+	}
+
+	public void setGroups(int groups) {
+		this.groups = groups;
+	}
+
+	public double getFilesPerMinute() {
+		return filesPerMinute;
+	}
+
+	public void setFilesPerMinute(double filesPerMinute) {
+		this.filesPerMinute = filesPerMinute;
+	}
+
+	public double getAverageFilesPerMinute() {
+		return averageFilesPerMinute;
+	}
+
+	public void setAverageFilesPerMinute(double averageFilesPerMinute) {
+		this.averageFilesPerMinute = averageFilesPerMinute;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+}
@@ -8,6 +8,8 @@ public class CMDOTPForm {
     @Pattern(regexp = "[0-9]{6}", message = "{error.cmd.userOtp.wrongInput}")
     private String userOtp;
 
+    private String processId;
+
     public String getUserOtp() {
         return userOtp;
     }
@@ -15,4 +17,12 @@ public class CMDOTPForm {
     public void setUserOtp(String userOtp) {
         this.userOtp = userOtp;
     }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public void setProcessId(String processId) {
+        this.processId = processId;
+    }
 }
@@ -0,0 +1,87 @@
+package eu.europa.esig.dss.web.model;
+
+import java.util.List;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+import eu.europa.esig.dss.web.WebAppUtils;
+
+public class CMDSignatureMultipleDocumentsForm extends AbstractSignatureForm {
+
+	private List<MultipartFile> documentsToSign;
+
+	@NotNull(message = "{error.signature.packaging.mandatory}")
+	private SignaturePackaging signaturePackaging;
+
+	private ASiCContainerType containerType;
+
+	@NotNull
+	@Pattern(regexp = "(\\+351) *9[0-9]{8}", message = "{error.cmd.userId.wrongInput}")
+	private String userId;
+
+	@NotNull
+	@Pattern(regexp = "[0-9]{4,8}", message = "{error.cmd.userPin.wrongInput}")
+	private String userPin;
+
+	private String processId;
+
+	public List<MultipartFile> getDocumentsToSign() {
+		return documentsToSign;
+	}
+
+	public void setDocumentsToSign(List<MultipartFile> documentsToSign) {
+		this.documentsToSign = documentsToSign;
+	}
+
+	public SignaturePackaging getSignaturePackaging() {
+		return signaturePackaging;
+	}
+
+	public void setSignaturePackaging(SignaturePackaging signaturePackaging) {
+		this.signaturePackaging = signaturePackaging;
+	}
+
+	public ASiCContainerType getContainerType() {
+		return containerType;
+	}
+
+	public void setContainerType(ASiCContainerType containerType) {
+		this.containerType = containerType;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
+
+	public String getUserPin() {
+		return userPin;
+	}
+
+	public void setUserPin(String userPin) {
+		this.userPin = userPin;
+	}
+
+	public String getProcessId() {
+		return processId;
+	}
+
+	public void setProcessId(String processId) {
+		this.processId = processId;
+	}
+
+	@AssertTrue(message = "{error.to.sign.files.mandatory}")
+	public boolean isDocumentsToSign() {
+		return WebAppUtils.isCollectionNotEmpty(documentsToSign);
+	}
+
+}
@@ -0,0 +1,27 @@
+package eu.europa.esig.dss.web.model;
+
+import java.util.List;
+
+public class GetBatchDataToSignResponse {
+
+	private String batchId;
+
+	private List<BatchItem> items;
+
+	public String getBatchId() {
+		return batchId;
+	}
+
+	public void setBatchId(String batchId) {
+		this.batchId = batchId;
+	}
+
+	public List<BatchItem> getItems() {
+		return items;
+	}
+
+	public void setItems(List<BatchItem> items) {
+		this.items = items;
+	}
+
+}
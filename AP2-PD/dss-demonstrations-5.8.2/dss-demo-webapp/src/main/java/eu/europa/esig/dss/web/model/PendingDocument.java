@@ -0,0 +1,65 @@
+package eu.europa.esig.dss.web.model;
+
+import java.io.Serializable;
+
+import eu.europa.esig.dss.ws.dto.TimestampDTO;
+
+/**
+ * A document waiting for its CMD signature value. Only one of the file path (content spooled to the pending directory)
+ * or the digest (detached signatures) is set.
+ */
+public class PendingDocument implements Serializable {
+
+	private static final long serialVersionUID = 4893618250731407552L;
+
+	private String name;
+
+	private String filePath;
+
+	private String base64Digest;
+
+	private TimestampDTO contentTimestamp;
+
+	private String dataToSignDigest;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public void setFilePath(String filePath) {
+		this.filePath = filePath;
+	}
+
+	public String getBase64Digest() {
+		return base64Digest;
+	}
+
+	public void setBase64Digest(String base64Digest) {
+		this.base64Digest = base64Digest;
+	}
+
+	public TimestampDTO getContentTimestamp() {
+		return contentTimestamp;
+	}
+
+	public void setContentTimestamp(TimestampDTO contentTimestamp) {
+		this.contentTimestamp = contentTimestamp;
+	}
+
+	public String getDataToSignDigest() {
+		return dataToSignDigest;
+	}
+
+	public void setDataToSignDigest(String dataToSignDigest) {
+		this.dataToSignDigest = dataToSignDigest;
+	}
+
+}
@@ -0,0 +1,166 @@
+package eu.europa.esig.dss.web.model;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.EncryptionAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+
+/**
+ * The state of a CMD signature between the PIN step and the OTP step, identified by the CMD processId. It contains
+ * everything needed to finish the signature on any node, but neither the PIN nor the uploaded files themselves.
+ */
+public class PendingSignature implements Serializable {
+
+	private static final long serialVersionUID = -2650192781634237064L;
+
+	private String processId;
+
+	private Date expirationTime;
+
+	private boolean multiple;
+
+	private ASiCContainerType containerType;
+
+	private SignatureForm signatureForm;
+
+	private SignaturePackaging signaturePackaging;
+
+	private SignatureLevel signatureLevel;
+
+	private DigestAlgorithm digestAlgorithm;
+
+	private EncryptionAlgorithm encryptionAlgorithm;
+
+	private boolean signWithExpiredCertificate;
+
+	private Date signingDate;
+
+	private String base64Certificate;
+
+	private List<String> base64CertificateChain;
+
+	private List<PendingDocument> documents;
+
+	public String getProcessId() {
+		return processId;
+	}
+
+	public void setProcessId(String processId) {
+		this.processId = processId;
+	}
+
+	public Date getExpirationTime() {
+		return expirationTime;
+	}
+
+	public void setExpirationTime(Date expirationTime) {
+		this.expirationTime = expirationTime;
+	}
+
+	public boolean isMultiple() {
+		return multiple;
+	}
+
+	public void setMultiple(boolean multiple) {
+		this.multiple = multiple;
+	}
+
+	public ASiCContainerType getContainerType() {
+		return containerType;
+	}
+
+	public void setContainerType(ASiCContainerType containerType) {
+		this.containerType = containerType;
+	}
+
+	public SignatureForm getSignatureForm() {
+		return signatureForm;
+	}
+
+	public void setSignatureForm(SignatureForm signatureForm) {
+		this.signatureForm = signatureForm;
+	}
+
+	public SignaturePackaging getSignaturePackaging() {
+		return signaturePackaging;
+	}
+
+	public void setSignaturePackaging(SignaturePackaging signaturePackaging) {
+		this.signaturePackaging = signaturePackaging;
+	}
+
+	public SignatureLevel getSignatureLevel() {
+		return signatureLevel;
+	}
+
+	public void setSignatureLevel(SignatureLevel signatureLevel) {
+		this.signatureLevel = signatureLevel;
+	}
+
+	public DigestAlgorithm getDigestAlgorithm() {
+		return digestAlgorithm;
+	}
+
+	public void setDigestAlgorithm(DigestAlgorithm digestAlgorithm) {
+		this.digestAlgorithm = digestAlgorithm;
+	}
+
+	public EncryptionAlgorithm getEncryptionAlgorithm() {
+		return encryptionAlgorithm;
+	}
+
+	public void setEncryptionAlgorithm(EncryptionAlgorithm encryptionAlgorithm) {
+		this.encryptionAlgorithm = encryptionAlgorithm;
+	}
+
+	public boolean isSignWithExpiredCertificate() {
+		return signWithExpiredCertificate;
+	}
+
+	public void setSignWithExpiredCertificate(boolean signWithExpiredCertificate) {
+		this.signWithExpiredCertificate = signWithExpiredCertificate;
+	}
+
+	public Date getSigningDate() {
+		return signingDate;
+	}
+
+	public void setSigningDate(Date signingDate) {
+		this.signingDate = signingDate;
+	}
+
+	public String getBase64Certificate() {
+		return base64Certificate;
+	}
+
+	public void setBase64Certificate(String base64Certificate) {
+		this.base64Certificate = base64Certificate;
+	}
+
+	public List<String> getBase64CertificateChain() {
+		return base64CertificateChain;
+	}
+
+	public void setBase64CertificateChain(List<String> base64CertificateChain) {
+		this.base64CertificateChain = base64CertificateChain;
+	}
+
+	public List<PendingDocument> getDocuments() {
+		return documents;
+	}
+
+	public void setDocuments(List<PendingDocument> documents) {
+		this.documents = documents;
+	}
+
+	public boolean isExpired() {
+		return expirationTime != null && expirationTime.before(new Date());
+	}
+
+}
@@ -17,6 +17,9 @@ public class SignatureDocumentForm extends AbstractSignatureForm {
 
 	private ASiCContainerType containerType;
 
+	/* Key of the signature prepared with the data to sign, never bound from the request */
+	private String dataToSignDigest;
+
 	public MultipartFile getDocumentToSign() {
 		return documentToSign;
 	}
@@ -41,6 +44,14 @@ public class SignatureDocumentForm extends AbstractSignatureForm {
 		this.containerType = containerType;
 	}
 
+	public String getDataToSignDigest() {
+		return dataToSignDigest;
+	}
+
+	public void setDataToSignDigest(String dataToSignDigest) {
+		this.dataToSignDigest = dataToSignDigest;
+	}
+
 	@AssertTrue(message = "{error.to.sign.file.mandatory}")
 	public boolean isDocumentToSign() {
 		return (documentToSign != null) && (!documentToSign.isEmpty());
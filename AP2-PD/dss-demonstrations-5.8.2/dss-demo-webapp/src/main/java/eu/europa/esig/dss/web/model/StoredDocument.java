@@ -0,0 +1,121 @@
+package eu.europa.esig.dss.web.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A signed document written once to the download directory. The file of a document being downloaded is only deleted
+ * once the download is over (see {@link #acquire()}).
+ */
+public class StoredDocument implements Serializable {
+
+	private static final long serialVersionUID = -3871960218517296482L;
+
+	private static final Logger LOG = LoggerFactory.getLogger(StoredDocument.class);
+
+	private String name;
+
+	private String mimeType;
+
+	private String filePath;
+
+	private long length;
+
+	private String eTag;
+
+	/* The downloads in progress */
+	private transient int readers;
+
+	/* Deleted while downloaded, the file is deleted by the last reader */
+	private transient boolean deleted;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public void setMimeType(String mimeType) {
+		this.mimeType = mimeType;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public void setFilePath(String filePath) {
+		this.filePath = filePath;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public void setLength(long length) {
+		this.length = length;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	public void setETag(String eTag) {
+		this.eTag = eTag;
+	}
+
+	public boolean exists() {
+		return filePath != null && new File(filePath).isFile();
+	}
+
+	/**
+	 * Marks the file as being read, it is not deleted until {@link #release()}
+	 *
+	 * @return false if the document is already deleted
+	 */
+	public synchronized boolean acquire() {
+		if (deleted || !exists()) {
+			return false;
+		}
+		readers++;
+		return true;
+	}
+
+	public synchronized void release() {
+		readers--;
+		if (readers == 0 && deleted) {
+			deleteFile();
+		}
+	}
+
+	/**
+	 * Deletes the file, or once the downloads in progress are over
+	 */
+	public synchronized void delete() {
+		deleted = true;
+		if (readers == 0) {
+			deleteFile();
+		}
+	}
+
+	private void deleteFile() {
+		if (filePath != null) {
+			try {
+				Files.deleteIfExists(new File(filePath).toPath());
+			} catch (IOException e) {
+				LOG.warn("Unable to delete the signed file {} : {}", filePath, e.getMessage());
+			}
+		}
+	}
+
+}
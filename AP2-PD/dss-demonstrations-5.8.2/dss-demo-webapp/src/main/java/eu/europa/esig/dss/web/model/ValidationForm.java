@@ -33,6 +33,8 @@ public class ValidationForm {
 
 	private boolean includeSemantics;
 
+	private boolean bypassCache;
+
 	public MultipartFile getSignedFile() {
 		return signedFile;
 	}
@@ -121,6 +123,14 @@ public class ValidationForm {
 		this.includeSemantics = includeSemantics;
 	}
 
+	public boolean isBypassCache() {
+		return bypassCache;
+	}
+
+	public void setBypassCache(boolean bypassCache) {
+		this.bypassCache = bypassCache;
+	}
+
 	@AssertTrue(message = "{error.signed.file.mandatory}")
 	public boolean isSignedFile() {
 		return (signedFile != null) && (!signedFile.isEmpty());
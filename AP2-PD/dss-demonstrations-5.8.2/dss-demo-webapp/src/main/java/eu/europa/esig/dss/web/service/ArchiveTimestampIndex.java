@@ -0,0 +1,250 @@
+package eu.europa.esig.dss.web.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.web.model.ArchivedSignature;
+
+/**
+ * Index of the archived signatures by expiration time of their last archive timestamp. The modification time of every
+ * file is kept, with the start time of the last scan of the directory, so that only the files modified since this scan
+ * are parsed again.
+ */
+public class ArchiveTimestampIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ArchiveTimestampIndex.class);
+
+	private static final String TABLE_NAME = "ARCHIVE_TIMESTAMP_INDEX";
+
+	private static final String SQL_CREATE_TABLE = "CREATE TABLE " + TABLE_NAME
+			+ " (PATH VARCHAR(1024) NOT NULL, LAST_MODIFIED BIGINT NOT NULL, EXPIRATION_TIME TIMESTAMP, SIGNATURE_FORM VARCHAR(16),"
+			+ " CONTAINER_TYPE VARCHAR(16), PRIMARY KEY (PATH))";
+
+	private static final String SQL_CREATE_INDEX = "CREATE INDEX " + TABLE_NAME + "_EXPIRATION ON " + TABLE_NAME + " (EXPIRATION_TIME)";
+
+	private static final String SQL_DROP_TABLE = "DROP TABLE " + TABLE_NAME;
+
+	private static final String SCAN_TABLE_NAME = "ARCHIVE_TIMESTAMP_SCAN";
+
+	private static final String SQL_CREATE_SCAN_TABLE = "CREATE TABLE " + SCAN_TABLE_NAME + " (ID INTEGER NOT NULL, LAST_SCAN BIGINT NOT NULL, PRIMARY KEY (ID))";
+
+	private static final String SQL_DROP_SCAN_TABLE = "DROP TABLE " + SCAN_TABLE_NAME;
+
+	private static final String SQL_SELECT_LAST_SCAN = "SELECT LAST_SCAN FROM " + SCAN_TABLE_NAME + " WHERE ID = 1";
+
+	private static final String SQL_DELETE_LAST_SCAN = "DELETE FROM " + SCAN_TABLE_NAME + " WHERE ID = 1";
+
+	private static final String SQL_INSERT_LAST_SCAN = "INSERT INTO " + SCAN_TABLE_NAME + " (ID, LAST_SCAN) VALUES (1, ?)";
+
+	private static final String SQL_SELECT_MODIFICATIONS = "SELECT PATH, LAST_MODIFIED FROM " + TABLE_NAME + " WHERE LAST_MODIFIED >= ?";
+
+	private static final String SQL_SELECT_DUE = "SELECT PATH, LAST_MODIFIED, EXPIRATION_TIME, SIGNATURE_FORM, CONTAINER_TYPE FROM " + TABLE_NAME
+			+ " WHERE EXPIRATION_TIME <= ? ORDER BY EXPIRATION_TIME";
+
+	private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE PATH = ?";
+
+	private static final String SQL_INSERT = "INSERT INTO " + TABLE_NAME
+			+ " (PATH, LAST_MODIFIED, EXPIRATION_TIME, SIGNATURE_FORM, CONTAINER_TYPE) VALUES (?, ?, ?, ?, ?)";
+
+	private final DataSource dataSource;
+
+	public ArchiveTimestampIndex(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public void initTable() throws SQLException {
+		try (Connection c = dataSource.getConnection()) {
+			DatabaseMetaData metaData = c.getMetaData();
+			try (Statement s = c.createStatement()) {
+				if (!exists(metaData, TABLE_NAME)) {
+					s.executeUpdate(SQL_CREATE_TABLE);
+					s.executeUpdate(SQL_CREATE_INDEX);
+					c.commit();
+					LOG.info("Table '{}' created", TABLE_NAME);
+				}
+				if (!exists(metaData, SCAN_TABLE_NAME)) {
+					s.executeUpdate(SQL_CREATE_SCAN_TABLE);
+					c.commit();
+					LOG.info("Table '{}' created", SCAN_TABLE_NAME);
+				}
+			}
+		}
+	}
+
+	private boolean exists(DatabaseMetaData metaData, String tableName) throws SQLException {
+		try (ResultSet rs = metaData.getTables(null, null, tableName, null)) {
+			return rs.next();
+		}
+	}
+
+	public void destroyTable() throws SQLException {
+		try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+			s.executeUpdate(SQL_DROP_TABLE);
+			s.executeUpdate(SQL_DROP_SCAN_TABLE);
+			c.commit();
+		}
+	}
+
+	/**
+	 * @return the start time of the last complete scan of the directory, 0 if the directory was never scanned
+	 */
+	public long getLastScan() {
+		try (Connection c = dataSource.getConnection()) {
+			try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery(SQL_SELECT_LAST_SCAN)) {
+				return rs.next() ? rs.getLong(1) : 0;
+			} finally {
+				c.rollback();
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to read the archive timestamp index", e);
+		}
+	}
+
+	/**
+	 * Records the start time of a complete scan of the directory. This time is taken before the files are listed, it
+	 * does not depend on the modification time of the files, which are changed by the renewals.
+	 *
+	 * @param lastScan the start time of the scan
+	 */
+	public void setLastScan(long lastScan) {
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement delete = c.prepareStatement(SQL_DELETE_LAST_SCAN);
+					PreparedStatement insert = c.prepareStatement(SQL_INSERT_LAST_SCAN)) {
+				delete.executeUpdate();
+				insert.setLong(1, lastScan);
+				insert.executeUpdate();
+				c.commit();
+			} catch (SQLException e) {
+				c.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to record the archive directory scan", e);
+		}
+	}
+
+	/**
+	 * @param since the earliest modification time
+	 * @return the modification time of the indexed files modified since the given time, by path
+	 */
+	public Map<String, Long> getModificationTimes(long since) {
+		Map<String, Long> modificationTimes = new HashMap<>();
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement select = c.prepareStatement(SQL_SELECT_MODIFICATIONS)) {
+				select.setLong(1, since);
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						modificationTimes.put(rs.getString(1), rs.getLong(2));
+					}
+				}
+			} finally {
+				c.rollback();
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to read the archive timestamp index", e);
+		}
+		return modificationTimes;
+	}
+
+	/**
+	 * @param horizon the latest expiration time
+	 * @param max     the maximum number of signatures
+	 * @return the signatures expiring before the horizon, the earliest first
+	 */
+	public List<ArchivedSignature> getDue(Date horizon, int max) {
+		List<ArchivedSignature> due = new ArrayList<>();
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement select = c.prepareStatement(SQL_SELECT_DUE)) {
+				select.setTimestamp(1, new Timestamp(horizon.getTime()));
+				select.setMaxRows(max);
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						due.add(toArchivedSignature(rs));
+					}
+				}
+			} finally {
+				c.rollback();
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to read the archive timestamp index", e);
+		}
+		return due;
+	}
+
+	public void save(ArchivedSignature signature) {
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement delete = c.prepareStatement(SQL_DELETE); PreparedStatement insert = c.prepareStatement(SQL_INSERT)) {
+				delete.setString(1, signature.getPath());
+				delete.executeUpdate();
+
+				insert.setString(1, signature.getPath());
+				insert.setLong(2, signature.getLastModified());
+				if (signature.getExpirationTime() != null) {
+					insert.setTimestamp(3, new Timestamp(signature.getExpirationTime().getTime()));
+				} else {
+					insert.setNull(3, Types.TIMESTAMP);
+				}
+				insert.setString(4, signature.getSignatureForm() != null ? signature.getSignatureForm().name() : null);
+				insert.setString(5, signature.getContainerType() != null ? signature.getContainerType().name() : null);
+				insert.executeUpdate();
+				c.commit();
+			} catch (SQLException e) {
+				c.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to index the archived signature " + signature.getPath(), e);
+		}
+	}
+
+	public void delete(String path) {
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement delete = c.prepareStatement(SQL_DELETE)) {
+				delete.setString(1, path);
+				delete.executeUpdate();
+				c.commit();
+			} catch (SQLException e) {
+				c.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to remove the archived signature " + path + " from the index", e);
+		}
+	}
+
+	private ArchivedSignature toArchivedSignature(ResultSet rs) throws SQLException {
+		ArchivedSignature signature = new ArchivedSignature();
+		signature.setPath(rs.getString(1));
+		signature.setLastModified(rs.getLong(2));
+		signature.setExpirationTime(rs.getTimestamp(3));
+		String signatureForm = rs.getString(4);
+		if (signatureForm != null) {
+			signature.setSignatureForm(SignatureForm.valueOf(signatureForm));
+		}
+		String containerType = rs.getString(5);
+		if (containerType != null) {
+			signature.setContainerType(ASiCContainerType.valueOf(containerType));
+		}
+		return signature;
+	}
+
+}
@@ -0,0 +1,263 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.europa.esig.dss.asic.common.ASiCUtils;
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.Digest;
+import eu.europa.esig.dss.model.FileDocument;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.validation.AdvancedSignature;
+import eu.europa.esig.dss.validation.CertificateVerifier;
+import eu.europa.esig.dss.validation.SignedDocumentValidator;
+import eu.europa.esig.dss.validation.timestamp.TimestampToken;
+import eu.europa.esig.dss.web.model.ArchivedSignature;
+
+/**
+ * Renews the archive timestamps of the signatures stored in {@code archive.renewal.directory} before they stop
+ * protecting them. A signature expires with the certificate of the TSA of its last archive timestamp, or with the
+ * digest algorithm of the message imprint of this timestamp when an expiration date is configured in
+ * {@code archive.renewal.algorithm.expirations} (ALGORITHM:yyyy-MM-dd, comma separated).
+ * <p>
+ * The signatures are indexed by expiration time in the database. Only the files modified since the start of the last
+ * scan of the directory are parsed to update the index, the files must then be added with their own modification time
+ * (not copied with the original one). A deleted file is removed from the index when its signature is due. At most
+ * {@code archive.renewal.batch.size} signatures expiring in less than {@code archive.renewal.horizon} days are extended
+ * with a new archive timestamp.
+ */
+@Component
+public class ArchiveTimestampRenewalService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ArchiveTimestampRenewalService.class);
+
+	/* A signature which cannot be renewed is retried the next day */
+	private static final long RETRY_DELAY = TimeUnit.DAYS.toMillis(1);
+
+	/* Margin for the file systems which keep the modification times with a precision of a few seconds */
+	private static final long SCAN_OVERLAP = TimeUnit.SECONDS.toMillis(2);
+
+	@Value("${archive.renewal.directory}")
+	private String archiveDirectory;
+
+	@Value("${archive.renewal.horizon}")
+	private long horizon;
+
+	@Value("${archive.renewal.batch.size}")
+	private int batchSize;
+
+	@Value("${archive.renewal.algorithm.expirations}")
+	private String algorithmExpirations;
+
+	@Autowired
+	private SigningService signingService;
+
+	@Autowired
+	private CertificateVerifier certificateVerifier;
+
+	@Autowired
+	private ArchiveTimestampIndex archiveTimestampIndex;
+
+	private Path root;
+
+	private final Map<DigestAlgorithm, Date> digestAlgorithmExpirations = new EnumMap<>(DigestAlgorithm.class);
+
+	@PostConstruct
+	public void init() {
+		root = new File(archiveDirectory).toPath().toAbsolutePath().normalize();
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		for (String expiration : algorithmExpirations.split(",")) {
+			if (Utils.isStringNotBlank(expiration)) {
+				String[] values = expiration.trim().split(":");
+				try {
+					digestAlgorithmExpirations.put(DigestAlgorithm.valueOf(values[0].trim()), format.parse(values[1].trim()));
+				} catch (ParseException | RuntimeException e) {
+					throw new DSSException("Invalid digest algorithm expiration : " + expiration, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the index with the modified files, then renews the signatures which expire before the horizon
+	 */
+	public void renew() {
+		if (!Files.isDirectory(root)) {
+			LOG.debug("The archive directory {} does not exist", root);
+			return;
+		}
+		updateIndex();
+		renewDue();
+	}
+
+	private void updateIndex() {
+		long scanStart = System.currentTimeMillis();
+		// the files written while the last scan was running, with a coarse modification time, may not be indexed yet
+		long lastScan = archiveTimestampIndex.getLastScan();
+		long since = lastScan > 0 ? lastScan - SCAN_OVERLAP : 0;
+		Map<String, Long> modificationTimes = archiveTimestampIndex.getModificationTimes(since);
+		List<Path> files;
+		try (Stream<Path> paths = Files.find(root, Integer.MAX_VALUE,
+				(file, attributes) -> attributes.isRegularFile() && attributes.lastModifiedTime().toMillis() >= since)) {
+			files = paths.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new DSSException("Unable to list the archive directory " + root + " : " + e.getMessage(), e);
+		}
+		int indexed = 0;
+		for (Path file : files) {
+			String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+			try {
+				long lastModified = Files.getLastModifiedTime(file).toMillis();
+				Long indexedLastModified = modificationTimes.get(path);
+				if (indexedLastModified == null || indexedLastModified != lastModified) {
+					archiveTimestampIndex.save(toArchivedSignature(path, file, lastModified));
+					indexed++;
+				}
+			} catch (IOException e) {
+				LOG.warn("Unable to index the archived file {} : {}", path, e.getMessage());
+			}
+		}
+		archiveTimestampIndex.setLastScan(scanStart);
+		LOG.info("Archive timestamp index updated : {} files indexed", indexed);
+	}
+
+	private void renewDue() {
+		long now = System.currentTimeMillis();
+		List<ArchivedSignature> due = archiveTimestampIndex.getDue(new Date(now + TimeUnit.DAYS.toMillis(horizon)), batchSize);
+		int renewed = 0;
+		for (ArchivedSignature signature : due) {
+			Path file = root.resolve(signature.getPath());
+			if (!Files.isRegularFile(file)) {
+				LOG.info("The archived file {} was deleted", signature.getPath());
+				archiveTimestampIndex.delete(signature.getPath());
+				continue;
+			}
+			try {
+				DSSDocument extendedDocument = signingService.extend(new FileDocument(file.toFile()), null, signature.getContainerType(),
+						signature.getSignatureForm(), SignatureLevel.valueOf(signature.getSignatureForm().name() + "_BASELINE_LTA"));
+				replace(file, extendedDocument);
+				archiveTimestampIndex.save(toArchivedSignature(signature.getPath(), file, Files.getLastModifiedTime(file).toMillis()));
+				renewed++;
+			} catch (Exception e) {
+				LOG.warn("Unable to renew the archive timestamp of {} : {}", signature.getPath(), e.getMessage());
+				signature.setExpirationTime(new Date(now + TimeUnit.DAYS.toMillis(horizon) + RETRY_DELAY));
+				archiveTimestampIndex.save(signature);
+			}
+		}
+		LOG.info("Archive timestamps renewed : {}/{}", renewed, due.size());
+	}
+
+	private void replace(Path file, DSSDocument document) throws IOException {
+		Path tmp = Files.createTempFile(file.getParent(), ".renewal-", ".tmp");
+		try {
+			try (InputStream is = document.openStream()) {
+				Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private ArchivedSignature toArchivedSignature(String path, Path file, long lastModified) {
+		ArchivedSignature archivedSignature = new ArchivedSignature();
+		archivedSignature.setPath(path);
+		archivedSignature.setLastModified(lastModified);
+		try {
+			DSSDocument document = new FileDocument(file.toFile());
+			SignedDocumentValidator validator = SignedDocumentValidator.fromDocument(document);
+			validator.setCertificateVerifier(certificateVerifier);
+			Date expirationTime = null;
+			SignatureForm signatureForm = null;
+			for (AdvancedSignature signature : validator.getSignatures()) {
+				signatureForm = signature.getSignatureForm();
+				Date signatureExpirationTime = getExpirationTime(signature);
+				if (signatureExpirationTime != null && (expirationTime == null || signatureExpirationTime.before(expirationTime))) {
+					expirationTime = signatureExpirationTime;
+				}
+			}
+			archivedSignature.setExpirationTime(expirationTime);
+			archivedSignature.setSignatureForm(signatureForm);
+			archivedSignature.setContainerType(getContainerType(document));
+		} catch (Exception e) {
+			// indexed without expiration time, not parsed again until it is modified
+			LOG.debug("No signature found in the archived file {} : {}", path, e.getMessage());
+		}
+		return archivedSignature;
+	}
+
+	/**
+	 * @return the time when the last archive timestamp of the signature expires, null if it has no archive timestamp
+	 */
+	private Date getExpirationTime(AdvancedSignature signature) {
+		List<TimestampToken> archiveTimestamps = signature.getArchiveTimestamps();
+		if (Utils.isCollectionEmpty(archiveTimestamps)) {
+			return null;
+		}
+		TimestampToken lastTimestamp = archiveTimestamps.get(0);
+		for (TimestampToken timestamp : archiveTimestamps) {
+			if (timestamp.getGenerationTime().after(lastTimestamp.getGenerationTime())) {
+				lastTimestamp = timestamp;
+			}
+		}
+
+		Date expirationTime = null;
+		for (CertificateToken certificate : lastTimestamp.getCertificates()) {
+			if (lastTimestamp.isSignedBy(certificate)) {
+				expirationTime = certificate.getNotAfter();
+				break;
+			}
+		}
+		// the algorithm of the digest protecting the signature, not the one signed by the TSA
+		Digest messageImprint = lastTimestamp.getMessageImprint();
+		if (messageImprint != null) {
+			Date algorithmExpirationTime = digestAlgorithmExpirations.get(messageImprint.getAlgorithm());
+			if (algorithmExpirationTime != null && (expirationTime == null || algorithmExpirationTime.before(expirationTime))) {
+				expirationTime = algorithmExpirationTime;
+			}
+		}
+		if (expirationTime == null) {
+			LOG.debug("The TSA certificate of the archive timestamp {} is not embedded", lastTimestamp.getDSSIdAsString());
+		}
+		return expirationTime;
+	}
+
+	private ASiCContainerType getContainerType(DSSDocument document) {
+		if (!ASiCUtils.isZip(document)) {
+			return null;
+		}
+		String name = document.getName() != null ? document.getName().toLowerCase() : "";
+		if (name.endsWith(".asics") || name.endsWith(".scs")) {
+			return ASiCContainerType.ASiC_S;
+		}
+		return ASiCContainerType.ASiC_E;
+	}
+
+}
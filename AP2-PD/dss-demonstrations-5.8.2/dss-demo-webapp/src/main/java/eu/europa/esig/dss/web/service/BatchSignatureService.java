@@ -0,0 +1,441 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.FileDocument;
+import eu.europa.esig.dss.model.MimeType;
+import eu.europa.esig.dss.model.SignatureValue;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.token.DSSPrivateKeyEntry;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.model.BatchItem;
+import eu.europa.esig.dss.web.model.BatchSignatureForm;
+import eu.europa.esig.dss.web.model.GetBatchDataToSignResponse;
+import eu.europa.esig.dss.web.model.SignatureDocumentForm;
+
+/**
+ * Signs many documents with the same parameters, each document getting its own signature. The data to sign and the
+ * signed documents are computed in parallel on a bounded pool of {@code batch.signature.threads} threads, the request
+ * thread runs the tasks itself when the queue is full. The signed documents are streamed in a ZIP archive in the order
+ * of the batch, a failed item is reported in an {@code errors.txt} entry without failing the other items.
+ * <p>
+ * Between the data to sign and the signature values, the batch is kept {@code batch.signature.ttl} seconds. Detached
+ * XAdES/CAdES signatures only keep the digests of the documents, the other documents are spooled to the batch
+ * directory.
+ */
+@Component
+public class BatchSignatureService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BatchSignatureService.class);
+
+	private static final String ERRORS_ENTRY = "errors.txt";
+
+	@Value("${batch.signature.threads}")
+	private int threads;
+
+	@Value("${batch.signature.queue.size}")
+	private int queueSize;
+
+	@Value("${batch.signature.ttl}")
+	private long ttl;
+
+	@Value("${batch.signature.directory}")
+	private String batchDirectory;
+
+	@Autowired
+	private SigningService signingService;
+
+	@Autowired
+	private KeyStoreSignatureTokenConnection remoteToken;
+
+	private File directory;
+
+	private ThreadPoolExecutor executor;
+
+	private Cache<String, Batch> batches;
+
+	@PostConstruct
+	public void init() {
+		directory = new File(batchDirectory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new DSSException("Unable to create the batch directory " + directory.getAbsolutePath());
+		}
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		batches = CacheBuilder.newBuilder()
+				.expireAfterWrite(ttl, TimeUnit.SECONDS)
+				.removalListener((RemovalListener<String, Batch>) notification -> {
+					// a signed batch deletes its files itself
+					if (notification.wasEvicted()) {
+						deleteFiles(notification.getValue().documents);
+					}
+				})
+				.build();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
+		for (Batch batch : batches.asMap().values()) {
+			deleteFiles(batch.documents);
+		}
+		batches.invalidateAll();
+	}
+
+	/**
+	 * Computes the data to sign of every document and keeps the batch until its signature values are received
+	 *
+	 * @param form the documents and the common parameters, with the signing certificate
+	 * @return the batch id and the data to sign of every item, or the error of the item
+	 */
+	public GetBatchDataToSignResponse getDataToSign(BatchSignatureForm form) {
+		LOG.info("Start getDataToSign with a batch of {} documents", form.getDocumentsToSign().size());
+
+		// one signing date for the whole batch
+		form.setSigningDate(new Date());
+		SignatureDocumentForm parameters = toSignatureDocumentForm(form);
+
+		List<DSSDocument> documents = keepDocuments(form);
+		List<Future<ToBeSigned>> futures = new ArrayList<>(documents.size());
+		List<SignatureDocumentForm> forms = new ArrayList<>(documents.size());
+		for (DSSDocument document : documents) {
+			SignatureDocumentForm documentForm = copyOf(parameters);
+			forms.add(documentForm);
+			futures.add(executor.submit(() -> signingService.getDataToSign(documentForm, document)));
+		}
+
+		Batch batch = new Batch(parameters, documents);
+		List<BatchItem> items = new ArrayList<>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			BatchItem item = new BatchItem();
+			item.setName(documents.get(i).getName());
+			try {
+				item.setDataToSign(Utils.toBase64(futures.get(i).get().getBytes()));
+				batch.dataToSignDigests[i] = forms.get(i).getDataToSignDigest();
+			} catch (ExecutionException e) {
+				item.setError(getMessage(e));
+				batch.errors[i] = item.getError();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				deleteFiles(documents);
+				throw new DSSException("Interrupted while computing the data to sign", e);
+			}
+			items.add(item);
+		}
+
+		String batchId = UUID.randomUUID().toString();
+		batches.put(batchId, batch);
+
+		GetBatchDataToSignResponse response = new GetBatchDataToSignResponse();
+		response.setBatchId(batchId);
+		response.setItems(items);
+
+		LOG.info("End getDataToSign with a batch of {} documents", documents.size());
+		return response;
+	}
+
+	/**
+	 * Signs the documents of the batch with the signature values of the client and writes the signed documents in a ZIP
+	 * archive. The batch can only be signed once.
+	 *
+	 * @param batchId         the id returned with the data to sign
+	 * @param signatureValues the base64 encoded signature values, in the order of the items
+	 * @param os              the stream of the archive
+	 * @return false if the batch is unknown or expired
+	 */
+	public boolean sign(String batchId, List<String> signatureValues, OutputStream os) {
+		// the expired batches are ignored, a batch signed concurrently is only signed once
+		Batch batch = batches.getIfPresent(batchId);
+		if (batch == null || !batches.asMap().remove(batchId, batch)) {
+			return false;
+		}
+
+		LOG.info("Start signDocument with a batch of {} documents", batch.documents.size());
+		try {
+			List<Future<DSSDocument>> futures = new ArrayList<>(batch.documents.size());
+			for (int i = 0; i < batch.documents.size(); i++) {
+				String signatureValue = i < signatureValues.size() ? signatureValues.get(i) : null;
+				if (batch.errors[i] != null || Utils.isStringEmpty(signatureValue)) {
+					futures.add(null);
+					continue;
+				}
+				SignatureDocumentForm form = copyOf(batch.parameters);
+				form.setBase64SignatureValue(signatureValue);
+				form.setDataToSignDigest(batch.dataToSignDigests[i]);
+				DSSDocument document = batch.documents.get(i);
+				futures.add(executor.submit(() -> signingService.signDocument(form, document)));
+			}
+			writeZip(batch.documents, futures, batch.errors, os);
+		} finally {
+			deleteFiles(batch.documents);
+		}
+		LOG.info("End signDocument with a batch of {} documents", batch.documents.size());
+		return true;
+	}
+
+	/**
+	 * Signs the documents with the key of the server and writes the signed documents in a ZIP archive
+	 *
+	 * @param form the documents and the common parameters
+	 * @param os   the stream of the archive
+	 */
+	public void signWithServerToken(BatchSignatureForm form, OutputStream os) {
+		LOG.info("Start signDocument with the server token and a batch of {} documents", form.getDocumentsToSign().size());
+
+		DSSPrivateKeyEntry key = remoteToken.getKeys().get(0);
+		form.setBase64Certificate(Utils.toBase64(key.getCertificate().getEncoded()));
+		List<String> base64CertificateChain = new ArrayList<>();
+		for (CertificateToken certificate : key.getCertificateChain()) {
+			base64CertificateChain.add(Utils.toBase64(certificate.getEncoded()));
+		}
+		form.setBase64CertificateChain(base64CertificateChain);
+		form.setEncryptionAlgorithm(key.getEncryptionAlgorithm());
+		form.setSigningDate(new Date());
+		SignatureDocumentForm parameters = toSignatureDocumentForm(form);
+
+		// the uploads are available until the end of the request
+		List<DSSDocument> documents = toDSSDocuments(form);
+		List<Future<DSSDocument>> futures = new ArrayList<>(documents.size());
+		for (DSSDocument document : documents) {
+			futures.add(executor.submit(() -> {
+				SignatureDocumentForm signatureForm = copyOf(parameters);
+				ToBeSigned dataToSign = signingService.getDataToSign(signatureForm, document);
+				SignatureValue signatureValue = remoteToken.sign(dataToSign, parameters.getDigestAlgorithm(), key);
+				signatureForm.setBase64SignatureValue(Utils.toBase64(signatureValue.getValue()));
+				return signingService.signDocument(signatureForm, document);
+			}));
+		}
+		writeZip(documents, futures, new String[documents.size()], os);
+
+		LOG.info("End signDocument with the server token and a batch of {} documents", documents.size());
+	}
+
+	public long getPendingCount() {
+		return batches.size();
+	}
+
+	public int getActiveThreads() {
+		return executor.getActiveCount();
+	}
+
+	public int getQueuedTasks() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Evicts the expired batches with their spooled files
+	 */
+	public void cleanUp() {
+		batches.cleanUp();
+	}
+
+	private void writeZip(List<DSSDocument> documents, List<Future<DSSDocument>> futures, String[] errors, OutputStream os) {
+		try (ZipOutputStream zos = new ZipOutputStream(os)) {
+			Set<String> entryNames = new HashSet<>();
+			StringBuilder report = new StringBuilder();
+			for (int i = 0; i < futures.size(); i++) {
+				String error = errors[i];
+				Future<DSSDocument> future = futures.get(i);
+				if (future != null) {
+					try {
+						// written as soon as it is signed, in the order of the batch
+						DSSDocument signedDocument = future.get();
+						String entryName = signedDocument.getName();
+						if (!entryNames.add(entryName)) {
+							// documents signed with the same name must not overwrite each other
+							entryName = i + "-" + entryName;
+							entryNames.add(entryName);
+						}
+						zos.putNextEntry(new ZipEntry(entryName));
+						try (InputStream is = signedDocument.openStream()) {
+							Utils.copy(is, zos);
+						}
+						zos.closeEntry();
+					} catch (ExecutionException e) {
+						error = getMessage(e);
+					}
+				} else if (error == null) {
+					error = "No signature value";
+				}
+				if (error != null) {
+					LOG.warn("Unable to sign the document {} of the batch : {}", documents.get(i).getName(), error);
+					report.append(i).append(" ").append(documents.get(i).getName()).append(" : ").append(error).append("\n");
+				}
+			}
+			if (report.length() > 0) {
+				zos.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+				zos.write(report.toString().getBytes(StandardCharsets.UTF_8));
+				zos.closeEntry();
+			}
+			zos.finish();
+		} catch (IOException e) {
+			cancel(futures);
+			throw new DSSException("Unable to write the signed documents : " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel(futures);
+			throw new DSSException("Interrupted while signing the batch", e);
+		}
+	}
+
+	private List<DSSDocument> keepDocuments(BatchSignatureForm form) {
+		List<DSSDocument> documents = new ArrayList<>();
+		try {
+			for (MultipartFile documentToSign : form.getDocumentsToSign()) {
+				if (isDigestSufficient(form)) {
+					// digests computed while the document was uploaded
+					documents.add(WebAppUtils.toDigestDocument(documentToSign));
+				} else {
+					documents.add(spool(documentToSign));
+				}
+			}
+			return documents;
+		} catch (RuntimeException e) {
+			deleteFiles(documents);
+			throw e;
+		}
+	}
+
+	private List<DSSDocument> toDSSDocuments(BatchSignatureForm form) {
+		if (isDigestSufficient(form)) {
+			return WebAppUtils.toDigestDocuments(form.getDocumentsToSign());
+		}
+		return WebAppUtils.toDSSDocuments(form.getDocumentsToSign());
+	}
+
+	private boolean isDigestSufficient(BatchSignatureForm form) {
+		return SignaturePackaging.DETACHED == form.getSignaturePackaging() && WebAppUtils.isDigestSufficient(form.getContainerType(), form.getSignatureForm());
+	}
+
+	private FileDocument spool(MultipartFile documentToSign) {
+		String name = documentToSign.getOriginalFilename();
+		try (InputStream is = documentToSign.getInputStream()) {
+			Path path = Files.createTempFile(directory.toPath(), "batch-", ".bin");
+			Files.copy(is, path, StandardCopyOption.REPLACE_EXISTING);
+			FileDocument fileDocument = new FileDocument(path.toFile());
+			fileDocument.setName(name);
+			fileDocument.setMimeType(MimeType.fromFileName(name));
+			return fileDocument;
+		} catch (IOException e) {
+			throw new DSSException("Unable to keep the document " + name + " : " + e.getMessage(), e);
+		}
+	}
+
+	private SignatureDocumentForm toSignatureDocumentForm(BatchSignatureForm form) {
+		SignatureDocumentForm parameters = new SignatureDocumentForm();
+		parameters.setContainerType(form.getContainerType());
+		parameters.setSignatureForm(form.getSignatureForm());
+		parameters.setSignaturePackaging(form.getSignaturePackaging());
+		parameters.setSignatureLevel(form.getSignatureLevel());
+		parameters.setDigestAlgorithm(form.getDigestAlgorithm());
+		parameters.setEncryptionAlgorithm(form.getEncryptionAlgorithm());
+		parameters.setSignWithExpiredCertificate(form.isSignWithExpiredCertificate());
+		parameters.setSigningDate(form.getSigningDate());
+		parameters.setBase64Certificate(form.getBase64Certificate());
+		parameters.setBase64CertificateChain(form.getBase64CertificateChain());
+		return parameters;
+	}
+
+	private SignatureDocumentForm copyOf(SignatureDocumentForm parameters) {
+		SignatureDocumentForm form = new SignatureDocumentForm();
+		form.setContainerType(parameters.getContainerType());
+		form.setSignatureForm(parameters.getSignatureForm());
+		form.setSignaturePackaging(parameters.getSignaturePackaging());
+		form.setSignatureLevel(parameters.getSignatureLevel());
+		form.setDigestAlgorithm(parameters.getDigestAlgorithm());
+		form.setEncryptionAlgorithm(parameters.getEncryptionAlgorithm());
+		form.setSignWithExpiredCertificate(parameters.isSignWithExpiredCertificate());
+		form.setSigningDate(parameters.getSigningDate());
+		form.setBase64Certificate(parameters.getBase64Certificate());
+		form.setBase64CertificateChain(parameters.getBase64CertificateChain());
+		return form;
+	}
+
+	private String getMessage(ExecutionException e) {
+		Throwable cause = e.getCause() != null ? e.getCause() : e;
+		return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+	}
+
+	private void cancel(List<? extends Future<?>> futures) {
+		for (Future<?> future : futures) {
+			if (future != null) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private void deleteFiles(List<DSSDocument> documents) {
+		for (DSSDocument document : documents) {
+			if (document instanceof FileDocument) {
+				Path path = ((FileDocument) document).getFile().toPath();
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException e) {
+					LOG.warn("Unable to delete the batch file {} : {}", path, e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static class Batch {
+
+		private final SignatureDocumentForm parameters;
+
+		private final List<DSSDocument> documents;
+
+		/* The items whose data to sign failed */
+		private final String[] errors;
+
+		/* The keys of the prepared signatures */
+		private final String[] dataToSignDigests;
+
+		Batch(SignatureDocumentForm parameters, List<DSSDocument> documents) {
+			this.parameters = parameters;
+			this.documents = documents;
+			this.errors = new String[documents.size()];
+			this.dataToSignDigests = new String[documents.size()];
+		}
+
+	}
+
+}
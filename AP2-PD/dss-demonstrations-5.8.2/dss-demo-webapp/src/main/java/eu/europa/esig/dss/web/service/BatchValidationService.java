@@ -0,0 +1,253 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.simplereport.SimpleReport;
+import eu.europa.esig.dss.validation.CertificateVerifier;
+import eu.europa.esig.dss.validation.SignedDocumentValidator;
+import eu.europa.esig.dss.validation.reports.Reports;
+import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.exception.PayloadTooLargeException;
+import eu.europa.esig.dss.web.model.BatchValidationResult;
+
+/**
+ * Validates many signed files with the default policy. The files are validated in parallel on a bounded pool of
+ * {@code batch.validation.threads} threads shared by all the requests and by the same {@link CertificateVerifier}, the
+ * request thread validates the files itself when the queue is full. The result of every file is written as one JSON line
+ * as soon as its validation is over, so that the response ends with the slowest file.
+ * <p>
+ * The files are sent as a multipart list, or as a ZIP archive of at most {@code batch.validation.max.files} files. The
+ * uncompressed entries of the archive are limited to {@code batch.validation.max.entry.size} megabytes each and to
+ * {@code batch.validation.max.archive.size} megabytes in total, the archive is rejected as soon as a limit is exceeded.
+ * The entries outside of the archive ({@code ..} or absolute paths) are rejected.
+ */
+@Component
+public class BatchValidationService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BatchValidationService.class);
+
+	private static final byte[] NEW_LINE = new byte[] { '\n' };
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	@Value("${batch.validation.threads}")
+	private int threads;
+
+	@Value("${batch.validation.queue.size}")
+	private int queueSize;
+
+	@Value("${batch.validation.max.files}")
+	private int maxFiles;
+
+	@Value("${batch.validation.max.entry.size}")
+	private long maxEntrySize;
+
+	@Value("${batch.validation.max.archive.size}")
+	private long maxArchiveSize;
+
+	@Autowired
+	private CertificateVerifier certificateVerifier;
+
+	@Autowired
+	private ValidationPolicyCache validationPolicyCache;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ValidationReportsCache validationReportsCache;
+
+	private ObjectWriter writer;
+
+	private ThreadPoolExecutor executor;
+
+	private final AtomicLong validatedFiles = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		// one result by line
+		writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param files the uploaded signed files
+	 * @param archive a ZIP archive of signed files, can be null
+	 * @return the documents to validate
+	 */
+	public List<DSSDocument> toDocuments(List<MultipartFile> files, MultipartFile archive) {
+		List<DSSDocument> documents = new ArrayList<>();
+		if (files != null) {
+			for (MultipartFile file : files) {
+				DSSDocument document = WebAppUtils.toDSSDocument(file);
+				if (document != null) {
+					documents.add(document);
+				}
+			}
+		}
+		if (archive != null && !archive.isEmpty()) {
+			try (InputStream is = archive.getInputStream(); ZipInputStream zis = new ZipInputStream(is)) {
+				long remaining = maxArchiveSize * MEGABYTE;
+				ZipEntry entry;
+				while ((entry = zis.getNextEntry()) != null) {
+					String name = entry.getName();
+					if (name.startsWith("/") || name.startsWith("\\") || name.contains("..")) {
+						throw new DSSException("Invalid entry name in the archive : " + name);
+					}
+					if (!entry.isDirectory()) {
+						if (documents.size() >= maxFiles) {
+							throw new DSSException("Too many files in the archive, the maximum is " + maxFiles);
+						}
+						byte[] content = readEntry(zis, name, remaining);
+						remaining -= content.length;
+						documents.add(new InMemoryDocument(content, name));
+					}
+				}
+			} catch (IOException e) {
+				throw new DSSException("Unable to read the archive : " + e.getMessage(), e);
+			}
+		}
+		if (documents.size() > maxFiles) {
+			throw new DSSException("Too many files, the maximum is " + maxFiles);
+		}
+		return documents;
+	}
+
+	/**
+	 * Reads the current entry, the sizes declared in the archive are not trusted
+	 *
+	 * @param zis the archive positioned on the entry
+	 * @param name the name of the entry
+	 * @param remaining the uncompressed bytes left for the archive
+	 * @return the uncompressed content of the entry
+	 */
+	private byte[] readEntry(ZipInputStream zis, String name, long remaining) throws IOException {
+		long maxEntryBytes = maxEntrySize * MEGABYTE;
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = zis.read(buffer)) != -1) {
+			if (baos.size() + read > maxEntryBytes) {
+				throw new PayloadTooLargeException("The file " + name + " of the archive exceeds " + maxEntrySize + " MB");
+			}
+			if (baos.size() + read > remaining) {
+				throw new PayloadTooLargeException("The files of the archive exceed " + maxArchiveSize + " MB");
+			}
+			baos.write(buffer, 0, read);
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Validates the documents and writes the result of every document on its own line, in the order of completion
+	 *
+	 * @param documents the signed documents
+	 * @param bypassCache true to validate again the documents whose reports are cached
+	 * @param os the stream of the results, flushed after every result
+	 */
+	public void validate(List<DSSDocument> documents, boolean bypassCache, OutputStream os) throws IOException {
+		LOG.info("Start the batch validation of {} documents", documents.size());
+		CompletionService<BatchValidationResult> completionService = new ExecutorCompletionService<>(executor);
+		List<Future<BatchValidationResult>> futures = new ArrayList<>(documents.size());
+		try {
+			for (DSSDocument document : documents) {
+				futures.add(completionService.submit(() -> validate(document, bypassCache)));
+			}
+			for (int i = 0; i < documents.size(); i++) {
+				BatchValidationResult result = completionService.take().get();
+				os.write(writer.writeValueAsBytes(result));
+				os.write(NEW_LINE);
+				os.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DSSException("Interrupted during the batch validation", e);
+		} catch (ExecutionException e) {
+			// the errors are reported in the results
+			throw new DSSException("Unexpected error during the batch validation : " + e.getMessage(), e);
+		} finally {
+			// the client is gone or the request failed
+			for (Future<BatchValidationResult> future : futures) {
+				future.cancel(true);
+			}
+		}
+		LOG.info("End the batch validation of {} documents", documents.size());
+	}
+
+	private BatchValidationResult validate(DSSDocument document, boolean bypassCache) {
+		long start = System.currentTimeMillis();
+		BatchValidationResult result = new BatchValidationResult();
+		result.setName(document.getName());
+		try {
+			String key = validationReportsCache.getKey(document, null, validationPolicyCache.getDefaultPolicyDigest(), "batch");
+			Reports reports = validationReportsCache.get(key, bypassCache, () -> validateWithDefaultPolicy(document));
+			SimpleReport simpleReport = reports.getSimpleReport();
+			result.setSignaturesCount(simpleReport.getSignaturesCount());
+			result.setValidSignaturesCount(simpleReport.getValidSignaturesCount());
+			result.setSimpleReport(reports.getSimpleReportJaxb());
+		} catch (Exception e) {
+			LOG.warn("Unable to validate the document {} : {}", document.getName(), e.getMessage());
+			result.setError(e.getMessage());
+		}
+		result.setDurationMs(System.currentTimeMillis() - start);
+		validatedFiles.incrementAndGet();
+		return result;
+	}
+
+	private Reports validateWithDefaultPolicy(DSSDocument document) {
+		SignedDocumentValidator validator = SignedDocumentValidator.fromDocument(document);
+		validator.setCertificateVerifier(certificateVerifier);
+		return validator.validateDocument(validationPolicyCache.getDefaultPolicy());
+	}
+
+	public int getActiveThreads() {
+		return executor.getActiveCount();
+	}
+
+	public int getQueuedTasks() {
+		return executor.getQueue().size();
+	}
+
+	public long getValidatedFiles() {
+		return validatedFiles.get();
+	}
+
+}
@@ -0,0 +1,511 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.FileDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.validation.AdvancedSignature;
+import eu.europa.esig.dss.validation.CertificateVerifier;
+import eu.europa.esig.dss.validation.SignedDocumentValidator;
+import eu.europa.esig.dss.web.exception.ApplicationJsonRequestException;
+import eu.europa.esig.dss.web.model.BulkExtensionRequest;
+import eu.europa.esig.dss.web.model.BulkExtensionStatus;
+import eu.europa.esig.dss.web.model.BulkExtensionStatus.State;
+
+/**
+ * Extends all the signed files of a directory or of a ZIP archive, for instance to raise an archive to the LTA level.
+ * <p>
+ * The files are grouped by signing certificate : the first file of a group is extended alone, then the other files of
+ * the group are extended in parallel and find the CRLs of the chain in the JDBC cache. The OCSP responses are not
+ * cached, they are requested for every file. The files are extended on a pool of {@code bulk.extension.threads} threads
+ * and written with the same relative path in the target directory, which is left out of the source when inside it. The outcome of every file is appended to the {@code extension-report.csv} file of the target directory,
+ * which is also the checkpoint : a new extension to the same target skips the files already extended.
+ * <p>
+ * Only one extension runs at a time, on its own thread, the paths are relative to {@code bulk.extension.directory}. Detached signatures
+ * are not supported, their original documents are not known.
+ */
+@Component
+public class BulkExtensionService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BulkExtensionService.class);
+
+	private static final String REPORT_NAME = "extension-report.csv";
+
+	private static final String SEPARATOR = ";";
+
+	private static final String EXTENDED = "EXTENDED";
+
+	private static final String FAILED = "FAILED";
+
+	private static final long MINUTE = 60000;
+
+	@Value("${bulk.extension.directory}")
+	private String bulkDirectory;
+
+	@Value("${bulk.extension.threads}")
+	private int threads;
+
+	@Value("${bulk.extension.log.interval}")
+	private int logInterval;
+
+	@Autowired
+	private SigningService signingService;
+
+	@Autowired
+	private CertificateVerifier certificateVerifier;
+
+	private ExecutorService coordinator;
+
+	private Path root;
+
+	private volatile BulkExtension current;
+
+	@PostConstruct
+	public void init() {
+		if (threads <= 0) {
+			throw new DSSException("The number of bulk extension threads must be positive : " + threads);
+		}
+		if (logInterval <= 0) {
+			throw new DSSException("The bulk extension log interval must be positive : " + logInterval);
+		}
+		File directory = new File(bulkDirectory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new DSSException("Unable to create the bulk extension directory " + directory.getAbsolutePath());
+		}
+		root = directory.toPath().toAbsolutePath().normalize();
+		// runs for as long as the extension, not on the shared task executor
+		coordinator = Executors.newSingleThreadExecutor();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		BulkExtension extension = current;
+		if (extension != null) {
+			extension.cancelled = true;
+		}
+		coordinator.shutdown();
+	}
+
+	/**
+	 * Starts the extension of the files in the background
+	 *
+	 * @param request the source, the target and the signature level
+	 * @return the status of the extension
+	 */
+	public synchronized BulkExtensionStatus start(BulkExtensionRequest request) {
+		if (current != null && current.isRunning()) {
+			throw new ApplicationJsonRequestException("A bulk extension is already running");
+		}
+		Path source = resolve(root, request.getSource());
+		if (!Files.exists(source)) {
+			throw new ApplicationJsonRequestException("The source " + request.getSource() + " does not exist");
+		}
+		Path target = resolve(root, request.getTarget());
+		if (target.equals(source)) {
+			throw new ApplicationJsonRequestException("The target " + request.getTarget() + " is the source");
+		}
+		BulkExtension extension = new BulkExtension(request, source, target);
+		current = extension;
+		coordinator.submit(extension::run);
+		return extension.getStatus();
+	}
+
+	/**
+	 * @return the status of the running or of the last extension, null if none was started
+	 */
+	public BulkExtensionStatus getStatus() {
+		BulkExtension extension = current;
+		return extension != null ? extension.getStatus() : null;
+	}
+
+	/**
+	 * Stops the running extension, the files being extended are completed
+	 *
+	 * @return the status of the extension, null if none was started
+	 */
+	public BulkExtensionStatus cancel() {
+		BulkExtension extension = current;
+		if (extension == null) {
+			return null;
+		}
+		extension.cancelled = true;
+		return extension.getStatus();
+	}
+
+	private Path resolve(Path directory, String path) {
+		Path resolved = directory.resolve(path).normalize();
+		if (!resolved.startsWith(directory)) {
+			throw new ApplicationJsonRequestException("The path " + path + " is outside of " + directory);
+		}
+		return resolved;
+	}
+
+	private class BulkExtension {
+
+		private final BulkExtensionRequest request;
+
+		private final Path source;
+
+		private final Path target;
+
+		private final Date startTime = new Date();
+
+		private final AtomicInteger extended = new AtomicInteger();
+
+		private final AtomicInteger failed = new AtomicInteger();
+
+		/* The completion times of the files processed during the last minute */
+		private final ConcurrentLinkedDeque<Long> completions = new ConcurrentLinkedDeque<>();
+
+		private volatile State state = State.SCANNING;
+
+		private volatile boolean cancelled;
+
+		private volatile int total;
+
+		private volatile int skipped;
+
+		private volatile int groups;
+
+		private volatile Date endTime;
+
+		private volatile String message;
+
+		BulkExtension(BulkExtensionRequest request, Path source, Path target) {
+			this.request = request;
+			this.source = source;
+			this.target = target;
+		}
+
+		boolean isRunning() {
+			return state == State.SCANNING || state == State.RUNNING;
+		}
+
+		void run() {
+			LOG.info("Start bulk extension of {} to {} in {}", source, target, request.getSignatureLevel());
+			ExecutorService workers = Executors.newFixedThreadPool(threads);
+			try (Source files = openSource(source, target)) {
+				Files.createDirectories(target);
+				Path reportPath = target.resolve(REPORT_NAME);
+				Set<String> done = readReport(reportPath);
+
+				List<String> names = files.list();
+				total = names.size();
+				List<String> toExtend = new ArrayList<>(names.size());
+				for (String name : names) {
+					if (!done.contains(name)) {
+						toExtend.add(name);
+					}
+				}
+				skipped = total - toExtend.size();
+
+				Map<String, List<String>> filesByCertificate = groupBySigningCertificate(files, toExtend, workers);
+				groups = filesByCertificate.size();
+				state = State.RUNNING;
+				LOG.info("Bulk extension of {} files in {} groups, {} files already extended", toExtend.size(), groups, skipped);
+
+				try (Report report = new Report(reportPath)) {
+					List<CompletableFuture<Void>> futures = new ArrayList<>(toExtend.size());
+					for (List<String> group : filesByCertificate.values()) {
+						// the revocation data of the chain is fetched once by the first file
+						CompletableFuture<Void> first = CompletableFuture.runAsync(() -> extend(files, group.get(0), report), workers);
+						futures.add(first);
+						for (String name : group.subList(1, group.size())) {
+							futures.add(first.thenRunAsync(() -> extend(files, name, report), workers));
+						}
+					}
+					CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+				}
+				state = cancelled ? State.CANCELLED : State.COMPLETED;
+			} catch (Exception e) {
+				LOG.error("The bulk extension of {} failed : {}", source, e.getMessage(), e);
+				message = e.getMessage();
+				state = State.FAILED;
+			} finally {
+				workers.shutdownNow();
+				endTime = new Date();
+			}
+			LOG.info("End bulk extension of {} : {} extended, {} failed, {} skipped", source, extended.get(), failed.get(), skipped);
+		}
+
+		private Map<String, List<String>> groupBySigningCertificate(Source files, List<String> names, ExecutorService workers)
+				throws InterruptedException, ExecutionException {
+			List<Future<String>> keys = new ArrayList<>(names.size());
+			for (String name : names) {
+				keys.add(workers.submit(() -> getSigningCertificateKey(files, name)));
+			}
+			Map<String, List<String>> filesByCertificate = new LinkedHashMap<>();
+			for (int i = 0; i < names.size(); i++) {
+				filesByCertificate.computeIfAbsent(keys.get(i).get(), k -> new ArrayList<>()).add(names.get(i));
+			}
+			return filesByCertificate;
+		}
+
+		private String getSigningCertificateKey(Source files, String name) {
+			if (cancelled) {
+				return "";
+			}
+			try {
+				SignedDocumentValidator validator = SignedDocumentValidator.fromDocument(files.open(name));
+				validator.setCertificateVerifier(certificateVerifier);
+				List<AdvancedSignature> signatures = validator.getSignatures();
+				if (Utils.isCollectionNotEmpty(signatures)) {
+					CertificateToken signingCertificate = signatures.get(0).getSigningCertificateToken();
+					if (signingCertificate != null) {
+						return signingCertificate.getDSSIdAsString();
+					}
+				}
+			} catch (Exception e) {
+				LOG.debug("Unable to find the signing certificate of {} : {}", name, e.getMessage());
+			}
+			// extended with the other files without signing certificate
+			return "";
+		}
+
+		private void extend(Source files, String name, Report report) {
+			if (cancelled) {
+				return;
+			}
+			long start = System.currentTimeMillis();
+			try {
+				DSSDocument extendedDocument = signingService.extend(files.open(name), null, request.getContainerType(),
+						request.getSignatureForm(), request.getSignatureLevel());
+				Path output = resolve(target, name);
+				Files.createDirectories(output.getParent());
+				try (InputStream is = extendedDocument.openStream()) {
+					Files.copy(is, output, StandardCopyOption.REPLACE_EXISTING);
+				}
+				extended.incrementAndGet();
+				report.write(name, EXTENDED, System.currentTimeMillis() - start, null);
+			} catch (Exception e) {
+				LOG.debug("Unable to extend {} : {}", name, e.getMessage());
+				failed.incrementAndGet();
+				report.write(name, FAILED, System.currentTimeMillis() - start, e.getMessage());
+			}
+
+			long now = System.currentTimeMillis();
+			completions.add(now);
+			pruneCompletions(now);
+			int processed = extended.get() + failed.get();
+			if (processed % logInterval == 0) {
+				LOG.info("Bulk extension of {} : {}/{} files, {} failed, {} files/min", source, processed + skipped, total, failed.get(),
+						completions.size());
+			}
+		}
+
+		private void pruneCompletions(long now) {
+			Long oldest;
+			while ((oldest = completions.peekFirst()) != null && oldest < now - MINUTE) {
+				completions.pollFirst();
+			}
+		}
+
+		BulkExtensionStatus getStatus() {
+			long now = System.currentTimeMillis();
+			pruneCompletions(now);
+
+			BulkExtensionStatus status = new BulkExtensionStatus();
+			status.setState(state);
+			status.setSource(request.getSource());
+			status.setTarget(request.getTarget());
+			status.setStartTime(startTime);
+			status.setEndTime(endTime);
+			status.setTotal(total);
+			status.setSkipped(skipped);
+			status.setExtended(extended.get());
+			status.setFailed(failed.get());
+			status.setGroups(groups);
+			status.setFilesPerMinute(isRunning() ? completions.size() : 0);
+			long elapsed = (endTime != null ? endTime.getTime() : now) - startTime.getTime();
+			if (elapsed > 0) {
+				status.setAverageFilesPerMinute((extended.get() + failed.get()) * (double) MINUTE / elapsed);
+			}
+			status.setMessage(message);
+			return status;
+		}
+
+	}
+
+	private Set<String> readReport(Path reportPath) throws IOException {
+		Set<String> extendedFiles = new HashSet<>();
+		if (Files.isRegularFile(reportPath)) {
+			try (Stream<String> lines = Files.lines(reportPath, StandardCharsets.UTF_8)) {
+				lines.map(line -> line.split(SEPARATOR, 4))
+						.filter(columns -> columns.length > 1 && EXTENDED.equals(columns[1]))
+						.forEach(columns -> extendedFiles.add(unescape(columns[0])));
+			}
+		}
+		return extendedFiles;
+	}
+
+	/**
+	 * Percent-encodes the separator and the line breaks of the file names, so that any name fits in its column
+	 */
+	private static String escape(String name) {
+		return name.replace("%", "%25").replace(SEPARATOR, "%3B").replace("\r", "%0D").replace("\n", "%0A");
+	}
+
+	private static String unescape(String name) {
+		return name.replace("%0A", "\n").replace("%0D", "\r").replace("%3B", SEPARATOR).replace("%25", "%");
+	}
+
+	private Source openSource(Path source, Path target) throws IOException {
+		if (Files.isDirectory(source)) {
+			return new DirectorySource(source, target);
+		}
+		return new ZipSource(new ZipFile(source.toFile()));
+	}
+
+	/**
+	 * The outcome of every file, one line per file : name;status;duration in ms;message (the name is percent-encoded, see
+	 * {@link BulkExtensionService#escape(String)})
+	 */
+	private static class Report implements Closeable {
+
+		private final BufferedWriter writer;
+
+		Report(Path path) throws IOException {
+			writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+
+		synchronized void write(String name, String status, long duration, String message) {
+			try {
+				writer.write(escape(name) + SEPARATOR + status + SEPARATOR + duration + SEPARATOR + (message != null ? message.replaceAll("[\r\n;]", " ") : ""));
+				writer.newLine();
+				// the report is the checkpoint of the extension
+				writer.flush();
+			} catch (IOException e) {
+				LOG.warn("Unable to write the outcome of {} in the report : {}", name, e.getMessage());
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+
+	}
+
+	private abstract static class Source implements Closeable {
+
+		abstract List<String> list() throws IOException;
+
+		abstract DSSDocument open(String name) throws IOException;
+
+	}
+
+	private static class DirectorySource extends Source {
+
+		private final Path directory;
+
+		/* The target directory, its files are the output of the extension */
+		private final Path excluded;
+
+		DirectorySource(Path directory, Path excluded) {
+			this.directory = directory;
+			this.excluded = excluded;
+		}
+
+		@Override
+		List<String> list() throws IOException {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				return paths.filter(path -> !path.startsWith(excluded))
+						.filter(Files::isRegularFile)
+						.map(path -> directory.relativize(path).toString().replace(File.separatorChar, '/'))
+						.sorted()
+						.collect(Collectors.toList());
+			}
+		}
+
+		@Override
+		DSSDocument open(String name) {
+			return new FileDocument(directory.resolve(name).toFile());
+		}
+
+		@Override
+		public void close() {
+			// nothing to close
+		}
+
+	}
+
+	private static class ZipSource extends Source {
+
+		private final ZipFile zipFile;
+
+		ZipSource(ZipFile zipFile) {
+			this.zipFile = zipFile;
+		}
+
+		@Override
+		List<String> list() {
+			List<String> names = new ArrayList<>();
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory()) {
+					names.add(entry.getName());
+				}
+			}
+			Collections.sort(names);
+			return names;
+		}
+
+		@Override
+		DSSDocument open(String name) throws IOException {
+			ZipEntry entry = zipFile.getEntry(name);
+			try (InputStream is = zipFile.getInputStream(entry)) {
+				return new InMemoryDocument(Utils.toByteArray(is), name.substring(name.lastIndexOf('/') + 1));
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			zipFile.close();
+		}
+
+	}
+
+}
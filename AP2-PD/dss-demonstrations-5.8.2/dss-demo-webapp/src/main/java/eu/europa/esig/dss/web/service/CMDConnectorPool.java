@@ -0,0 +1,249 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.xml.ws.BindingProvider;
+
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.esig.dss.model.DSSException;
+import wsdlservice.CCMovelSignature;
+
+/**
+ * Bounded pool of CMD SOAP ports.
+ *
+ * JAX-WS proxies are not guaranteed to be thread-safe, so every call borrows a port for its own exclusive use. The
+ * ports are created lazily (up to {@code maxSize}) by the given factory and, when they are SOAP proxies, keep their
+ * HTTP connection alive between calls.
+ */
+public class CMDConnectorPool {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CMDConnectorPool.class);
+
+	public enum Operation {
+		GET_CERTIFICATE, SIGN, VALIDATE_OTP
+	}
+
+	private final Supplier<CCMovelSignature> portFactory;
+
+	private final Queue<PooledConnector> idleConnectors = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger createdConnectors = new AtomicInteger();
+
+	private final AtomicLong borrowCount = new AtomicLong();
+
+	private final AtomicLong borrowTimeoutCount = new AtomicLong();
+
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+	private final Map<Operation, Long> receiveTimeouts = new EnumMap<>(Operation.class);
+
+	private Semaphore permits;
+
+	private int maxSize = 10;
+
+	/* Time to wait for a free port, in milliseconds */
+	private long borrowTimeout = 30000;
+
+	/* Connection timeout, in milliseconds */
+	private long connectionTimeout = 10000;
+
+	/* Default receive timeout, in milliseconds */
+	private long receiveTimeout = 30000;
+
+	public CMDConnectorPool(Supplier<CCMovelSignature> portFactory) {
+		this.portFactory = portFactory;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setBorrowTimeout(long borrowTimeout) {
+		this.borrowTimeout = borrowTimeout;
+	}
+
+	public void setConnectionTimeout(long connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	public void setReceiveTimeout(long receiveTimeout) {
+		this.receiveTimeout = receiveTimeout;
+	}
+
+	public void setReceiveTimeout(Operation operation, long receiveTimeout) {
+		receiveTimeouts.put(operation, receiveTimeout);
+	}
+
+	/**
+	 * Executes the given call with a port borrowed for the duration of the call
+	 *
+	 * @param operation the CMD operation, used to select the receive timeout
+	 * @param call      the call to execute
+	 * @return the result of the call
+	 */
+	public <T> T execute(Operation operation, Function<CCMovelSignature, T> call) {
+		PooledConnector connector = borrow();
+		try {
+			if (connector.conduit != null) {
+				connector.conduit.getClient().setReceiveTimeout(getReceiveTimeout(operation));
+			}
+			return call.apply(connector.port);
+		} finally {
+			release(connector);
+		}
+	}
+
+	private long getReceiveTimeout(Operation operation) {
+		Long timeout = receiveTimeouts.get(operation);
+		return timeout != null ? timeout : receiveTimeout;
+	}
+
+	private PooledConnector borrow() {
+		long start = System.nanoTime();
+		try {
+			if (!getPermits().tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+				borrowTimeoutCount.incrementAndGet();
+				throw new DSSException("No CMD connector available after " + borrowTimeout + " ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DSSException("Interrupted while waiting for a CMD connector", e);
+		}
+
+		long waitNanos = System.nanoTime() - start;
+		borrowCount.incrementAndGet();
+		totalWaitNanos.addAndGet(waitNanos);
+		maxWaitNanos.accumulate(waitNanos);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("CMD connector obtained after {} ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+		}
+
+		PooledConnector connector = idleConnectors.poll();
+		if (connector == null) {
+			try {
+				connector = createConnector();
+			} catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+		}
+		return connector;
+	}
+
+	private void release(PooledConnector connector) {
+		idleConnectors.offer(connector);
+		permits.release();
+	}
+
+	private synchronized Semaphore getPermits() {
+		if (permits == null) {
+			permits = new Semaphore(maxSize, true);
+		}
+		return permits;
+	}
+
+	private PooledConnector createConnector() {
+		CCMovelSignature port = portFactory.get();
+
+		HTTPConduit conduit = null;
+		if (port instanceof BindingProvider) {
+			HTTPClientPolicy policy = new HTTPClientPolicy();
+			policy.setConnectionTimeout(connectionTimeout);
+			policy.setReceiveTimeout(receiveTimeout);
+			policy.setConnection(ConnectionType.KEEP_ALIVE);
+
+			conduit = (HTTPConduit) ClientProxy.getClient(port).getConduit();
+			conduit.setClient(policy);
+		}
+
+		LOG.info("New CMD connector created ({} / {})", createdConnectors.incrementAndGet(), maxSize);
+		return new PooledConnector(port, conduit);
+	}
+
+	public void close() {
+		PooledConnector connector;
+		while ((connector = idleConnectors.poll()) != null) {
+			if (connector.conduit != null) {
+				ClientProxy.getClient(connector.port).destroy();
+			}
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getCreatedConnectors() {
+		return createdConnectors.get();
+	}
+
+	public int getIdleConnectors() {
+		return idleConnectors.size();
+	}
+
+	public int getActiveConnectors() {
+		return maxSize - getPermits().availablePermits();
+	}
+
+	public int getWaitingThreads() {
+		return getPermits().getQueueLength();
+	}
+
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	public long getBorrowTimeoutCount() {
+		return borrowTimeoutCount.get();
+	}
+
+	/**
+	 * @return the average time spent waiting for a port, in milliseconds
+	 */
+	public double getAverageWaitTime() {
+		long count = borrowCount.get();
+		if (count == 0) {
+			return 0;
+		}
+		return (double) TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get()) / count / 1000;
+	}
+
+	/**
+	 * @return the longest time spent waiting for a port, in milliseconds
+	 */
+	public long getMaxWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+	}
+
+	private static class PooledConnector {
+
+		private final CCMovelSignature port;
+
+		private final HTTPConduit conduit;
+
+		private PooledConnector(CCMovelSignature port, HTTPConduit conduit) {
+			this.port = port;
+			this.conduit = conduit;
+		}
+
+	}
+
+}
@@ -1,22 +1,34 @@
 package eu.europa.esig.dss.web.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.primitives.Bytes;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import eu.europa.esig.dss.enumerations.DigestAlgorithm;
 import eu.europa.esig.dss.enumerations.EncryptionAlgorithm;
 import eu.europa.esig.dss.enumerations.SignatureAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.web.service.CMDConnectorPool.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import wsdlservice.*;
 
+import javax.annotation.PostConstruct;
+import javax.xml.ws.soap.SOAPFaultException;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
-import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class CMDService {
@@ -24,8 +36,19 @@ public class CMDService {
 
     private static final Map<String, byte[]> RSA_PREFIXES = new HashMap<>();
 
-    private final CCMovelDigitalSignature service;
-    private final CCMovelSignature connector;
+    @Autowired
+    private CMDConnectorPool connectorPool;
+
+    @Autowired
+    private CertificateTokenCache certificateTokenCache;
+
+    @Value("${cmd.certificate.cache.size}")
+    private long certificateCacheSize;
+
+    @Value("${cmd.certificate.cache.ttl}")
+    private long certificateCacheTtl;
+
+    private Cache<String, List<CertificateToken>> certificateCache;
 
     static {
         RSA_PREFIXES.put("MD2", Base64.getDecoder().decode("MCAwDAYIKoZIhvcNAgIFAAQQ"));
@@ -39,26 +62,82 @@ public class CMDService {
         RSA_PREFIXES.put("SHA512_256", Base64.getDecoder().decode("MDEwDQYJYIZIAWUDBAIGBQAEIA=="));
     }
 
-    public CMDService() throws MalformedURLException {
-        this.service = new CCMovelDigitalSignature(/*new URL("https://preprod.cmd.autenticacao.gov.pt/Ama.Authentication.Frontend/CCMovelDigitalSignature.svc?wsdl")*/);
+    @PostConstruct
+    public void initCertificateCache() {
+        certificateCache = CacheBuilder.newBuilder()
+                .maximumSize(certificateCacheSize)
+                .expireAfterWrite(certificateCacheTtl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
 
-        this.connector = service.getBasicHttpBindingCCMovelSignature();
+    /**
+     * Returns the certificate chain of the user, the signing certificate first. The chains are cached per user
+     * for {@code cmd.certificate.cache.ttl} seconds.
+     *
+     * @param userId the user's phone number
+     * @return the certificate chain of the user
+     * @throws CertificateException
+     * @throws IOException
+     */
+    public List<CertificateToken> getCertificatesOf(String userId) throws CertificateException, IOException {
+        String cacheKey = toCacheKey(userId);
+
+        try {
+            // the concurrent first requests of a user wait for a single GetCertificate call
+            return certificateCache.get(cacheKey, () -> loadCertificatesOf(userId));
+        } catch(ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof CertificateException) {
+                throw (CertificateException) cause;
+            }
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DSSException("Unable to get the certificates of the user : " + e.getMessage(), e);
+        }
     }
 
-    public List<String> getCertificatesOf(String userId) throws CertificateException, IOException {
-        final String certificates = connector.getCertificate(APPLICATION_ID, userId);
+    private List<CertificateToken> loadCertificatesOf(String userId) throws CertificateException, IOException {
+        final String certificates = connectorPool.execute(Operation.GET_CERTIFICATE, port -> port.getCertificate(APPLICATION_ID, userId));
 
         BufferedInputStream contentPemFile = new BufferedInputStream(new ByteArrayInputStream(certificates.getBytes(StandardCharsets.UTF_8)));
         CertificateFactory cf = CertificateFactory.getInstance("X.509");
 
-        List<String> certChain = new ArrayList<>();
+        List<CertificateToken> certChain = new ArrayList<>();
         while(contentPemFile.available() > 0) {
-            Certificate certificate = cf.generateCertificate(contentPemFile);
+            X509Certificate certificate = (X509Certificate) cf.generateCertificate(contentPemFile);
 
-            certChain.add(Base64.getEncoder().encodeToString(certificate.getEncoded()));
+            // shared with the signature parameters, which are then filled without parsing the chain again
+            certChain.add(certificateTokenCache.put(new CertificateToken(certificate)));
         }
 
-        return certChain;
+        return Collections.unmodifiableList(certChain);
+    }
+
+    /**
+     * Removes the cached certificate chain of the user, so that the next signature fetches it again
+     *
+     * @param userId the user's phone number
+     */
+    public void invalidateCertificatesOf(String userId) {
+        certificateCache.invalidate(toCacheKey(userId));
+    }
+
+    public CacheStats getCertificateCacheStats() {
+        return certificateCache.stats();
+    }
+
+    public long getCertificateCacheSize() {
+        return certificateCache.size();
+    }
+
+    private String toCacheKey(String userId) {
+        // "+351 912345678" and "+351912345678" are the same user
+        return userId.replaceAll("\\s", "");
     }
 
     /**
@@ -112,13 +191,97 @@ public class CMDService {
         request.setUserId(userId);
         request.setPin(userPin);
 
-        SignStatus status = connector.ccMovelSign(request);
+        SignStatus status;
+        try {
+            status = connectorPool.execute(Operation.SIGN, port -> port.ccMovelSign(request));
+        } catch(SOAPFaultException e) {
+            // the cached certificate may no longer be the one of the user
+            invalidateCertificatesOf(userId);
+            throw e;
+        }
 
         return status.getProcessId();
     }
 
+    /**
+     * Requests the signature of several hashes in a single CMD process, so that the user only has to
+     * confirm one OTP for the whole batch.
+     *
+     * @param docNames the names of the documents, in the same order as the data to sign
+     * @param docs the data to sign of each document
+     * @param encryptionAlgorithm the encryption algorithm of the user's certificate
+     * @param digestAlgorithm the digest algorithm to use
+     * @param userId the user's phone number
+     * @param userPin the user's signature PIN
+     * @return the processId to use when validating the OTP
+     * @throws DSSException if the hashes could not be computed
+     */
+    public String signMultiple(List<String> docNames, List<byte[]> docs, EncryptionAlgorithm encryptionAlgorithm, DigestAlgorithm digestAlgorithm, String userId, String userPin) {
+        MultipleSignRequest request = new MultipleSignRequest();
+
+        request.setApplicationId(APPLICATION_ID);
+        request.setUserId(userId);
+        request.setPin(userPin);
+
+        ArrayOfHashStructure documents = new ArrayOfHashStructure();
+
+        try {
+            for(int i = 0; i < docs.size(); i++) {
+                HashStructure hashStructure = new HashStructure();
+                hashStructure.setId(String.valueOf(i));
+                hashStructure.setName(docNames.get(i));
+                hashStructure.setHash(this.hash(docs.get(i), encryptionAlgorithm, digestAlgorithm));
+
+                documents.getHashStructure().add(hashStructure);
+            }
+        } catch(NoSuchAlgorithmException | IOException e) {
+            throw new DSSException("Unable to compute the hashes to sign : " + e.getMessage(), e);
+        }
+
+        SignStatus status;
+        try {
+            status = connectorPool.execute(Operation.SIGN, port -> port.ccMovelMultipleSign(request, documents));
+        } catch(SOAPFaultException e) {
+            invalidateCertificatesOf(userId);
+            throw e;
+        }
+
+        return status.getProcessId();
+    }
+
+    /**
+     * Validates the OTP of a process created with {@link #signMultiple}.
+     *
+     * @param processId the process id
+     * @param userOtp the OTP received by the user
+     * @param count the number of documents of the process
+     * @return the base64 signature values, in the same order as the documents, or null if the OTP is not valid
+     */
+    public List<String> validateMultipleOtp(String processId, String userOtp, int count) {
+        SignResponse response = connectorPool.execute(Operation.VALIDATE_OTP, port -> port.validateOtp(userOtp, processId, APPLICATION_ID));
+
+        if(response.getArrayOfHashStructure() == null) {
+            return null;
+        }
+
+        String[] signatures = new String[count];
+        for(HashStructure hashStructure : response.getArrayOfHashStructure().getHashStructure()) {
+            int index = Integer.parseInt(hashStructure.getId());
+            if(index >= 0 && index < count && hashStructure.getHash() != null) {
+                signatures[index] = Base64.getEncoder().encodeToString(hashStructure.getHash());
+            }
+        }
+
+        List<String> signatureList = Arrays.asList(signatures);
+        if(signatureList.contains(null)) {
+            return null;
+        }
+
+        return signatureList;
+    }
+
     public String validateOtp(String processId, String userOtp) {
-        SignResponse response = connector.validateOtp(userOtp, processId, APPLICATION_ID);
+        SignResponse response = connectorPool.execute(Operation.VALIDATE_OTP, port -> port.validateOtp(userOtp, processId, APPLICATION_ID));
 
         byte[] signatureBytes = response.getSignature();
 
@@ -0,0 +1,78 @@
+package eu.europa.esig.dss.web.service;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.utils.Utils;
+
+/**
+ * Interns the certificates sent with the signature requests. The same signing certificates and CA certificates are
+ * received again and again, they are parsed once and the same {@link CertificateToken} is shared by all the requests.
+ * The certificates are keyed by the SHA-256 digest of their DER encoding, at most
+ * {@code certificate.token.cache.max.size} certificates are kept.
+ */
+@Component
+public class CertificateTokenCache {
+
+	@Value("${certificate.token.cache.max.size}")
+	private long maxSize;
+
+	private Cache<String, CertificateToken> cache;
+
+	@PostConstruct
+	public void init() {
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * @param base64Certificate the base64 encoded DER certificate
+	 * @return the shared certificate token
+	 */
+	public CertificateToken get(String base64Certificate) {
+		byte[] der = Utils.fromBase64(base64Certificate);
+		String key = Utils.toBase64(DSSUtils.digest(DigestAlgorithm.SHA256, der));
+		CertificateToken certificate = cache.getIfPresent(key);
+		if (certificate == null) {
+			certificate = DSSUtils.loadCertificate(der);
+			// the token parsed by a concurrent request wins
+			CertificateToken interned = cache.asMap().putIfAbsent(key, certificate);
+			if (interned != null) {
+				certificate = interned;
+			}
+		}
+		return certificate;
+	}
+
+	/**
+	 * Interns a certificate already parsed, {@link #get(String)} returns it for its encoding without parsing it again
+	 *
+	 * @param certificate the parsed certificate
+	 * @return the shared certificate token
+	 */
+	public CertificateToken put(CertificateToken certificate) {
+		String key = Utils.toBase64(certificate.getDigest(DigestAlgorithm.SHA256));
+		CertificateToken interned = cache.asMap().putIfAbsent(key, certificate);
+		return interned != null ? interned : certificate;
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+}
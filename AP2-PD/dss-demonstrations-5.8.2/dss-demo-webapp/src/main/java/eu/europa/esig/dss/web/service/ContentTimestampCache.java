@@ -0,0 +1,108 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.utils.Utils;
+
+/**
+ * Keeps the content timestamps, the same document signed again (retry, several signers) gets the timestamp of the
+ * previous signature instead of a new TSA request. The timestamps are keyed by the digest algorithm and the digest sent
+ * to the TSA, at most {@code content.timestamp.cache.max.size} timestamps are kept during
+ * {@code content.timestamp.cache.freshness} seconds. The identical requests received while the TSA is called wait for
+ * its response.
+ * <p>
+ * Only the timestamps requested within {@link #withCache(Supplier)} are cached, the signature and archive timestamps
+ * always go to the TSA.
+ */
+@Component
+public class ContentTimestampCache {
+
+	@Value("${content.timestamp.cache.max.size}")
+	private long maxSize;
+
+	@Value("${content.timestamp.cache.freshness}")
+	private long freshness;
+
+	private Cache<String, TimestampBinary> cache;
+
+	private final ThreadLocal<Boolean> enabled = new ThreadLocal<>();
+
+	@PostConstruct
+	public void init() {
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(freshness, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Runs the call with the cache enabled for the timestamps requested by the current thread
+	 *
+	 * @param call
+	 *            the request of a content timestamp
+	 * @return the result of the call
+	 */
+	public <T> T withCache(Supplier<T> call) {
+		Boolean previous = enabled.get();
+		enabled.set(Boolean.TRUE);
+		try {
+			return call.get();
+		} finally {
+			if (previous == null) {
+				enabled.remove();
+			} else {
+				enabled.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * @param tspSource
+	 *            the TSPSource called when the timestamp is not cached
+	 * @param digestAlgorithm
+	 *            the digest algorithm
+	 * @param digest
+	 *            the digest to timestamp
+	 * @return the cached timestamp within {@link #withCache(Supplier)}, a new timestamp otherwise
+	 */
+	public TimestampBinary getTimeStampResponse(TSPSource tspSource, DigestAlgorithm digestAlgorithm, byte[] digest) {
+		if (enabled.get() == null) {
+			return tspSource.getTimeStampResponse(digestAlgorithm, digest);
+		}
+		String key = digestAlgorithm.name() + ":" + Utils.toBase64(digest);
+		try {
+			return cache.get(key, () -> tspSource.getTimeStampResponse(digestAlgorithm, digest));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new DSSException("Unable to get the content timestamp : " + e.getMessage(), e);
+		}
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+}
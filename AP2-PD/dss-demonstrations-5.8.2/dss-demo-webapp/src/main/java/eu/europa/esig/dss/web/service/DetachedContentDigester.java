@@ -0,0 +1,116 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.DigestDocument;
+import eu.europa.esig.dss.web.DigestedDocument;
+import eu.europa.esig.dss.web.WebAppUtils;
+
+/**
+ * Digests the detached contents of a signature before they are given to DSS. Every document is read once for all the
+ * {@link eu.europa.esig.dss.web.config.DigestingFileItem#DIGEST_ALGORITHMS}, the documents are digested in parallel on
+ * a fork-join pool of {@code detached.contents.digest.parallelism} threads. DSS then gets the memoized digests instead of
+ * hashing the documents one after the other, for each algorithm.
+ * <p>
+ * Only the CAdES signatures get the digests of their detached contents from {@link DSSDocument#getDigest}, the XAdES
+ * references are resolved by reading the documents again. The other formats get the documents as they are (see
+ * {@link #isDigestUsed(SignatureForm)}).
+ */
+@Component
+public class DetachedContentDigester {
+
+	@Value("${detached.contents.digest.parallelism}")
+	private int parallelism;
+
+	private ForkJoinPool pool;
+
+	@PostConstruct
+	public void init() {
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * @param signatureForm the signature form, null if unknown
+	 * @return true if the digests of the detached contents of such signatures are taken from the documents
+	 */
+	public boolean isDigestUsed(SignatureForm signatureForm) {
+		return SignatureForm.CAdES == signatureForm;
+	}
+
+	/**
+	 * @param multipartFiles the uploaded detached contents
+	 * @return the documents with their digests, the digests computed while the files were received are reused
+	 */
+	public List<DSSDocument> digestUploads(List<MultipartFile> multipartFiles) {
+		List<DSSDocument> documents = new ArrayList<>();
+		if (multipartFiles == null) {
+			return documents;
+		}
+		List<ForkJoinTask<DSSDocument>> tasks = new ArrayList<>(multipartFiles.size());
+		for (MultipartFile multipartFile : multipartFiles) {
+			tasks.add(pool.submit(() -> WebAppUtils.toDigestedDocument(multipartFile)));
+		}
+		for (ForkJoinTask<DSSDocument> task : tasks) {
+			DSSDocument document = join(task);
+			if (document != null) {
+				documents.add(document);
+			}
+		}
+		return documents;
+	}
+
+	/**
+	 * @param documents the detached contents
+	 * @return the documents with their digests, the digest documents are returned as is
+	 */
+	public List<DSSDocument> digest(List<DSSDocument> documents) {
+		List<ForkJoinTask<DSSDocument>> tasks = new ArrayList<>(documents.size());
+		for (DSSDocument document : documents) {
+			if (document instanceof DigestDocument || document instanceof DigestedDocument) {
+				tasks.add(null);
+			} else {
+				tasks.add(pool.submit(() -> new DigestedDocument(document, WebAppUtils.getBase64Digests(document))));
+			}
+		}
+		List<DSSDocument> digestedDocuments = new ArrayList<>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			ForkJoinTask<DSSDocument> task = tasks.get(i);
+			digestedDocuments.add(task != null ? join(task) : documents.get(i));
+		}
+		return digestedDocuments;
+	}
+
+	private DSSDocument join(ForkJoinTask<DSSDocument> task) {
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new DSSException("Unable to digest the detached contents : " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DSSException("Interrupted while digesting the detached contents", e);
+		}
+	}
+
+}
@@ -0,0 +1,271 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.MimeType;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.web.model.StoredDocument;
+
+/**
+ * Writes the signed documents once to the download directory and streams them back to the browser with
+ * {@link FileChannel#transferTo}, so that the signed results never sit in the heap. Single byte ranges and ETags are
+ * supported, which allows to resume the download of large ASiC containers and PDFs.
+ */
+@Component
+public class DownloadService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DownloadService.class);
+
+	private static final String RANGE_PREFIX = "bytes=";
+
+	@Value("${download.directory}")
+	private String downloadDirectory;
+
+	private File directory;
+
+	@PostConstruct
+	public void init() {
+		directory = new File(downloadDirectory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new DSSException("Unable to create the download directory " + directory.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Writes the document to the download directory
+	 *
+	 * @param document the signed document
+	 * @return the handle to keep until the download
+	 */
+	public StoredDocument store(DSSDocument document) {
+		String mimeType = document.getMimeType() != null ? document.getMimeType().getMimeTypeString() : null;
+		Path path = createFile();
+		try (InputStream is = document.openStream(); DigestOutputStream os = newOutputStream(path)) {
+			Utils.copy(is, os);
+			os.flush();
+			return toStoredDocument(document.getName(), mimeType, path, os.getMessageDigest());
+		} catch (IOException | RuntimeException e) {
+			deleteQuietly(path);
+			throw new DSSException("Unable to store the signed document " + document.getName() + " : " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes the documents in a single ZIP archive in the download directory, the stored documents are deleted
+	 *
+	 * @param documents the signed documents
+	 * @param zipName   the name of the archive
+	 * @return the handle of the archive
+	 */
+	public StoredDocument zip(List<StoredDocument> documents, String zipName) {
+		Path path = createFile();
+		try (DigestOutputStream os = newOutputStream(path); ZipOutputStream zos = new ZipOutputStream(os)) {
+			Set<String> entryNames = new HashSet<>();
+			int i = 0;
+			for (StoredDocument document : documents) {
+				String entryName = document.getName();
+				if (!entryNames.add(entryName)) {
+					// documents signed with the same name must not overwrite each other
+					entryName = i + "-" + entryName;
+					entryNames.add(entryName);
+				}
+				zos.putNextEntry(new ZipEntry(entryName));
+				Files.copy(new File(document.getFilePath()).toPath(), zos);
+				zos.closeEntry();
+				i++;
+			}
+			zos.finish();
+			zos.flush();
+			return toStoredDocument(zipName, MimeType.ZIP.getMimeTypeString(), path, os.getMessageDigest());
+		} catch (IOException | RuntimeException e) {
+			deleteQuietly(path);
+			throw new DSSException("Unable to zip the signed documents : " + e.getMessage(), e);
+		} finally {
+			for (StoredDocument document : documents) {
+				document.delete();
+			}
+		}
+	}
+
+	/**
+	 * Streams the stored document, or the requested byte range, to the response
+	 *
+	 * @param document the stored document
+	 * @param request  the download request (Range, If-Range and If-None-Match headers)
+	 * @param response the response
+	 */
+	public void write(StoredDocument document, HttpServletRequest request, HttpServletResponse response) {
+		try {
+			// an eviction during the download must not truncate it
+			if (document == null || !document.acquire()) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			try {
+				writeRange(document, request, response);
+			} finally {
+				document.release();
+			}
+		} catch (Exception e) {
+			LOG.error("An error occurred while pushing file in response : " + e.getMessage(), e);
+		}
+	}
+
+	private void writeRange(StoredDocument document, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		String eTag = document.getETag();
+		long length = document.getLength();
+
+		response.setHeader("ETag", eTag);
+		response.setHeader("Accept-Ranges", "bytes");
+
+		if (eTag.equals(request.getHeader("If-None-Match"))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		long start = 0;
+		long end = length - 1;
+
+		String range = request.getHeader("Range");
+		String ifRange = request.getHeader("If-Range");
+		// a stale If-Range asks for the complete new content
+		if (range != null && (ifRange == null || eTag.equals(ifRange))) {
+			long[] bounds = parseRange(range, length);
+			if (bounds == null) {
+				response.setHeader("Content-Range", "bytes */" + length);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (bounds.length == 2) {
+				start = bounds[0];
+				end = bounds[1];
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+			}
+		}
+
+		if (document.getMimeType() != null) {
+			response.setContentType(document.getMimeType());
+		}
+		response.setHeader("Content-Transfer-Encoding", "binary");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + document.getName() + "\"");
+		response.setContentLengthLong(end - start + 1);
+
+		transfer(document, start, end - start + 1, response.getOutputStream());
+	}
+
+	/**
+	 * @return the first and last positions of the range, an empty array to send the complete document (multiple
+	 *         ranges are not supported), or null if the range is not satisfiable
+	 */
+	private long[] parseRange(String range, long length) {
+		if (!range.startsWith(RANGE_PREFIX) || range.indexOf(',') != -1) {
+			return new long[0];
+		}
+		String spec = range.substring(RANGE_PREFIX.length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash == -1) {
+			return new long[0];
+		}
+		try {
+			long start;
+			long end;
+			if (dash == 0) {
+				// suffix range : the last n bytes
+				long suffixLength = Long.parseLong(spec.substring(1));
+				if (suffixLength == 0) {
+					return null;
+				}
+				start = Math.max(length - suffixLength, 0);
+				end = length - 1;
+			} else {
+				start = Long.parseLong(spec.substring(0, dash));
+				end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+			}
+			if (start >= length || start > end) {
+				return null;
+			}
+			return new long[] { start, end };
+		} catch (NumberFormatException e) {
+			return new long[0];
+		}
+	}
+
+	private void transfer(StoredDocument document, long position, long count, OutputStream os) throws IOException {
+		try (FileChannel channel = FileChannel.open(new File(document.getFilePath()).toPath(), StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(os);
+			long transferred = 0;
+			while (transferred < count) {
+				long written = channel.transferTo(position + transferred, count - transferred, target);
+				if (written <= 0) {
+					break;
+				}
+				transferred += written;
+			}
+			os.flush();
+		}
+	}
+
+	private Path createFile() {
+		try {
+			return Files.createTempFile(directory.toPath(), "signed-", ".bin");
+		} catch (IOException e) {
+			throw new DSSException("Unable to create a file in the download directory : " + e.getMessage(), e);
+		}
+	}
+
+	private DigestOutputStream newOutputStream(Path path) throws IOException {
+		try {
+			return new DigestOutputStream(Files.newOutputStream(path), MessageDigest.getInstance("SHA-256"));
+		} catch (NoSuchAlgorithmException e) {
+			throw new DSSException("SHA-256 is not available", e);
+		}
+	}
+
+	private StoredDocument toStoredDocument(String name, String mimeType, Path path, MessageDigest digest) throws IOException {
+		StoredDocument storedDocument = new StoredDocument();
+		storedDocument.setName(name);
+		storedDocument.setMimeType(mimeType);
+		storedDocument.setFilePath(path.toString());
+		storedDocument.setLength(Files.size(path));
+		storedDocument.setETag("\"" + Utils.toHex(digest.digest()) + "\"");
+		return storedDocument;
+	}
+
+	private void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			LOG.warn("Unable to delete the file {} : {}", path, e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.europa.esig.dss.web.model.PendingSignature;
+
+/**
+ * Pending signature store for a single node
+ */
+public class InMemoryPendingSignatureStore implements PendingSignatureStore {
+
+	private final Map<String, PendingSignature> pendingSignatures = new ConcurrentHashMap<>();
+
+	@Override
+	public void save(PendingSignature pendingSignature) {
+		pendingSignatures.put(pendingSignature.getProcessId(), pendingSignature);
+	}
+
+	@Override
+	public PendingSignature get(String processId) {
+		PendingSignature pendingSignature = pendingSignatures.get(processId);
+		if (pendingSignature == null || pendingSignature.isExpired()) {
+			return null;
+		}
+		return pendingSignature;
+	}
+
+	@Override
+	public PendingSignature remove(String processId) {
+		PendingSignature pendingSignature = pendingSignatures.get(processId);
+		if (pendingSignature == null || pendingSignature.isExpired() || !pendingSignatures.remove(processId, pendingSignature)) {
+			return null;
+		}
+		return pendingSignature;
+	}
+
+	@Override
+	public List<PendingSignature> removeExpired() {
+		List<PendingSignature> expired = new ArrayList<>();
+		for (PendingSignature pendingSignature : pendingSignatures.values()) {
+			if (pendingSignature.isExpired() && pendingSignatures.remove(pendingSignature.getProcessId(), pendingSignature)) {
+				expired.add(pendingSignature);
+			}
+		}
+		return expired;
+	}
+
+	@Override
+	public int size() {
+		return pendingSignatures.size();
+	}
+
+}
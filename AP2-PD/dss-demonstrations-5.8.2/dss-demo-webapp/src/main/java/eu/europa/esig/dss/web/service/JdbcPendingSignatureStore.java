@@ -0,0 +1,206 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.web.model.PendingSignature;
+
+/**
+ * Pending signature store shared by all the nodes using the same database. The pending signatures are stored
+ * serialized, together with their expiration time.
+ */
+public class JdbcPendingSignatureStore implements PendingSignatureStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JdbcPendingSignatureStore.class);
+
+	private static final String TABLE_NAME = "CMD_PENDING_SIGNATURE";
+
+	private static final String SQL_CREATE_TABLE = "CREATE TABLE " + TABLE_NAME
+			+ " (PROCESS_ID VARCHAR(64) NOT NULL, EXPIRATION_TIME TIMESTAMP NOT NULL, DATA BLOB NOT NULL, PRIMARY KEY (PROCESS_ID))";
+
+	private static final String SQL_DROP_TABLE = "DROP TABLE " + TABLE_NAME;
+
+	private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE PROCESS_ID = ?";
+
+	private static final String SQL_INSERT = "INSERT INTO " + TABLE_NAME + " (PROCESS_ID, EXPIRATION_TIME, DATA) VALUES (?, ?, ?)";
+
+	private static final String SQL_SELECT = "SELECT DATA FROM " + TABLE_NAME + " WHERE PROCESS_ID = ? AND EXPIRATION_TIME > ?";
+
+	private static final String SQL_SELECT_EXPIRED = "SELECT DATA FROM " + TABLE_NAME + " WHERE EXPIRATION_TIME <= ?";
+
+	private static final String SQL_DELETE_EXPIRED = "DELETE FROM " + TABLE_NAME + " WHERE EXPIRATION_TIME <= ?";
+
+	private static final String SQL_COUNT = "SELECT COUNT(*) FROM " + TABLE_NAME;
+
+	private final DataSource dataSource;
+
+	public JdbcPendingSignatureStore(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public void initTable() throws SQLException {
+		try (Connection c = dataSource.getConnection()) {
+			DatabaseMetaData metaData = c.getMetaData();
+			try (ResultSet rs = metaData.getTables(null, null, TABLE_NAME, null)) {
+				if (rs.next()) {
+					return;
+				}
+			}
+			try (Statement s = c.createStatement()) {
+				s.executeUpdate(SQL_CREATE_TABLE);
+				c.commit();
+				LOG.info("Table '{}' created", TABLE_NAME);
+			}
+		}
+	}
+
+	public void destroyTable() throws SQLException {
+		try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+			s.executeUpdate(SQL_DROP_TABLE);
+			c.commit();
+		}
+	}
+
+	@Override
+	public void save(PendingSignature pendingSignature) {
+		byte[] data = serialize(pendingSignature);
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement delete = c.prepareStatement(SQL_DELETE); PreparedStatement insert = c.prepareStatement(SQL_INSERT)) {
+				delete.setString(1, pendingSignature.getProcessId());
+				delete.executeUpdate();
+
+				insert.setString(1, pendingSignature.getProcessId());
+				insert.setTimestamp(2, new Timestamp(pendingSignature.getExpirationTime().getTime()));
+				insert.setBytes(3, data);
+				insert.executeUpdate();
+				c.commit();
+			} catch (SQLException | RuntimeException e) {
+				// the previous version of the pending signature is kept
+				c.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to store the pending signature " + pendingSignature.getProcessId(), e);
+		}
+	}
+
+	@Override
+	public PendingSignature get(String processId) {
+		try (Connection c = dataSource.getConnection()) {
+			try {
+				return select(c, processId);
+			} finally {
+				c.rollback();
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to read the pending signature " + processId, e);
+		}
+	}
+
+	@Override
+	public PendingSignature remove(String processId) {
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement delete = c.prepareStatement(SQL_DELETE)) {
+				PendingSignature pendingSignature = select(c, processId);
+				delete.setString(1, processId);
+				// another node may have taken it in the meantime
+				if (pendingSignature == null || delete.executeUpdate() == 0) {
+					c.rollback();
+					return null;
+				}
+				c.commit();
+				return pendingSignature;
+			} catch (SQLException | RuntimeException e) {
+				c.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to remove the pending signature " + processId, e);
+		}
+	}
+
+	@Override
+	public List<PendingSignature> removeExpired() {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<PendingSignature> expired = new ArrayList<>();
+		try (Connection c = dataSource.getConnection()) {
+			try (PreparedStatement select = c.prepareStatement(SQL_SELECT_EXPIRED); PreparedStatement delete = c.prepareStatement(SQL_DELETE_EXPIRED)) {
+				select.setTimestamp(1, now);
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						expired.add(deserialize(rs.getBytes(1)));
+					}
+				}
+				delete.setTimestamp(1, now);
+				delete.executeUpdate();
+				c.commit();
+			} catch (SQLException | RuntimeException e) {
+				c.rollback();
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to remove the expired pending signatures", e);
+		}
+		return expired;
+	}
+
+	@Override
+	public int size() {
+		try (Connection c = dataSource.getConnection()) {
+			try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery(SQL_COUNT)) {
+				return rs.next() ? rs.getInt(1) : 0;
+			} finally {
+				c.rollback();
+			}
+		} catch (SQLException e) {
+			throw new DSSException("Unable to count the pending signatures", e);
+		}
+	}
+
+	private PendingSignature select(Connection c, String processId) throws SQLException {
+		try (PreparedStatement select = c.prepareStatement(SQL_SELECT)) {
+			select.setString(1, processId);
+			select.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+			try (ResultSet rs = select.executeQuery()) {
+				return rs.next() ? deserialize(rs.getBytes(1)) : null;
+			}
+		}
+	}
+
+	private byte[] serialize(PendingSignature pendingSignature) {
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(pendingSignature);
+			oos.flush();
+			return baos.toByteArray();
+		} catch (IOException e) {
+			throw new DSSException("Unable to serialize the pending signature", e);
+		}
+	}
+
+	private PendingSignature deserialize(byte[] bytes) {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (PendingSignature) ois.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new DSSException("Unable to deserialize the pending signature", e);
+		}
+	}
+
+}
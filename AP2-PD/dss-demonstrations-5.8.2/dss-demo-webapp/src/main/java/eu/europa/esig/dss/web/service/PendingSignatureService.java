@@ -0,0 +1,280 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.DigestDocument;
+import eu.europa.esig.dss.model.FileDocument;
+import eu.europa.esig.dss.model.MimeType;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.web.WebAppUtils;
+import eu.europa.esig.dss.web.model.AbstractSignatureForm;
+import eu.europa.esig.dss.web.model.PendingDocument;
+import eu.europa.esig.dss.web.model.PendingSignature;
+import eu.europa.esig.dss.web.model.SignatureDigestForm;
+import eu.europa.esig.dss.web.model.SignatureDocumentForm;
+import eu.europa.esig.dss.web.model.StoredDocument;
+
+/**
+ * Keeps the CMD signatures between the PIN step and the OTP step outside of the HTTP session, so that the OTP can be
+ * submitted to any node.
+ *
+ * Digests and detached XAdES/CAdES signatures only need the digest of the document. The other documents are spooled
+ * to the pending directory, which must be shared by all the nodes.
+ */
+@Component
+public class PendingSignatureService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PendingSignatureService.class);
+
+	/* Validity of a CMD OTP, in seconds */
+	@Value("${cmd.otp.validity}")
+	private long otpValidity;
+
+	@Value("${cmd.pending.directory}")
+	private String pendingDirectory;
+
+	@Autowired
+	private PendingSignatureStore pendingSignatureStore;
+
+	@Autowired
+	private SigningService signingService;
+
+	@Autowired
+	private DownloadService downloadService;
+
+	private File directory;
+
+	@PostConstruct
+	public void init() {
+		directory = new File(pendingDirectory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new DSSException("Unable to create the pending signatures directory " + directory.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Registers the documents sent to CMD, the signature parameters being taken from the first form
+	 *
+	 * @param processId     the CMD processId
+	 * @param multiple      true if the documents were sent in a single multiple sign request
+	 * @param documentForms the forms used to compute the data to sign, in the order sent to CMD
+	 */
+	public void register(String processId, boolean multiple, List<SignatureDocumentForm> documentForms) {
+		SignatureDocumentForm form = documentForms.get(0);
+
+		PendingSignature pendingSignature = newPendingSignature(processId, form);
+		pendingSignature.setMultiple(multiple);
+		pendingSignature.setContainerType(form.getContainerType());
+		pendingSignature.setSignaturePackaging(form.getSignaturePackaging());
+
+		List<PendingDocument> documents = new ArrayList<>();
+		pendingSignature.setDocuments(documents);
+		try {
+			for (SignatureDocumentForm documentForm : documentForms) {
+				documents.add(toPendingDocument(documentForm));
+			}
+		} catch (RuntimeException e) {
+			deleteFiles(pendingSignature);
+			throw e;
+		}
+
+		save(pendingSignature);
+	}
+
+	/**
+	 * Registers a digest sent to CMD, for a detached signature
+	 *
+	 * @param processId the CMD processId
+	 * @param form      the form used to compute the data to sign
+	 */
+	public void register(String processId, SignatureDigestForm form) {
+		PendingSignature pendingSignature = newPendingSignature(processId, form);
+		pendingSignature.setSignaturePackaging(SignaturePackaging.DETACHED);
+
+		PendingDocument document = new PendingDocument();
+		document.setName(form.getDocumentName());
+		document.setBase64Digest(form.getDigestToSign());
+		document.setContentTimestamp(form.getContentTimestamp());
+		document.setDataToSignDigest(form.getDataToSignDigest());
+		pendingSignature.setDocuments(Collections.singletonList(document));
+
+		save(pendingSignature);
+	}
+
+	private PendingSignature newPendingSignature(String processId, AbstractSignatureForm form) {
+		PendingSignature pendingSignature = new PendingSignature();
+		pendingSignature.setProcessId(processId);
+		pendingSignature.setSignatureForm(form.getSignatureForm());
+		pendingSignature.setSignatureLevel(form.getSignatureLevel());
+		pendingSignature.setDigestAlgorithm(form.getDigestAlgorithm());
+		pendingSignature.setEncryptionAlgorithm(form.getEncryptionAlgorithm());
+		pendingSignature.setSignWithExpiredCertificate(form.isSignWithExpiredCertificate());
+		pendingSignature.setSigningDate(form.getSigningDate());
+		pendingSignature.setBase64Certificate(form.getBase64Certificate());
+		pendingSignature.setBase64CertificateChain(form.getBase64CertificateChain());
+		return pendingSignature;
+	}
+
+	private void save(PendingSignature pendingSignature) {
+		pendingSignature.setExpirationTime(new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(otpValidity)));
+		pendingSignatureStore.save(pendingSignature);
+	}
+
+	/**
+	 * @param processId the CMD processId
+	 * @return the pending signature, or null if it is unknown or expired
+	 */
+	public PendingSignature get(String processId) {
+		if (Utils.isStringEmpty(processId)) {
+			return null;
+		}
+		return pendingSignatureStore.get(processId);
+	}
+
+	/**
+	 * Completes the pending signature and removes it from the store
+	 *
+	 * @param processId       the CMD processId
+	 * @param signatureValues the base64 signature values returned by CMD, in the order of the documents
+	 * @return the signed documents, or null if the pending signature expired or has already been completed
+	 */
+	public List<StoredDocument> sign(String processId, List<String> signatureValues) {
+		PendingSignature pendingSignature = pendingSignatureStore.remove(processId);
+		if (pendingSignature == null) {
+			return null;
+		}
+
+		List<StoredDocument> signedDocuments = new ArrayList<>();
+		try {
+			List<PendingDocument> documents = pendingSignature.getDocuments();
+			for (int i = 0; i < documents.size(); i++) {
+				PendingDocument document = documents.get(i);
+
+				SignatureDocumentForm form = toSignatureDocumentForm(pendingSignature, document);
+				form.setBase64SignatureValue(signatureValues.get(i));
+
+				DSSDocument signedDocument = signingService.signDocument(form, toDSSDocument(pendingSignature, document));
+				// written before the spooled file is deleted below
+				signedDocuments.add(downloadService.store(signedDocument));
+			}
+			return signedDocuments;
+		} catch (RuntimeException e) {
+			for (StoredDocument signedDocument : signedDocuments) {
+				signedDocument.delete();
+			}
+			throw e;
+		} finally {
+			deleteFiles(pendingSignature);
+		}
+	}
+
+	/**
+	 * Removes the pending signatures whose OTP is not valid anymore, with their spooled files
+	 */
+	public void purgeExpired() {
+		List<PendingSignature> expired = pendingSignatureStore.removeExpired();
+		for (PendingSignature pendingSignature : expired) {
+			deleteFiles(pendingSignature);
+		}
+		if (!expired.isEmpty()) {
+			LOG.info("{} expired pending CMD signature(s) removed", expired.size());
+		}
+	}
+
+	public int getPendingCount() {
+		return pendingSignatureStore.size();
+	}
+
+	private PendingDocument toPendingDocument(SignatureDocumentForm form) {
+		MultipartFile documentToSign = form.getDocumentToSign();
+
+		PendingDocument document = new PendingDocument();
+		document.setName(documentToSign.getOriginalFilename());
+		document.setContentTimestamp(form.getContentTimestamp());
+		document.setDataToSignDigest(form.getDataToSignDigest());
+
+		if (isDigestSufficient(form)) {
+			document.setBase64Digest(WebAppUtils.toDigestDocument(documentToSign).getDigest(form.getDigestAlgorithm()));
+			return document;
+		}
+
+		try (InputStream is = documentToSign.getInputStream()) {
+			Path path = Files.createTempFile(directory.toPath(), "cmd-", ".bin");
+			Files.copy(is, path, StandardCopyOption.REPLACE_EXISTING);
+			document.setFilePath(path.toString());
+		} catch (IOException e) {
+			throw new DSSException("Unable to keep the document " + document.getName() + " : " + e.getMessage(), e);
+		}
+		return document;
+	}
+
+	private boolean isDigestSufficient(SignatureDocumentForm form) {
+		return SignaturePackaging.DETACHED == form.getSignaturePackaging() && WebAppUtils.isDigestSufficient(form.getContainerType(), form.getSignatureForm());
+	}
+
+	private DSSDocument toDSSDocument(PendingSignature pendingSignature, PendingDocument document) {
+		if (document.getFilePath() != null) {
+			FileDocument fileDocument = new FileDocument(document.getFilePath());
+			fileDocument.setName(document.getName());
+			fileDocument.setMimeType(MimeType.fromFileName(document.getName()));
+			return fileDocument;
+		}
+		DigestDocument digestDocument = new DigestDocument(pendingSignature.getDigestAlgorithm(), document.getBase64Digest(), document.getName());
+		// same MIME type as the document used for the data to sign
+		digestDocument.setMimeType(MimeType.fromFileName(document.getName()));
+		return digestDocument;
+	}
+
+	private SignatureDocumentForm toSignatureDocumentForm(PendingSignature pendingSignature, PendingDocument document) {
+		SignatureDocumentForm form = new SignatureDocumentForm();
+		form.setContainerType(pendingSignature.getContainerType());
+		form.setSignatureForm(pendingSignature.getSignatureForm());
+		form.setSignaturePackaging(pendingSignature.getSignaturePackaging());
+		form.setSignatureLevel(pendingSignature.getSignatureLevel());
+		form.setDigestAlgorithm(pendingSignature.getDigestAlgorithm());
+		form.setEncryptionAlgorithm(pendingSignature.getEncryptionAlgorithm());
+		form.setSignWithExpiredCertificate(pendingSignature.isSignWithExpiredCertificate());
+		form.setSigningDate(pendingSignature.getSigningDate());
+		form.setBase64Certificate(pendingSignature.getBase64Certificate());
+		form.setBase64CertificateChain(pendingSignature.getBase64CertificateChain());
+		form.setContentTimestamp(document.getContentTimestamp());
+		// prepared with the data to sign, if the signature is completed by the same node
+		form.setDataToSignDigest(document.getDataToSignDigest());
+		return form;
+	}
+
+	private void deleteFiles(PendingSignature pendingSignature) {
+		for (PendingDocument document : pendingSignature.getDocuments()) {
+			if (document.getFilePath() != null) {
+				try {
+					Files.deleteIfExists(new File(document.getFilePath()).toPath());
+				} catch (IOException e) {
+					LOG.warn("Unable to delete the pending file {} : {}", document.getFilePath(), e.getMessage());
+				}
+			}
+		}
+	}
+
+}
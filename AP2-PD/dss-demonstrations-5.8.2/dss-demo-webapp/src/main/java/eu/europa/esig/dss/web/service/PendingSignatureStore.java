@@ -0,0 +1,45 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.List;
+
+import eu.europa.esig.dss.web.model.PendingSignature;
+
+/**
+ * Keeps the CMD signatures waiting for their OTP, identified by the CMD processId
+ */
+public interface PendingSignatureStore {
+
+	/**
+	 * Stores (or replaces) the given pending signature
+	 *
+	 * @param pendingSignature the pending signature, with its processId and expiration time
+	 */
+	void save(PendingSignature pendingSignature);
+
+	/**
+	 * @param processId the CMD processId
+	 * @return the pending signature, or null if it is unknown or expired
+	 */
+	PendingSignature get(String processId);
+
+	/**
+	 * Atomically takes the pending signature out of the store, so that only one node can complete it
+	 *
+	 * @param processId the CMD processId
+	 * @return the removed pending signature, or null if it is unknown, expired or already removed
+	 */
+	PendingSignature remove(String processId);
+
+	/**
+	 * Removes all the expired pending signatures
+	 *
+	 * @return the removed pending signatures
+	 */
+	List<PendingSignature> removeExpired();
+
+	/**
+	 * @return the number of stored pending signatures, including the expired ones not purged yet
+	 */
+	int size();
+
+}
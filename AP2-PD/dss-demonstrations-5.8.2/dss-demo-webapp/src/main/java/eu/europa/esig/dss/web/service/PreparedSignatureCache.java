@@ -0,0 +1,106 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import eu.europa.esig.dss.AbstractSignatureParameters;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.utils.Utils;
+
+/**
+ * Keeps the parameters and the document used to compute the data to sign until the signature value is received, so
+ * that the second step does not fill the parameters and read the document again. The XAdES signature built for the data
+ * to sign is also kept by the parameters and reused by DSS. The entries are keyed by the digest of the data to sign,
+ * used once and expire after {@code prepared.signature.ttl} seconds.
+ */
+@Component
+public class PreparedSignatureCache {
+
+	@Value("${prepared.signature.max.size}")
+	private long maxSize;
+
+	@Value("${prepared.signature.ttl}")
+	private long ttl;
+
+	private Cache<String, PreparedSignature> cache;
+
+	@PostConstruct
+	public void init() {
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * @param toBeSigned the data to sign computed with the parameters
+	 * @param parameters the filled parameters
+	 * @param document   the document to sign
+	 * @return the key of the prepared signature
+	 */
+	@SuppressWarnings("rawtypes")
+	public String put(ToBeSigned toBeSigned, AbstractSignatureParameters parameters, DSSDocument document) {
+		String key = Utils.toBase64(DSSUtils.digest(DigestAlgorithm.SHA256, toBeSigned.getBytes()));
+		cache.put(key, new PreparedSignature(parameters, document));
+		return key;
+	}
+
+	/**
+	 * @param key the key returned with the data to sign
+	 * @return the prepared signature, or null if it is unknown, expired or already used
+	 */
+	public PreparedSignature remove(String key) {
+		if (key == null) {
+			return null;
+		}
+		PreparedSignature preparedSignature = cache.getIfPresent(key);
+		// the parameters are not shared between two signatures
+		if (preparedSignature == null || !cache.asMap().remove(key, preparedSignature)) {
+			return null;
+		}
+		return preparedSignature;
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static class PreparedSignature {
+
+		private final AbstractSignatureParameters parameters;
+
+		private final DSSDocument document;
+
+		PreparedSignature(AbstractSignatureParameters parameters, DSSDocument document) {
+			this.parameters = parameters;
+			this.document = document;
+		}
+
+		public AbstractSignatureParameters getParameters() {
+			return parameters;
+		}
+
+		public DSSDocument getDocument() {
+			return document;
+		}
+
+	}
+
+}
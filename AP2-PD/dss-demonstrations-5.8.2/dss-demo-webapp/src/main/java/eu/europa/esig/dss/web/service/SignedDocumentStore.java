@@ -0,0 +1,127 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.web.model.StoredDocument;
+
+/**
+ * Keeps the signed documents until they are downloaded, outside of the HTTP session. The documents are written to the
+ * download directory and referenced by an opaque token. The least recently used documents are evicted once the total
+ * size exceeds {@code signed.document.store.max.size} megabytes, and every document expires
+ * {@code signed.document.store.ttl} seconds after it was signed. The files are deleted with their entry, or at the end
+ * of their downloads in progress.
+ */
+@Component
+public class SignedDocumentStore {
+
+	@Value("${signed.document.store.max.size}")
+	private long maxSize;
+
+	@Value("${signed.document.store.ttl}")
+	private long ttl;
+
+	@Autowired
+	private DownloadService downloadService;
+
+	private final AtomicLong occupancy = new AtomicLong();
+
+	private Cache<String, StoredDocument> cache;
+
+	@PostConstruct
+	public void init() {
+		cache = CacheBuilder.newBuilder()
+				// a single segment, otherwise the weight is limited per segment and a document above a fraction of the
+				// maximum size is evicted as soon as it is stored
+				.concurrencyLevel(1)
+				.maximumWeight(maxSize * 1024 * 1024)
+				.weigher((Weigher<String, StoredDocument>) (token, document) -> (int) Math.min(document.getLength(), Integer.MAX_VALUE))
+				.expireAfterWrite(ttl, TimeUnit.SECONDS)
+				.removalListener((RemovalListener<String, StoredDocument>) notification -> {
+					StoredDocument document = notification.getValue();
+					occupancy.addAndGet(-document.getLength());
+					document.delete();
+				})
+				.recordStats()
+				.build();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Writes the document to the download directory and keeps it until it is downloaded or evicted
+	 *
+	 * @param document the signed document
+	 * @return the download token
+	 */
+	public String put(DSSDocument document) {
+		return put(downloadService.store(document));
+	}
+
+	/**
+	 * @param document a document already written to the download directory
+	 * @return the download token
+	 */
+	public String put(StoredDocument document) {
+		String token = UUID.randomUUID().toString();
+		occupancy.addAndGet(document.getLength());
+		cache.put(token, document);
+		return token;
+	}
+
+	/**
+	 * @param token the download token
+	 * @return the stored document, or null if it is unknown, expired or evicted
+	 */
+	public StoredDocument get(String token) {
+		if (token == null) {
+			return null;
+		}
+		return cache.getIfPresent(token);
+	}
+
+	/**
+	 * Evicts the expired documents, otherwise only evicted when the store is accessed
+	 */
+	public void cleanUp() {
+		cache.cleanUp();
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+	/**
+	 * @return the total size of the stored documents, in bytes
+	 */
+	public long getOccupancy() {
+		return occupancy.get();
+	}
+
+	public long getMaxOccupancy() {
+		return maxSize * 1024 * 1024;
+	}
+
+}
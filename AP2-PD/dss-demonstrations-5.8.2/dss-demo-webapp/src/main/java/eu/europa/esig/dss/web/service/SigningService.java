@@ -15,6 +15,7 @@ import eu.europa.esig.dss.enumerations.JWSSerializationType;
 import eu.europa.esig.dss.enumerations.SigDMechanism;
 import eu.europa.esig.dss.enumerations.SignatureAlgorithm;
 import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.enumerations.SignaturePackaging;
 import eu.europa.esig.dss.jades.JAdESSignatureParameters;
 import eu.europa.esig.dss.jades.signature.JAdESCounterSignatureParameters;
@@ -32,7 +33,6 @@ import eu.europa.esig.dss.pades.signature.PAdESService;
 import eu.europa.esig.dss.signature.CounterSignatureService;
 import eu.europa.esig.dss.signature.DocumentSignatureService;
 import eu.europa.esig.dss.signature.MultipleDocumentsSignatureService;
-import eu.europa.esig.dss.spi.DSSUtils;
 import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
 import eu.europa.esig.dss.utils.Utils;
 import eu.europa.esig.dss.validation.timestamp.TimestampToken;
@@ -46,6 +46,8 @@ import eu.europa.esig.dss.web.model.SignatureDocumentForm;
 import eu.europa.esig.dss.web.model.SignatureJAdESForm;
 import eu.europa.esig.dss.web.model.SignatureMultipleDocumentsForm;
 import eu.europa.esig.dss.web.model.TimestampForm;
+import eu.europa.esig.dss.web.service.PreparedSignatureCache.PreparedSignature;
+import eu.europa.esig.dss.web.tsp.AggregatingTSPSource;
 import eu.europa.esig.dss.x509.tsp.MockTSPSource;
 import eu.europa.esig.dss.xades.XAdESSignatureParameters;
 import eu.europa.esig.dss.xades.signature.XAdESCounterSignatureParameters;
@@ -56,8 +58,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.xml.bind.DatatypeConverter;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 @Component
@@ -86,24 +88,52 @@ public class SigningService {
 	@Autowired
 	private TSPSource tspSource;
 
+	@Autowired
+	private PreparedSignatureCache preparedSignatureCache;
+
+	@Autowired
+	private CertificateTokenCache certificateTokenCache;
+
+	@Autowired
+	private DetachedContentDigester detachedContentDigester;
+
+	@Autowired
+	private ContentTimestampCache contentTimestampCache;
+
 	public boolean isMockTSPSourceUsed() {
-		return tspSource instanceof MockTSPSource;
+		TSPSource source = tspSource;
+		if (source instanceof AggregatingTSPSource) {
+			source = ((AggregatingTSPSource) source).getTspSource();
+		}
+		return source instanceof MockTSPSource;
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public DSSDocument extend(ExtensionForm extensionForm) {
-		LOG.info("Start extend signature");
-
 		ASiCContainerType containerType = extensionForm.getContainerType();
 		SignatureForm signatureForm = extensionForm.getSignatureForm();
 
 		DSSDocument signedDocument = WebAppUtils.toDSSDocument(extensionForm.getSignedFile());
-		List<DSSDocument> originalDocuments = WebAppUtils.toDSSDocuments(extensionForm.getOriginalFiles());
+		List<DSSDocument> originalDocuments;
+		if (WebAppUtils.isDigestSufficient(containerType, signatureForm)) {
+			originalDocuments = WebAppUtils.toDigestDocuments(extensionForm.getOriginalFiles());
+		} else if (detachedContentDigester.isDigestUsed(signatureForm)) {
+			originalDocuments = detachedContentDigester.digestUploads(extensionForm.getOriginalFiles());
+		} else {
+			originalDocuments = WebAppUtils.toDSSDocuments(extensionForm.getOriginalFiles());
+		}
+
+		return extend(signedDocument, originalDocuments, containerType, signatureForm, extensionForm.getSignatureLevel());
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public DSSDocument extend(DSSDocument signedDocument, List<DSSDocument> originalDocuments, ASiCContainerType containerType,
+			SignatureForm signatureForm, SignatureLevel signatureLevel) {
+		LOG.info("Start extend signature");
 
 		DocumentSignatureService service = getSignatureService(containerType, signatureForm);
 
 		AbstractSignatureParameters parameters = getSignatureParameters(containerType, signatureForm);
-		parameters.setSignatureLevel(extensionForm.getSignatureLevel());
+		parameters.setSignatureLevel(signatureLevel);
 
 		if (Utils.isCollectionNotEmpty(originalDocuments)) {
 			parameters.setDetachedContents(originalDocuments);
@@ -114,16 +144,24 @@ public class SigningService {
 		return extendDocument;
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public ToBeSigned getDataToSign(SignatureDocumentForm form) {
+		return getDataToSign(form, toDSSDocument(form));
+	}
+
+	/**
+	 * Computes the data to sign of the given document with the parameters of the form, the uploaded file of the form
+	 * being ignored
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ToBeSigned getDataToSign(SignatureDocumentForm form, DSSDocument toSignDocument) {
 		LOG.info("Start getDataToSign with one document");
 		DocumentSignatureService service = getSignatureService(form.getContainerType(), form.getSignatureForm());
 
 		AbstractSignatureParameters parameters = fillParameters(form);
 
 		try {
-			DSSDocument toSignDocument = WebAppUtils.toDSSDocument(form.getDocumentToSign());
 			ToBeSigned toBeSigned = service.getDataToSign(toSignDocument, parameters);
+			form.setDataToSignDigest(preparedSignatureCache.put(toBeSigned, parameters, toSignDocument));
 			LOG.info("End getDataToSign with one document");
 			return toBeSigned;
 		} catch (Exception e) {
@@ -210,8 +248,8 @@ public class SigningService {
 		DocumentSignatureService service = getSignatureService(form.getContainerType(), form.getSignatureForm());
 		AbstractSignatureParameters parameters = fillParameters(form);
 		
-		DSSDocument toSignDocument = WebAppUtils.toDSSDocument(form.getDocumentToSign());
-		TimestampToken contentTimestamp = service.getContentTimestamp(toSignDocument, parameters);
+		DSSDocument toSignDocument = toDSSDocument(form);
+		TimestampToken contentTimestamp = contentTimestampCache.withCache(() -> service.getContentTimestamp(toSignDocument, parameters));
 
 		LOG.info("End getContentTimestamp with one document");
 		return contentTimestamp;
@@ -225,7 +263,7 @@ public class SigningService {
 		AbstractSignatureParameters parameters = fillParameters(form);
 
 		DigestDocument toSignDigest = new DigestDocument(form.getDigestAlgorithm(), form.getDigestToSign(), form.getDocumentName());
-		TimestampToken contentTimestamp = service.getContentTimestamp(toSignDigest, parameters);
+		TimestampToken contentTimestamp = contentTimestampCache.withCache(() -> service.getContentTimestamp(toSignDigest, parameters));
 
 		LOG.info("End getContentTimestamp with one digest");
 		return contentTimestamp;
@@ -238,7 +276,8 @@ public class SigningService {
 		MultipleDocumentsSignatureService service = getASiCSignatureService(form.getSignatureForm());
 		AbstractSignatureParameters parameters = fillParameters(form);
 
-		TimestampToken contentTimestamp = service.getContentTimestamp(WebAppUtils.toDSSDocuments(form.getDocumentsToSign()), parameters);
+		List<DSSDocument> toSignDocuments = WebAppUtils.toDSSDocuments(form.getDocumentsToSign());
+		TimestampToken contentTimestamp = contentTimestampCache.withCache(() -> service.getContentTimestamp(toSignDocuments, parameters));
 
 		LOG.info("End getContentTimestamp with  multiple documents");
 		return contentTimestamp;
@@ -252,7 +291,7 @@ public class SigningService {
 		JAdESSignatureParameters parameters = fillParameters(form);
 		List<DSSDocument> toSignDocuments = WebAppUtils.toDSSDocuments(form.getDocumentsToSign());
 
-		TimestampToken contentTimestamp = service.getContentTimestamp(toSignDocuments, parameters);
+		TimestampToken contentTimestamp = contentTimestampCache.withCache(() -> service.getContentTimestamp(toSignDocuments, parameters));
 
 		LOG.info("End getContentTimestamp with JAdES");
 		return contentTimestamp;
@@ -343,28 +382,51 @@ public class SigningService {
 			parameters.setContentTimestamps(Arrays.asList(WebAppUtils.toTimestampToken(form.getContentTimestamp())));
 		}
 
-		CertificateToken signingCertificate = DSSUtils.loadCertificateFromBase64EncodedString(form.getBase64Certificate());
+		CertificateToken signingCertificate = certificateTokenCache.get(form.getBase64Certificate());
 		parameters.setSigningCertificate(signingCertificate);
 
 		List<String> base64CertificateChain = form.getBase64CertificateChain();
 		if (Utils.isCollectionNotEmpty(base64CertificateChain)) {
-			List<CertificateToken> certificateChain = new LinkedList<>();
+			List<CertificateToken> certificateChain = new ArrayList<>(base64CertificateChain.size());
 			for (String base64Certificate : base64CertificateChain) {
-				certificateChain.add(DSSUtils.loadCertificateFromBase64EncodedString(base64Certificate));
+				certificateChain.add(certificateTokenCache.get(base64Certificate));
 			}
 			parameters.setCertificateChain(certificateChain);
 		}
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public DSSDocument signDocument(SignatureDocumentForm form) {
+		return signDocument(form, toDSSDocument(form));
+	}
+
+	private DSSDocument toDSSDocument(SignatureDocumentForm form) {
+		if (SignaturePackaging.DETACHED == form.getSignaturePackaging() && WebAppUtils.isDigestSufficient(form.getContainerType(), form.getSignatureForm())) {
+			// digests computed while the document was uploaded
+			return WebAppUtils.toDigestDocument(form.getDocumentToSign());
+		}
+		return WebAppUtils.toDSSDocument(form.getDocumentToSign());
+	}
+
+	/**
+	 * Signs the given document with the parameters of the form, the uploaded file of the form being ignored. The
+	 * parameters and the document prepared with the data to sign are used when they are still cached.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public DSSDocument signDocument(SignatureDocumentForm form, DSSDocument toSignDocument) {
 		LOG.info("Start signDocument with one document");
 		DocumentSignatureService service = getSignatureService(form.getContainerType(), form.getSignatureForm());
 
-		AbstractSignatureParameters parameters = fillParameters(form);
+		AbstractSignatureParameters parameters;
+		PreparedSignature preparedSignature = preparedSignatureCache.remove(form.getDataToSignDigest());
+		form.setDataToSignDigest(null);
+		if (preparedSignature != null) {
+			parameters = preparedSignature.getParameters();
+			toSignDocument = preparedSignature.getDocument();
+		} else {
+			parameters = fillParameters(form);
+		}
 
 		try {
-			DSSDocument toSignDocument = WebAppUtils.toDSSDocument(form.getDocumentToSign());
 			SignatureAlgorithm sigAlgorithm = SignatureAlgorithm.getAlgorithm(form.getEncryptionAlgorithm(), form.getDigestAlgorithm());
 			SignatureValue signatureValue = new SignatureValue(sigAlgorithm, Utils.fromBase64(form.getBase64SignatureValue()));
 			DSSDocument signedDocument = service.signDocument(toSignDocument, parameters, signatureValue);
@@ -0,0 +1,113 @@
+package eu.europa.esig.dss.web.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.policy.ValidationPolicy;
+import eu.europa.esig.dss.policy.ValidationPolicyFacade;
+import eu.europa.esig.dss.utils.Utils;
+
+/**
+ * Keeps the parsed validation policies, the same policy is unmarshalled and checked against its schema once instead of
+ * on every validation. The policies are keyed by the SHA-256 digest of their content, at most
+ * {@code validation.policy.cache.max.size} policies are kept. The default policy is kept with the others.
+ * <p>
+ * The policies are shared by the concurrent validations, they are only read by the validation processes.
+ */
+@Component
+public class ValidationPolicyCache {
+
+	@Value("${validation.policy.cache.max.size}")
+	private long maxSize;
+
+	@Autowired
+	private Resource defaultPolicy;
+
+	private DSSDocument defaultPolicyDocument;
+
+	private Cache<String, ValidationPolicy> cache;
+
+	@PostConstruct
+	public void init() {
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+		try (InputStream is = defaultPolicy.getInputStream()) {
+			defaultPolicyDocument = new InMemoryDocument(Utils.toByteArray(is), defaultPolicy.getFilename());
+		} catch (IOException e) {
+			throw new DSSException("Unable to read the default policy : " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the parsed default policy
+	 */
+	public ValidationPolicy getDefaultPolicy() {
+		return get(defaultPolicyDocument);
+	}
+
+	/**
+	 * @return the SHA-256 digest of the default policy
+	 */
+	public String getDefaultPolicyDigest() {
+		return getDigest(defaultPolicyDocument);
+	}
+
+	/**
+	 * @param policy the policy document
+	 * @return the SHA-256 digest of the policy, the key of the parsed policy
+	 */
+	public String getDigest(DSSDocument policy) {
+		return policy.getDigest(DigestAlgorithm.SHA256);
+	}
+
+	/**
+	 * @param policy the policy document
+	 * @return the parsed policy
+	 */
+	public ValidationPolicy get(DSSDocument policy) {
+		try {
+			return cache.get(getDigest(policy), () -> parse(policy));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new DSSException("Unable to parse the validation policy : " + e.getMessage(), e);
+		}
+	}
+
+	private ValidationPolicy parse(DSSDocument policy) {
+		try (InputStream is = policy.openStream()) {
+			return ValidationPolicyFacade.newFacade().getValidationPolicy(is);
+		} catch (Exception e) {
+			throw new DSSException("Unable to parse the validation policy : " + e.getMessage(), e);
+		}
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+}
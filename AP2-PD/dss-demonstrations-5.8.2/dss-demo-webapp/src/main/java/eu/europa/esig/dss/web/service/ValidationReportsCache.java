@@ -0,0 +1,131 @@
+package eu.europa.esig.dss.web.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.validation.reports.Reports;
+
+/**
+ * Keeps the reports of the last validations, the same signed file validated again with the same detached contents,
+ * policy and options gets the previous reports instead of a new validation. The names of the files are part of the key,
+ * they appear in the reports and a detached content is found by its name. The reports are only reused within the
+ * same period of {@code validation.reports.cache.time.bucket} seconds, at most {@code validation.reports.cache.max.size}
+ * reports are kept during {@code validation.reports.cache.ttl} seconds, the least recently used first evicted.
+ * <p>
+ * The cache is disabled unless {@code validation.reports.cache.enabled} is true, a request can also bypass it.
+ */
+@Component
+public class ValidationReportsCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ValidationReportsCache.class);
+
+	@Value("${validation.reports.cache.enabled}")
+	private boolean enabled;
+
+	@Value("${validation.reports.cache.max.size}")
+	private long maxSize;
+
+	@Value("${validation.reports.cache.ttl}")
+	private long ttl;
+
+	@Value("${validation.reports.cache.time.bucket}")
+	private long timeBucket;
+
+	private Cache<String, Reports> cache;
+
+	@PostConstruct
+	public void init() {
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * @param signedDocument the validated document
+	 * @param detachedContents the detached contents, can be null
+	 * @param policyDigest the digest of the validation policy, see {@link ValidationPolicyCache#getDigest(DSSDocument)}
+	 * @param options the other parameters of the validation (level, included tokens, locale...)
+	 * @return the key of the reports in the current time bucket, null if the reports cannot be cached
+	 */
+	public String getKey(DSSDocument signedDocument, List<DSSDocument> detachedContents, String policyDigest, Object... options) {
+		if (!enabled || policyDigest == null) {
+			return null;
+		}
+		try {
+			StringBuilder key = new StringBuilder();
+			key.append(signedDocument.getDigest(DigestAlgorithm.SHA256));
+			appendName(key, signedDocument);
+			if (detachedContents != null) {
+				for (DSSDocument detachedContent : detachedContents) {
+					key.append('|').append(detachedContent.getDigest(DigestAlgorithm.SHA256));
+					appendName(key, detachedContent);
+				}
+			}
+			key.append('|').append(policyDigest);
+			for (Object option : options) {
+				key.append('|').append(option);
+			}
+			key.append('|').append(System.currentTimeMillis() / TimeUnit.SECONDS.toMillis(timeBucket));
+			return key.toString();
+		} catch (DSSException e) {
+			// a detached content without SHA-256 digest
+			LOG.debug("The reports cannot be cached : {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/* Prefixed by its length, a name cannot be mistaken for the next parts of the key */
+	private void appendName(StringBuilder key, DSSDocument document) {
+		String name = document.getName() != null ? document.getName() : "";
+		key.append('|').append(name.length()).append(':').append(name);
+	}
+
+	/**
+	 * @param key the key of the reports, null to validate without cache
+	 * @param bypass true to validate again, the new reports replace the cached ones
+	 * @param validation the validation to run when the reports are not cached
+	 * @return the cached or new reports
+	 */
+	public Reports get(String key, boolean bypass, Supplier<Reports> validation) {
+		if (key == null) {
+			return validation.get();
+		}
+		if (!bypass) {
+			Reports reports = cache.getIfPresent(key);
+			if (reports != null) {
+				return reports;
+			}
+		}
+		Reports reports = validation.get();
+		if (reports != null) {
+			cache.put(key, reports);
+		}
+		return reports;
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public long getSize() {
+		return cache.size();
+	}
+
+}
@@ -4,7 +4,10 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 
+import javax.annotation.PostConstruct;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -13,11 +16,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import eu.europa.esig.dss.detailedreport.DetailedReportFacade;
+import eu.europa.esig.dss.detailedreport.DetailedReportXmlDefiner;
 import eu.europa.esig.dss.diagnostic.DiagnosticDataFacade;
 import eu.europa.esig.dss.diagnostic.jaxb.XmlDiagnosticData;
 import eu.europa.esig.dss.simplecertificatereport.SimpleCertificateReportXmlDefiner;
-import eu.europa.esig.dss.simplereport.SimpleReportFacade;
+import eu.europa.esig.dss.simplereport.SimpleReportXmlDefiner;
 
 @Component
 public class XSLTService {
@@ -30,21 +33,39 @@ public class XSLTService {
 	@Value("${tl.browser.country.root.url}")
 	private String rootCountryUrlInTlBrowser;
 
+	private Templates simpleReportTemplates;
+
+	private Templates detailedReportTemplates;
+
+	private Templates simpleCertificateReportTemplates;
+
+	/**
+	 * Compiles the HTML report stylesheets once, the {@link Templates} are thread-safe and shared by all the requests
+	 */
+	@PostConstruct
+	public void init() throws Exception {
+		simpleReportTemplates = SimpleReportXmlDefiner.getHtmlBootstrap4Templates();
+		detailedReportTemplates = DetailedReportXmlDefiner.getHtmlBootstrap4Templates();
+		simpleCertificateReportTemplates = SimpleCertificateReportXmlDefiner.getHtmlBootstrap4Templates();
+	}
+
 	public String generateSimpleReport(String simpleReport) {
-		try {
-			return SimpleReportFacade.newFacade().generateHtmlReport(simpleReport);
+		try (Writer writer = new StringWriter()) {
+			generateSimpleReport(simpleReport, writer);
+			return writer.toString();
 		} catch (Exception e) {
 			LOG.error("Error while generating simple report : " + e.getMessage(), e);
 			return null;
 		}
 	}
 
+	public void generateSimpleReport(String simpleReport, Writer writer) throws TransformerException {
+		transform(simpleReportTemplates.newTransformer(), simpleReport, writer);
+	}
+
 	public String generateSimpleCertificateReport(String simpleReport) {
 		try (Writer writer = new StringWriter()) {
-			Transformer transformer = SimpleCertificateReportXmlDefiner.getHtmlBootstrap4Templates().newTransformer();
-			transformer.setParameter("rootTrustmarkUrlInTlBrowser", rootTrustmarkUrlInTlBrowser);
-			transformer.setParameter("rootCountryUrlInTlBrowser", rootCountryUrlInTlBrowser);
-			transformer.transform(new StreamSource(new StringReader(simpleReport)), new StreamResult(writer));
+			generateSimpleCertificateReport(simpleReport, writer);
 			return writer.toString();
 		} catch (Exception e) {
 			LOG.error("Error while generating simple certificate report : " + e.getMessage(), e);
@@ -52,15 +73,35 @@ public class XSLTService {
 		}
 	}
 
-	public  String generateDetailedReport(String detailedReport) {
-		try {
-			return DetailedReportFacade.newFacade().generateHtmlReport(detailedReport);
+	public void generateSimpleCertificateReport(String simpleReport, Writer writer) throws TransformerException {
+		Transformer transformer = simpleCertificateReportTemplates.newTransformer();
+		transformer.setParameter("rootTrustmarkUrlInTlBrowser", rootTrustmarkUrlInTlBrowser);
+		transformer.setParameter("rootCountryUrlInTlBrowser", rootCountryUrlInTlBrowser);
+		transform(transformer, simpleReport, writer);
+	}
+
+	public String generateDetailedReport(String detailedReport) {
+		try (Writer writer = new StringWriter()) {
+			generateDetailedReport(detailedReport, writer);
+			return writer.toString();
 		} catch (Exception e) {
 			LOG.error("Error while generating detailed report : " + e.getMessage(), e);
 			return null;
 		}
 	}
 
+	/**
+	 * Writes the HTML detailed report straight into the writer, without the intermediate string of
+	 * {@link #generateDetailedReport(String)}
+	 */
+	public void generateDetailedReport(String detailedReport, Writer writer) throws TransformerException {
+		transform(detailedReportTemplates.newTransformer(), detailedReport, writer);
+	}
+
+	private void transform(Transformer transformer, String xmlReport, Writer writer) throws TransformerException {
+		transformer.transform(new StreamSource(new StringReader(xmlReport)), new StreamResult(writer));
+	}
+
     public String generateSVG(String diagnosticDataXml) {
         try (Writer writer = new StringWriter()) {
             XmlDiagnosticData diagnosticData = DiagnosticDataFacade.newFacade().unmarshall(diagnosticDataXml);
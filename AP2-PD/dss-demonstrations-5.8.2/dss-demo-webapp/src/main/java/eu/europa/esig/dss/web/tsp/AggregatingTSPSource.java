@@ -0,0 +1,125 @@
+package eu.europa.esig.dss.web.tsp;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+
+/**
+ * Reduces the number of requests sent to the TSA.
+ * <p>
+ * The timestamps requested by DSS must cover the given digest, they cannot be shared between different digests : the
+ * identical digests requested at the same time are sent once and all the callers get the same timestamp.
+ */
+public class AggregatingTSPSource implements TSPSource {
+
+	private static final long serialVersionUID = 4204626311325398652L;
+
+	private final TSPSource tspSource;
+
+	private final transient ConcurrentMap<DigestKey, CompletableFuture<TimestampBinary>> inFlight = new ConcurrentHashMap<>();
+
+	private final transient LongAdder requests = new LongAdder();
+
+	private final transient LongAdder coalesced = new LongAdder();
+
+	private final transient LongAdder tsaRequests = new LongAdder();
+
+	public AggregatingTSPSource(TSPSource tspSource) {
+		Objects.requireNonNull(tspSource, "The TSPSource cannot be null");
+		this.tspSource = tspSource;
+	}
+
+	/**
+	 * @return the TSPSource which issues the timestamps
+	 */
+	public TSPSource getTspSource() {
+		return tspSource;
+	}
+
+	@Override
+	public TimestampBinary getTimeStampResponse(DigestAlgorithm digestAlgorithm, byte[] digest) {
+		requests.increment();
+		DigestKey key = new DigestKey(digestAlgorithm, digest);
+		CompletableFuture<TimestampBinary> future = new CompletableFuture<>();
+		CompletableFuture<TimestampBinary> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			coalesced.increment();
+			return join(existing);
+		}
+		try {
+			tsaRequests.increment();
+			TimestampBinary timestampBinary = tspSource.getTimeStampResponse(digestAlgorithm, digest);
+			future.complete(timestampBinary);
+			return timestampBinary;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	private TimestampBinary join(CompletableFuture<TimestampBinary> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new DSSException("Unable to get the timestamp : " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DSSException("Interrupted while waiting for the timestamp", e);
+		}
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("requests", requests.sum());
+		metrics.put("coalesced", coalesced.sum());
+		metrics.put("tsaRequests", tsaRequests.sum());
+		return metrics;
+	}
+
+	private static final class DigestKey {
+
+		private final DigestAlgorithm digestAlgorithm;
+
+		private final byte[] digest;
+
+		private final int hashCode;
+
+		DigestKey(DigestAlgorithm digestAlgorithm, byte[] digest) {
+			this.digestAlgorithm = digestAlgorithm;
+			this.digest = digest;
+			this.hashCode = 31 * digestAlgorithm.hashCode() + Arrays.hashCode(digest);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof DigestKey)) {
+				return false;
+			}
+			DigestKey other = (DigestKey) obj;
+			return digestAlgorithm == other.digestAlgorithm && Arrays.equals(digest, other.digest);
+		}
+
+	}
+
+}
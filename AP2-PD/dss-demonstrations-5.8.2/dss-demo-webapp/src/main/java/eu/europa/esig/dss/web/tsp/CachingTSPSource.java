@@ -0,0 +1,29 @@
+package eu.europa.esig.dss.web.tsp;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.web.service.ContentTimestampCache;
+
+/**
+ * TSPSource of the signature services, the content timestamps are served by the {@link ContentTimestampCache}
+ */
+public class CachingTSPSource implements TSPSource {
+
+	private static final long serialVersionUID = 2938471750362017684L;
+
+	private final TSPSource tspSource;
+
+	private final transient ContentTimestampCache contentTimestampCache;
+
+	public CachingTSPSource(TSPSource tspSource, ContentTimestampCache contentTimestampCache) {
+		this.tspSource = tspSource;
+		this.contentTimestampCache = contentTimestampCache;
+	}
+
+	@Override
+	public TimestampBinary getTimeStampResponse(DigestAlgorithm digestAlgorithm, byte[] digest) {
+		return contentTimestampCache.getTimeStampResponse(tspSource, digestAlgorithm, digest);
+	}
+
+}
@@ -0,0 +1,335 @@
+package eu.europa.esig.dss.web.tsp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.utils.Utils;
+
+/**
+ * Spreads the timestamp requests over several TSAs. Each request goes first to the TSA with the lowest expected cost,
+ * which is its moving average latency plus its moving average error rate times the {@code timeout}. When this TSA
+ * fails or does not answer in time, the next one is tried, until all the TSAs are tried or the {@code timeout} of the
+ * request is over. Each TSA gets an equal share of the remaining time with the TSAs left to try, so that a slow TSA
+ * cannot use up the whole {@code timeout}. The TSAs with the same cost are tried in a random order.
+ * <p>
+ * The requests are sent on a pool of {@code threads} threads with a queue of {@code queueSize} requests, a request is
+ * rejected when both are full. A request which is not answered in time is abandoned, but its thread is only released
+ * by the connection and socket timeouts of the data loader of the TSA, which must not exceed the {@code timeout}.
+ * <p>
+ * After {@code failureThreshold} consecutive failures, a TSA is not used for {@code openDuration} milliseconds. Then a
+ * single request is sent to it : the TSA is used again if this request succeeds, or put aside again otherwise.
+ */
+public class CompositeTSPSource implements TSPSource {
+
+	private static final long serialVersionUID = -6190384768731457126L;
+
+	private static final Logger LOG = LoggerFactory.getLogger(CompositeTSPSource.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final List<Endpoint> endpoints = new ArrayList<>();
+
+	private long timeout = 10000;
+
+	private int failureThreshold = 3;
+
+	private long openDuration = 30000;
+
+	private double smoothing = 0.2;
+
+	private int threads = 16;
+
+	private int queueSize = 64;
+
+	private final transient AtomicInteger threadNumber = new AtomicInteger();
+
+	private transient volatile ThreadPoolExecutor executor;
+
+	/**
+	 * @param tspSources
+	 *            the TSAs by name
+	 */
+	public CompositeTSPSource(Map<String, TSPSource> tspSources) {
+		if (Utils.isMapEmpty(tspSources)) {
+			throw new DSSException("At least one TSPSource is required");
+		}
+		for (Map.Entry<String, TSPSource> entry : tspSources.entrySet()) {
+			endpoints.add(new Endpoint(entry.getKey(), entry.getValue()));
+		}
+	}
+
+	/**
+	 * @param timeout
+	 *            the maximum time in milliseconds to get a timestamp, all the TSAs tried included
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public void setFailureThreshold(int failureThreshold) {
+		this.failureThreshold = failureThreshold;
+	}
+
+	public void setOpenDuration(long openDuration) {
+		this.openDuration = openDuration;
+	}
+
+	/**
+	 * @param smoothing
+	 *            the weight of the last request in the moving averages, between 0 and 1
+	 */
+	public void setSmoothing(double smoothing) {
+		this.smoothing = smoothing;
+	}
+
+	/**
+	 * @param threads
+	 *            the maximum number of requests sent at the same time
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * @param queueSize
+	 *            the maximum number of requests waiting for a thread
+	 */
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public void shutdown() {
+		ThreadPoolExecutor current = executor;
+		if (current != null) {
+			current.shutdownNow();
+		}
+	}
+
+	@Override
+	public TimestampBinary getTimeStampResponse(DigestAlgorithm digestAlgorithm, byte[] digest) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		List<Endpoint> candidates = new ArrayList<>(endpoints);
+		// the sort is stable, the TSAs with the same cost stay in a random order
+		Collections.shuffle(candidates, ThreadLocalRandom.current());
+		candidates.sort((e1, e2) -> Double.compare(e1.getCost(), e2.getCost()));
+
+		Exception lastException = null;
+		int tried = 0;
+		for (int i = 0; i < candidates.size(); i++) {
+			Endpoint endpoint = candidates.get(i);
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				break;
+			}
+			if (!endpoint.tryAcquire()) {
+				continue;
+			}
+			tried++;
+			// the last TSA gets all the remaining time
+			long attemptTimeout = remaining / (candidates.size() - i);
+			long start = System.nanoTime();
+			Future<TimestampBinary> future;
+			try {
+				future = getExecutor().submit(() -> endpoint.tspSource.getTimeStampResponse(digestAlgorithm, digest));
+			} catch (RejectedExecutionException e) {
+				endpoint.release();
+				throw new DSSException("Too many timestamp requests in progress", e);
+			}
+			try {
+				TimestampBinary timestampBinary = future.get(attemptTimeout, TimeUnit.NANOSECONDS);
+				endpoint.onSuccess(System.nanoTime() - start);
+				return timestampBinary;
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				endpoint.onFailure(System.nanoTime() - start);
+				LOG.warn("The TSA '{}' did not answer in time", endpoint.name);
+				lastException = e;
+			} catch (ExecutionException e) {
+				endpoint.onFailure(System.nanoTime() - start);
+				LOG.warn("The TSA '{}' failed : {}", endpoint.name, e.getCause().getMessage());
+				lastException = e;
+			} catch (InterruptedException e) {
+				future.cancel(true);
+				endpoint.release();
+				Thread.currentThread().interrupt();
+				throw new DSSException("Interrupted while waiting for the timestamp", e);
+			}
+		}
+		if (tried == 0) {
+			throw new DSSException("No TSA available, all the circuits are open");
+		}
+		throw new DSSException(String.format("Unable to get a timestamp from %s TSA(s) in %s ms", tried, timeout),
+				lastException instanceof ExecutionException ? lastException.getCause() : lastException);
+	}
+
+	private ThreadPoolExecutor getExecutor() {
+		ThreadPoolExecutor current = executor;
+		if (current == null) {
+			synchronized (this) {
+				current = executor;
+				if (current == null) {
+					current = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+						Thread thread = new Thread(r, "tsp-pool-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+					current.allowCoreThreadTimeOut(true);
+					executor = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		for (Endpoint endpoint : endpoints) {
+			metrics.put(endpoint.name, endpoint.getMetrics());
+		}
+		return metrics;
+	}
+
+	/**
+	 * @param name
+	 *            the name of the TSA
+	 * @return the state of the circuit of the TSA
+	 */
+	public State getState(String name) {
+		for (Endpoint endpoint : endpoints) {
+			if (endpoint.name.equals(name)) {
+				return endpoint.getState();
+			}
+		}
+		throw new DSSException("Unknown TSA : " + name);
+	}
+
+	/**
+	 * A TSA with its moving averages and the state of its circuit
+	 */
+	private class Endpoint {
+
+		private final String name;
+
+		private final TSPSource tspSource;
+
+		private State state = State.CLOSED;
+
+		private long openUntil;
+
+		private int consecutiveFailures;
+
+		private double latency;
+
+		private double errorRate;
+
+		private long requests;
+
+		private long failures;
+
+		Endpoint(String name, TSPSource tspSource) {
+			this.name = name;
+			this.tspSource = tspSource;
+		}
+
+		synchronized double getCost() {
+			return latency + errorRate * timeout;
+		}
+
+		synchronized State getState() {
+			return state;
+		}
+
+		/**
+		 * @return true if a request can be sent to the TSA, the single request of a half-open circuit included
+		 */
+		synchronized boolean tryAcquire() {
+			switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (System.currentTimeMillis() >= openUntil) {
+					state = State.HALF_OPEN;
+					LOG.info("Trying the TSA '{}' again", name);
+					return true;
+				}
+				return false;
+			default:
+				// a request is already checking the TSA
+				return false;
+			}
+		}
+
+		/* The request was not sent to the end */
+		synchronized void release() {
+			if (state == State.HALF_OPEN) {
+				state = State.OPEN;
+			}
+		}
+
+		synchronized void onSuccess(long nanos) {
+			requests++;
+			update(nanos, 0);
+			consecutiveFailures = 0;
+			if (state != State.CLOSED) {
+				LOG.info("The TSA '{}' is used again", name);
+				state = State.CLOSED;
+			}
+		}
+
+		synchronized void onFailure(long nanos) {
+			requests++;
+			failures++;
+			update(nanos, 1);
+			consecutiveFailures++;
+			if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+				LOG.warn("The TSA '{}' is put aside for {} ms after {} consecutive failures", name, openDuration, consecutiveFailures);
+				state = State.OPEN;
+				openUntil = System.currentTimeMillis() + openDuration;
+			}
+		}
+
+		private void update(long nanos, int error) {
+			double millis = nanos / 1000000d;
+			if (requests == 1) {
+				latency = millis;
+				errorRate = error;
+			} else {
+				latency = smoothing * millis + (1 - smoothing) * latency;
+				errorRate = smoothing * error + (1 - smoothing) * errorRate;
+			}
+		}
+
+		synchronized Map<String, Object> getMetrics() {
+			Map<String, Object> metrics = new LinkedHashMap<>();
+			metrics.put("state", state);
+			metrics.put("averageLatencyMs", latency);
+			metrics.put("averageErrorRate", errorRate);
+			metrics.put("requests", requests);
+			metrics.put("failures", failures);
+			return metrics;
+		}
+
+	}
+
+}
@@ -0,0 +1,143 @@
+package eu.europa.esig.dss.web;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import eu.europa.esig.dss.web.config.DSSBeanConfig;
+import eu.europa.esig.dss.web.config.MockCMDConfig;
+import eu.europa.esig.dss.web.config.WebConfig;
+import eu.europa.esig.dss.web.model.CMDOTPForm;
+
+/**
+ * Runs complete CMD signature flows (form, OTP request, OTP validation, download) concurrently against the local CMD
+ * stand-in and reports the latency percentiles and the throughput.
+ */
+@WebAppConfiguration
+@ContextConfiguration(classes = { DSSBeanConfig.class, WebConfig.class, MockCMDConfig.class })
+@TestPropertySource(properties = { "cmd.mock.latency=200" })
+@ExtendWith(SpringExtension.class)
+public class CMDSignatureStressApp {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CMDSignatureStressApp.class);
+
+	@Autowired
+	private WebApplicationContext webApplicationContext;
+
+	@Test
+	public void test() throws Exception {
+
+		MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+		byte[] document = Files.readAllBytes(new File("src/test/resources/sample.xml").toPath());
+
+		ExecutorService executor = Executors.newFixedThreadPool(50);
+
+		List<Future<Long>> futures = new ArrayList<Future<Long>>();
+
+		int nbReq = 500;
+		long startNanoTime = System.nanoTime();
+
+		for (int i = 0; i < nbReq; i++) {
+			futures.add(executor.submit(new SignatureFlow(mockMvc, document)));
+		}
+
+		List<Long> latencies = new ArrayList<Long>();
+		for (Future<Long> future : futures) {
+			latencies.add(future.get());
+		}
+
+		long endNanoTime = System.nanoTime();
+		long totalTime = endNanoTime - startNanoTime;
+
+		Collections.sort(latencies);
+
+		LOG.info("Time : {} ms", TimeUnit.NANOSECONDS.toMillis(totalTime));
+		LOG.info("Throughput : {} flows/s", nbReq * TimeUnit.SECONDS.toNanos(1) / totalTime);
+		LOG.info("Latency p50 : {} ms", percentile(latencies, 50));
+		LOG.info("Latency p95 : {} ms", percentile(latencies, 95));
+		LOG.info("Latency p99 : {} ms", percentile(latencies, 99));
+
+		executor.shutdown();
+
+	}
+
+	private long percentile(List<Long> sortedLatencies, int percentile) {
+		int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.size()) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sortedLatencies.get(Math.max(index, 0)));
+	}
+
+	class SignatureFlow implements Callable<Long> {
+
+		private final MockMvc mockMvc;
+
+		private final byte[] document;
+
+		public SignatureFlow(MockMvc mockMvc, byte[] document) {
+			this.mockMvc = mockMvc;
+			this.document = document;
+		}
+
+		@Override
+		public Long call() throws Exception {
+			long start = System.nanoTime();
+			MockHttpSession session = new MockHttpSession();
+
+			mockMvc.perform(get("/cmd-sign-a-document").session(session)).andExpect(status().isOk());
+
+			MvcResult otpRequest = mockMvc.perform(multipart("/cmd-sign-a-document")
+					.file(new MockMultipartFile("documentToSign", "sample.xml", "text/xml", document))
+					.param("signatureForm", "XAdES")
+					.param("signaturePackaging", "ENVELOPED")
+					.param("signatureLevel", "XAdES_BASELINE_B")
+					.param("digestAlgorithm", "SHA256")
+					.param("userId", "+351 912345678")
+					.param("userPin", "1234")
+					.session(session))
+					.andExpect(view().name("cmd-signature-get-otp")).andReturn();
+			CMDOTPForm cmdOtpForm = (CMDOTPForm) otpRequest.getModelAndView().getModel().get("cmdOtpForm");
+
+			MvcResult signed = mockMvc.perform(post("/cmd-sign-a-document/sign-document").param("processId", cmdOtpForm.getProcessId())
+					.param("userOtp", "123456").session(session))
+					.andExpect(view().name("cmd-signature-signed")).andReturn();
+			String downloadToken = (String) signed.getModelAndView().getModel().get("downloadToken");
+
+			MvcResult result = mockMvc.perform(get("/cmd-sign-a-document/sign-document/download").param("token", downloadToken).session(session))
+					.andExpect(status().isOk()).andReturn();
+			assertTrue(result.getResponse().getContentAsByteArray().length > 0);
+
+			return System.nanoTime() - start;
+		}
+
+	}
+
+}
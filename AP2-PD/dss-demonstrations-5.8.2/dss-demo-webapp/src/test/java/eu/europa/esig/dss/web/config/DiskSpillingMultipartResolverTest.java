@@ -0,0 +1,142 @@
+package eu.europa.esig.dss.web.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.apache.commons.fileupload.disk.DiskFileItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.commons.CommonsMultipartFile;
+
+public class DiskSpillingMultipartResolverTest {
+
+	private static final String BOUNDARY = "----dss-boundary";
+
+	private static final String FLOW = "signatureDocumentForm";
+
+	private DiskSpillingMultipartResolver resolver;
+
+	@BeforeEach
+	public void init() {
+		resolver = new DiskSpillingMultipartResolver();
+		resolver.setMaxInMemorySize(MultipartFormDataFilter.MAX_IN_MEMORY_SIZE);
+	}
+
+	@AfterEach
+	public void destroy() {
+		resolver.shutdown();
+	}
+
+	@Test
+	public void deletedAtTheEndOfTheRequest() throws Exception {
+		MultipartHttpServletRequest request = resolver.resolveMultipart(newUploadRequest(new MockHttpSession()));
+		File file = getTemporaryFile(request);
+
+		resolver.cleanupMultipart(request);
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void keptUntilTheEndOfTheFlow() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MultipartHttpServletRequest request = resolver.resolveMultipart(newUploadRequest(session));
+		File file = getTemporaryFile(request);
+
+		DiskSpillingMultipartResolver.keepUploads(request, FLOW);
+		resolver.cleanupMultipart(request);
+		assertTrue(file.exists());
+
+		DiskSpillingMultipartResolver.releaseUploads(session, FLOW);
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void keptThroughARequestWrapper() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MultipartHttpServletRequest request = resolver.resolveMultipart(newUploadRequest(session));
+		File file = getTemporaryFile(request);
+
+		// the controllers receive the request wrapped by the security filters
+		DiskSpillingMultipartResolver.keepUploads(new HttpServletRequestWrapper(request), FLOW);
+		resolver.cleanupMultipart(request);
+		assertTrue(file.exists());
+
+		DiskSpillingMultipartResolver.releaseUploads(session, FLOW);
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void deletedWhenTheFlowIsStartedAgain() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MultipartHttpServletRequest first = resolver.resolveMultipart(newUploadRequest(session));
+		File firstFile = getTemporaryFile(first);
+		DiskSpillingMultipartResolver.keepUploads(first, FLOW);
+		resolver.cleanupMultipart(first);
+
+		MultipartHttpServletRequest second = resolver.resolveMultipart(newUploadRequest(session));
+		File secondFile = getTemporaryFile(second);
+		DiskSpillingMultipartResolver.keepUploads(second, FLOW);
+		resolver.cleanupMultipart(second);
+
+		assertFalse(firstFile.exists());
+		assertTrue(secondFile.exists());
+
+		DiskSpillingMultipartResolver.releaseUploads(session, FLOW);
+		assertFalse(secondFile.exists());
+	}
+
+	@Test
+	public void deletedWhenTheSessionEnds() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MultipartHttpServletRequest request = resolver.resolveMultipart(newUploadRequest(session));
+		File file = getTemporaryFile(request);
+
+		DiskSpillingMultipartResolver.keepUploads(request, FLOW);
+		resolver.cleanupMultipart(request);
+		assertTrue(file.exists());
+
+		session.invalidate();
+		assertFalse(file.exists());
+	}
+
+	private File getTemporaryFile(MultipartHttpServletRequest request) {
+		CommonsMultipartFile multipartFile = (CommonsMultipartFile) request.getFile("documentToSign");
+		assertNotNull(multipartFile);
+		File file = ((DiskFileItem) multipartFile.getFileItem()).getStoreLocation();
+		assertTrue(file.exists());
+		return file;
+	}
+
+	private MockHttpServletRequest newUploadRequest(MockHttpSession session) throws Exception {
+		// above the in-memory threshold
+		byte[] content = new byte[MultipartFormDataFilter.MAX_IN_MEMORY_SIZE * 2];
+		Arrays.fill(content, (byte) 'a');
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(("--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"documentToSign\"; filename=\"sample.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.write(content);
+		body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/sign-a-document");
+		request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+		request.setCharacterEncoding("UTF-8");
+		request.setContent(body.toByteArray());
+		request.setSession(session);
+		return request;
+	}
+
+}
@@ -0,0 +1,45 @@
+package eu.europa.esig.dss.web.config;
+
+import java.io.IOException;
+import java.security.KeyStore.PasswordProtection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+import eu.europa.esig.dss.web.service.CMDConnectorPool;
+import eu.europa.esig.dss.web.service.MockCMDSignature;
+
+/**
+ * Replaces the CMD service by the local {@link MockCMDSignature}, signing with user_a_rsa.p12 (latency in
+ * milliseconds given by {@code cmd.mock.latency})
+ */
+@Configuration
+public class MockCMDConfig {
+
+	@Value("${cmd.mock.latency:0}")
+	private long cmdMockLatency;
+
+	@Value("${cmd.otp.validity}")
+	private long cmdOtpValidity;
+
+	@Value("${cmd.pool.size}")
+	private int cmdPoolSize;
+
+	@Bean(destroyMethod = "close")
+	@Primary
+	public CMDConnectorPool mockCMDConnectorPool() throws IOException {
+		KeyStoreSignatureTokenConnection token = new KeyStoreSignatureTokenConnection(new ClassPathResource("user_a_rsa.p12").getFile(),
+				"PKCS12", new PasswordProtection("password".toCharArray()));
+		MockCMDSignature mockCMDSignature = new MockCMDSignature(token, cmdOtpValidity);
+		mockCMDSignature.setLatency(cmdMockLatency);
+
+		CMDConnectorPool pool = new CMDConnectorPool(() -> mockCMDSignature);
+		pool.setMaxSize(cmdPoolSize);
+		return pool;
+	}
+
+}
@@ -0,0 +1,118 @@
+package eu.europa.esig.dss.web.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.web.service.BatchValidationService;
+import eu.europa.esig.dss.web.service.ValidationPolicyCache;
+import eu.europa.esig.dss.web.service.ValidationReportsCache;
+
+public class BatchValidationControllerTest {
+
+	private BatchValidationService batchValidationService;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void init() {
+		ValidationPolicyCache validationPolicyCache = new ValidationPolicyCache();
+		ReflectionTestUtils.setField(validationPolicyCache, "maxSize", 10L);
+		ReflectionTestUtils.setField(validationPolicyCache, "defaultPolicy", new ClassPathResource("policy/constraint.xml"));
+		validationPolicyCache.init();
+
+		ValidationReportsCache validationReportsCache = new ValidationReportsCache();
+		ReflectionTestUtils.setField(validationReportsCache, "maxSize", 10L);
+		ReflectionTestUtils.setField(validationReportsCache, "ttl", 60L);
+		ReflectionTestUtils.setField(validationReportsCache, "timeBucket", 60L);
+		validationReportsCache.init();
+
+		batchValidationService = new BatchValidationService();
+		ReflectionTestUtils.setField(batchValidationService, "threads", 2);
+		ReflectionTestUtils.setField(batchValidationService, "queueSize", 10);
+		ReflectionTestUtils.setField(batchValidationService, "maxFiles", 10);
+		ReflectionTestUtils.setField(batchValidationService, "maxEntrySize", 1L);
+		ReflectionTestUtils.setField(batchValidationService, "maxArchiveSize", 2L);
+		ReflectionTestUtils.setField(batchValidationService, "certificateVerifier", new CommonCertificateVerifier());
+		ReflectionTestUtils.setField(batchValidationService, "validationPolicyCache", validationPolicyCache);
+		ReflectionTestUtils.setField(batchValidationService, "validationReportsCache", validationReportsCache);
+		ReflectionTestUtils.setField(batchValidationService, "objectMapper", new ObjectMapper());
+		batchValidationService.init();
+
+		BatchValidationController controller = new BatchValidationController();
+		ReflectionTestUtils.setField(controller, "batchValidationService", batchValidationService);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+	}
+
+	@AfterEach
+	public void destroy() {
+		batchValidationService.destroy();
+	}
+
+	@Test
+	public void oneLinePerFile() throws Exception {
+		MockMultipartFile archive = zip("first.txt", "not signed".getBytes(StandardCharsets.UTF_8), "second.txt",
+				"not signed either".getBytes(StandardCharsets.UTF_8));
+
+		MvcResult result = mockMvc.perform(multipart("/batch-validation").file(archive))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+				.andReturn();
+
+		String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+		assertEquals(2, lines.length);
+		ObjectMapper objectMapper = new ObjectMapper();
+		Set<String> names = new HashSet<>();
+		for (String line : lines) {
+			JsonNode node = objectMapper.readTree(line);
+			names.add(node.get("name").asText());
+			// not a signed file
+			assertTrue(node.hasNonNull("error"));
+		}
+		assertEquals(2, names.size());
+	}
+
+	@Test
+	public void archiveTooLarge() throws Exception {
+		MockMultipartFile archive = zip("bomb.txt", new byte[2 * 1024 * 1024]);
+
+		mockMvc.perform(multipart("/batch-validation").file(archive))
+				.andExpect(status().isPayloadTooLarge());
+	}
+
+	private MockMultipartFile zip(Object... namesAndContents) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			for (int i = 0; i < namesAndContents.length; i += 2) {
+				zos.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+				zos.write((byte[]) namesAndContents[i + 1]);
+				zos.closeEntry();
+			}
+		}
+		return new MockMultipartFile("archive", "archive.zip", "application/zip", baos.toByteArray());
+	}
+
+}
@@ -0,0 +1,105 @@
+package eu.europa.esig.dss.web.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import eu.europa.esig.dss.web.service.XSLTService;
+
+public class ValidationControllerTest {
+
+	private XSLTService xsltService;
+
+	private ValidationController controller;
+
+	private MockMvc mockMvc;
+
+	private MockHttpSession session;
+
+	@BeforeEach
+	public void init() throws Exception {
+		xsltService = new XSLTService();
+		xsltService.init();
+
+		controller = new ValidationController();
+		ReflectionTestUtils.setField(controller, "xsltService", xsltService);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+		session = new MockHttpSession();
+	}
+
+	@Test
+	public void detailedReport() throws Exception {
+		String detailedReport = read("detailedReport.xml");
+		String id = controller.storeDetailedReport(session, detailedReport);
+
+		MvcResult result = mockMvc.perform(get("/validation/detailed-report").param("id", id).session(session))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("text/html;charset=UTF-8"))
+				.andReturn();
+
+		assertEquals(xsltService.generateDetailedReport(detailedReport), result.getResponse().getContentAsString());
+	}
+
+	@Test
+	public void detailedReportOfItsOwnValidation() throws Exception {
+		String first = read("detailedReport.xml");
+		String firstId = controller.storeDetailedReport(session, first);
+		// another file validated in a second tab
+		String second = read("detailed-report-multi-signatures.xml");
+		String secondId = controller.storeDetailedReport(session, second);
+
+		MvcResult result = mockMvc.perform(get("/validation/detailed-report").param("id", firstId).session(session))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertEquals(xsltService.generateDetailedReport(first), result.getResponse().getContentAsString());
+
+		result = mockMvc.perform(get("/validation/detailed-report").param("id", secondId).session(session))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertEquals(xsltService.generateDetailedReport(second), result.getResponse().getContentAsString());
+	}
+
+	@Test
+	public void oldestDetailedReportsRemoved() throws Exception {
+		String id = controller.storeDetailedReport(session, read("detailedReport.xml"));
+		for (int i = 0; i < 10; i++) {
+			controller.storeDetailedReport(session, read("detailedReport.xml"));
+		}
+
+		mockMvc.perform(get("/validation/detailed-report").param("id", id).session(session)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void noDetailedReport() throws Exception {
+		mockMvc.perform(get("/validation/detailed-report").param("id", "unknown").session(session)).andExpect(status().isNotFound());
+
+		String id = controller.storeDetailedReport(session, " ");
+		mockMvc.perform(get("/validation/detailed-report").param("id", id).session(session)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void malformedDetailedReport() throws Exception {
+		String id = controller.storeDetailedReport(session, "<DetailedReport");
+
+		mockMvc.perform(get("/validation/detailed-report").param("id", id).session(session))
+				.andExpect(status().isInternalServerError());
+	}
+
+	private String read(String file) throws Exception {
+		return new String(Files.readAllBytes(new File("src/test/resources/" + file).toPath()), StandardCharsets.UTF_8);
+	}
+
+}
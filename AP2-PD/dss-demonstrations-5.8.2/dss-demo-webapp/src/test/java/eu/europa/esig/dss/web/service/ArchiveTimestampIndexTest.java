@@ -0,0 +1,127 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.web.model.ArchivedSignature;
+
+public class ArchiveTimestampIndexTest {
+
+	private static final long DAY = 86400000L;
+
+	private HikariDataSource dataSource;
+
+	private ArchiveTimestampIndex index;
+
+	@BeforeEach
+	public void init() throws Exception {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:hsqldb:mem:archivetimestamps");
+		dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		// same as PersistenceConfig
+		dataSource.setAutoCommit(false);
+
+		index = new ArchiveTimestampIndex(dataSource);
+		index.initTable();
+	}
+
+	@AfterEach
+	public void destroy() throws Exception {
+		index.destroyTable();
+		dataSource.close();
+	}
+
+	@Test
+	public void saveAndSelectDue() {
+		long now = System.currentTimeMillis();
+		index.save(archivedSignature("later.xml", 1000, new Date(now + 10 * DAY)));
+		index.save(archivedSignature("first.xml", 2000, new Date(now + DAY)));
+		index.save(archivedSignature("second.xml", 3000, new Date(now + 2 * DAY)));
+		index.save(archivedSignature("unsigned.txt", 4000, null));
+
+		List<ArchivedSignature> due = index.getDue(new Date(now + 5 * DAY), 10);
+		assertEquals(2, due.size());
+		assertEquals("first.xml", due.get(0).getPath());
+		assertEquals("second.xml", due.get(1).getPath());
+		assertEquals(2000, due.get(0).getLastModified());
+		assertEquals(SignatureForm.XAdES, due.get(0).getSignatureForm());
+		assertEquals(ASiCContainerType.ASiC_E, due.get(0).getContainerType());
+
+		// the earliest first
+		due = index.getDue(new Date(now + 5 * DAY), 1);
+		assertEquals(1, due.size());
+		assertEquals("first.xml", due.get(0).getPath());
+	}
+
+	@Test
+	public void saveReplaces() {
+		long now = System.currentTimeMillis();
+		index.save(archivedSignature("signature.xml", 1000, new Date(now + DAY)));
+		index.save(archivedSignature("signature.xml", 2000, new Date(now + 10 * DAY)));
+
+		assertTrue(index.getDue(new Date(now + 5 * DAY), 10).isEmpty());
+		assertEquals(1, index.getDue(new Date(now + 20 * DAY), 10).size());
+		assertEquals(Long.valueOf(2000), index.getModificationTimes(0).get("signature.xml"));
+	}
+
+	@Test
+	public void modificationTimesSince() {
+		index.save(archivedSignature("old.xml", 1000, null));
+		index.save(archivedSignature("recent.xml", 3000, null));
+		index.save(archivedSignature("last.xml", 3000, null));
+
+		Map<String, Long> modificationTimes = index.getModificationTimes(3000);
+		assertEquals(2, modificationTimes.size());
+		assertEquals(Long.valueOf(3000), modificationTimes.get("recent.xml"));
+		assertNull(modificationTimes.get("old.xml"));
+	}
+
+	@Test
+	public void delete() {
+		long now = System.currentTimeMillis();
+		index.save(archivedSignature("signature.xml", 1000, new Date(now)));
+		index.delete("signature.xml");
+
+		assertTrue(index.getDue(new Date(now + DAY), 10).isEmpty());
+		assertTrue(index.getModificationTimes(0).isEmpty());
+	}
+
+	@Test
+	public void lastScan() {
+		assertEquals(0, index.getLastScan());
+
+		index.setLastScan(1000);
+		index.setLastScan(2000);
+		assertEquals(2000, index.getLastScan());
+
+		// independent of the indexed files
+		index.save(archivedSignature("signature.xml", 5000, null));
+		assertEquals(2000, index.getLastScan());
+	}
+
+	private ArchivedSignature archivedSignature(String path, long lastModified, Date expirationTime) {
+		ArchivedSignature archivedSignature = new ArchivedSignature();
+		archivedSignature.setPath(path);
+		archivedSignature.setLastModified(lastModified);
+		archivedSignature.setExpirationTime(expirationTime);
+		archivedSignature.setSignatureForm(SignatureForm.XAdES);
+		archivedSignature.setContainerType(ASiCContainerType.ASiC_E);
+		return archivedSignature;
+	}
+
+}
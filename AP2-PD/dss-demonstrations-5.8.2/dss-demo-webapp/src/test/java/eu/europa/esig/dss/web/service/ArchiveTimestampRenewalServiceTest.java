@@ -0,0 +1,210 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.web.model.ArchivedSignature;
+
+public class ArchiveTimestampRenewalServiceTest {
+
+	private static final long DAY = 86400000L;
+
+	private static final long LAST_MODIFIED = 1600000000000L;
+
+	@TempDir
+	File archiveDirectory;
+
+	private HikariDataSource dataSource;
+
+	private ArchiveTimestampIndex index;
+
+	private StubSigningService signingService;
+
+	private long now;
+
+	@BeforeEach
+	public void init() throws Exception {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:hsqldb:mem:archiverenewal");
+		dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		dataSource.setAutoCommit(false);
+
+		index = new ArchiveTimestampIndex(dataSource);
+		index.initTable();
+		signingService = new StubSigningService();
+		now = System.currentTimeMillis();
+	}
+
+	@AfterEach
+	public void destroy() throws Exception {
+		index.destroyTable();
+		dataSource.close();
+	}
+
+	@Test
+	public void dueSignaturesRenewedEarliestFirst() throws Exception {
+		archive("second.xml", now + 2 * DAY);
+		archive("first.xml", now + DAY);
+		archive("later.xml", now + 200 * DAY);
+
+		newService(10).renew();
+
+		assertEquals(Arrays.asList("first.xml", "second.xml"), signingService.extended);
+		assertEquals("renewed", new String(Files.readAllBytes(archiveDirectory.toPath().resolve("first.xml")), StandardCharsets.UTF_8));
+		// indexed again with the extended file
+		assertTrue(index.getDue(new Date(now + 90 * DAY), 10).isEmpty());
+	}
+
+	@Test
+	public void atMostBatchSizeRenewed() throws Exception {
+		archive("second.xml", now + 2 * DAY);
+		archive("first.xml", now + DAY);
+
+		newService(1).renew();
+
+		assertEquals(Collections.singletonList("first.xml"), signingService.extended);
+		assertEquals(1, index.getDue(new Date(now + 90 * DAY), 10).size());
+	}
+
+	@Test
+	public void failedRenewalRetriedAfterTheHorizon() throws Exception {
+		archive("fail.xml", now + DAY);
+
+		newService(10).renew();
+
+		assertEquals(Collections.singletonList("fail.xml"), signingService.extended);
+		assertTrue(index.getDue(new Date(now + 90 * DAY), 10).isEmpty());
+		assertEquals(1, index.getDue(new Date(now + 92 * DAY), 10).size());
+	}
+
+	@Test
+	public void deletedFileRemovedFromTheIndex() throws Exception {
+		archive("deleted.xml", now + DAY);
+		Files.delete(archiveDirectory.toPath().resolve("deleted.xml"));
+
+		newService(10).renew();
+
+		assertTrue(signingService.extended.isEmpty());
+		assertTrue(index.getDue(new Date(now + 200 * DAY), 10).isEmpty());
+	}
+
+	@Test
+	public void modifiedFileParsedAgain() throws Exception {
+		archive("modified.xml", now + DAY);
+		Files.setLastModifiedTime(archiveDirectory.toPath().resolve("modified.xml"), FileTime.fromMillis(LAST_MODIFIED + 1000));
+
+		newService(10).renew();
+
+		// not a signature once parsed again
+		assertTrue(signingService.extended.isEmpty());
+		assertTrue(index.getDue(new Date(now + 200 * DAY), 10).isEmpty());
+	}
+
+	@Test
+	public void newFileIndexed() throws Exception {
+		archive("indexed.xml", now + 200 * DAY);
+		Path directory = Files.createDirectories(archiveDirectory.toPath().resolve("sub"));
+		Path added = Files.write(directory.resolve("added.xml"), new byte[0]);
+		Files.setLastModifiedTime(added, FileTime.fromMillis(LAST_MODIFIED + 1000));
+
+		newService(10).renew();
+
+		assertTrue(index.getLastScan() >= now);
+		assertTrue(index.getModificationTimes(LAST_MODIFIED + 1000).containsKey("sub/added.xml"));
+	}
+
+	@Test
+	public void fileAddedBeforeARenewalIndexed() throws Exception {
+		archive("due.xml", now + DAY);
+		ArchiveTimestampRenewalService service = newService(10);
+		service.renew();
+
+		// added after the scan, but before the renewed file was written
+		long lastScan = index.getLastScan();
+		Path renewed = archiveDirectory.toPath().resolve("due.xml");
+		Files.setLastModifiedTime(renewed, FileTime.fromMillis(lastScan + 60000));
+		index.save(indexed("due.xml", lastScan + 60000, now + 200 * DAY));
+		Path added = Files.write(archiveDirectory.toPath().resolve("added.xml"), new byte[0]);
+		Files.setLastModifiedTime(added, FileTime.fromMillis(lastScan + 1000));
+
+		service.renew();
+
+		assertTrue(index.getModificationTimes(0).containsKey("added.xml"));
+	}
+
+	private void archive(String name, long expirationTime) throws Exception {
+		Path file = Files.write(archiveDirectory.toPath().resolve(name), name.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+		index.save(indexed(name, LAST_MODIFIED, expirationTime));
+	}
+
+	private ArchivedSignature indexed(String name, long lastModified, long expirationTime) {
+		ArchivedSignature archivedSignature = new ArchivedSignature();
+		archivedSignature.setPath(name);
+		archivedSignature.setLastModified(lastModified);
+		archivedSignature.setExpirationTime(new Date(expirationTime));
+		archivedSignature.setSignatureForm(SignatureForm.XAdES);
+		return archivedSignature;
+	}
+
+	private ArchiveTimestampRenewalService newService(int batchSize) {
+		ArchiveTimestampRenewalService service = new ArchiveTimestampRenewalService();
+		ReflectionTestUtils.setField(service, "archiveDirectory", archiveDirectory.getAbsolutePath());
+		ReflectionTestUtils.setField(service, "horizon", 90L);
+		ReflectionTestUtils.setField(service, "batchSize", batchSize);
+		ReflectionTestUtils.setField(service, "algorithmExpirations", "SHA1:2009-01-01");
+		ReflectionTestUtils.setField(service, "signingService", signingService);
+		ReflectionTestUtils.setField(service, "certificateVerifier", new CommonCertificateVerifier());
+		ReflectionTestUtils.setField(service, "archiveTimestampIndex", index);
+		service.init();
+		return service;
+	}
+
+	/**
+	 * Records the extended files instead of adding an archive timestamp, fails on the files named fail.xml
+	 */
+	private static class StubSigningService extends SigningService {
+
+		private final List<String> extended = new CopyOnWriteArrayList<>();
+
+		@Override
+		public DSSDocument extend(DSSDocument signedDocument, List<DSSDocument> originalDocuments, ASiCContainerType containerType,
+				SignatureForm signatureForm, SignatureLevel signatureLevel) {
+			extended.add(signedDocument.getName());
+			if ("fail.xml".equals(signedDocument.getName())) {
+				throw new DSSException("Unable to extend");
+			}
+			return new InMemoryDocument("renewed".getBytes(StandardCharsets.UTF_8));
+		}
+
+	}
+
+}
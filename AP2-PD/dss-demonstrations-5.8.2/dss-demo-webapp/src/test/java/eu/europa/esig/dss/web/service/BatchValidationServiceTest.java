@@ -0,0 +1,115 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.web.exception.PayloadTooLargeException;
+
+public class BatchValidationServiceTest {
+
+	private static final int MB = 1024 * 1024;
+
+	@Test
+	public void archive() throws Exception {
+		MockMultipartFile archive = zip(new Entry("signed/first.xml", "first"), new Entry("signed/", (String) null),
+				new Entry("second.pdf", "second"));
+		MockMultipartFile file = new MockMultipartFile("files", "third.xml", "text/xml", "third".getBytes(StandardCharsets.UTF_8));
+
+		List<DSSDocument> documents = newService().toDocuments(Collections.singletonList(file), archive);
+
+		assertEquals(3, documents.size());
+		assertEquals("third.xml", documents.get(0).getName());
+		assertEquals("signed/first.xml", documents.get(1).getName());
+		assertArrayEquals("first".getBytes(StandardCharsets.UTF_8), Utils.toByteArray(documents.get(1).openStream()));
+		assertEquals("second.pdf", documents.get(2).getName());
+	}
+
+	@Test
+	public void entryAboveTheLimit() throws Exception {
+		// a few kilobytes once compressed
+		MockMultipartFile archive = zip(new Entry("small.xml", "small"), new Entry("bomb.xml", new byte[2 * MB]));
+
+		assertThrows(PayloadTooLargeException.class, () -> newService().toDocuments(null, archive));
+	}
+
+	@Test
+	public void archiveAboveTheLimit() throws Exception {
+		byte[] content = new byte[MB * 3 / 4];
+		MockMultipartFile archive = zip(new Entry("first.xml", content), new Entry("second.xml", content), new Entry("third.xml", content));
+
+		assertThrows(PayloadTooLargeException.class, () -> newService().toDocuments(null, archive));
+	}
+
+	@Test
+	public void entryOutsideOfTheArchive() throws Exception {
+		BatchValidationService service = newService();
+
+		assertThrows(DSSException.class, () -> service.toDocuments(null, zip(new Entry("../signed.xml", "signed"))));
+		assertThrows(DSSException.class, () -> service.toDocuments(null, zip(new Entry("signed/../../signed.xml", "signed"))));
+		assertThrows(DSSException.class, () -> service.toDocuments(null, zip(new Entry("/tmp/signed.xml", "signed"))));
+	}
+
+	@Test
+	public void tooManyFiles() throws Exception {
+		BatchValidationService service = newService();
+		ReflectionTestUtils.setField(service, "maxFiles", 1);
+
+		assertThrows(DSSException.class, () -> service.toDocuments(null, zip(new Entry("first.xml", "first"), new Entry("second.xml", "second"))));
+	}
+
+	private BatchValidationService newService() {
+		BatchValidationService service = new BatchValidationService();
+		ReflectionTestUtils.setField(service, "maxFiles", 10);
+		ReflectionTestUtils.setField(service, "maxEntrySize", 1L);
+		ReflectionTestUtils.setField(service, "maxArchiveSize", 2L);
+		return service;
+	}
+
+	static MockMultipartFile zip(Entry... entries) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+			for (Entry entry : entries) {
+				zos.putNextEntry(new ZipEntry(entry.name));
+				if (entry.content != null) {
+					zos.write(entry.content);
+				}
+				zos.closeEntry();
+			}
+		}
+		return new MockMultipartFile("archive", "archive.zip", "application/zip", baos.toByteArray());
+	}
+
+	static class Entry {
+
+		private final String name;
+
+		private final byte[] content;
+
+		Entry(String name, String content) {
+			this(name, content != null ? content.getBytes(StandardCharsets.UTF_8) : null);
+		}
+
+		Entry(String name, byte[] content) {
+			this.name = name;
+			this.content = content;
+		}
+
+	}
+
+}
@@ -0,0 +1,173 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.utils.Utils;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.web.exception.ApplicationJsonRequestException;
+import eu.europa.esig.dss.web.model.BulkExtensionRequest;
+import eu.europa.esig.dss.web.model.BulkExtensionStatus;
+import eu.europa.esig.dss.web.model.BulkExtensionStatus.State;
+
+public class BulkExtensionServiceTest {
+
+	@TempDir
+	File bulkDirectory;
+
+	private BulkExtensionService service;
+
+	@BeforeEach
+	public void init() throws Exception {
+		service = newService(10);
+		service.init();
+
+		Path source = bulkDirectory.toPath().resolve("source");
+		Files.createDirectories(source.resolve("sub"));
+		Files.write(source.resolve("a.txt"), "a".getBytes(StandardCharsets.UTF_8));
+		Files.write(source.resolve("sub/b.txt"), "b".getBytes(StandardCharsets.UTF_8));
+		Files.write(source.resolve("fail.txt"), "fail".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@AfterEach
+	public void destroy() {
+		service.destroy();
+	}
+
+	@Test
+	public void logIntervalMustBePositive() {
+		assertThrows(DSSException.class, () -> newService(0).init());
+	}
+
+	@Test
+	public void extendDirectory() throws Exception {
+		BulkExtensionStatus status = run("source", "extended");
+
+		assertEquals(State.COMPLETED, status.getState());
+		assertEquals(3, status.getTotal());
+		assertEquals(2, status.getExtended());
+		assertEquals(1, status.getFailed());
+
+		Path target = bulkDirectory.toPath().resolve("extended");
+		assertEquals("extended a", new String(Files.readAllBytes(target.resolve("a.txt")), StandardCharsets.UTF_8));
+		assertEquals("extended b", new String(Files.readAllBytes(target.resolve("sub/b.txt")), StandardCharsets.UTF_8));
+		assertFalse(Files.exists(target.resolve("fail.txt")));
+	}
+
+	@Test
+	public void extendedFilesSkippedOnRestart() throws Exception {
+		run("source", "extended");
+		BulkExtensionStatus status = run("source", "extended");
+
+		assertEquals(3, status.getTotal());
+		assertEquals(2, status.getSkipped());
+		assertEquals(0, status.getExtended());
+		// the failed file is tried again
+		assertEquals(1, status.getFailed());
+	}
+
+	@Test
+	public void separatorInTheFileName() throws Exception {
+		Path source = bulkDirectory.toPath().resolve("names");
+		Files.createDirectories(source);
+		Files.write(source.resolve("a;b%3B.txt"), "a".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(1, run("names", "extended").getExtended());
+		BulkExtensionStatus status = run("names", "extended");
+		assertEquals(1, status.getSkipped());
+		assertEquals(0, status.getExtended());
+	}
+
+	@Test
+	public void targetInsideTheSourceNotExtended() throws Exception {
+		run("source", "source/extended");
+		BulkExtensionStatus status = run("source", "source/extended");
+
+		// neither the extended files nor the report are part of the source
+		assertEquals(3, status.getTotal());
+		assertEquals(2, status.getSkipped());
+		List<String> report = Files.readAllLines(bulkDirectory.toPath().resolve("source/extended/extension-report.csv"));
+		assertEquals(4, report.size());
+	}
+
+	@Test
+	public void targetEqualToTheSourceRejected() {
+		BulkExtensionRequest request = request("source", "source");
+		assertThrows(ApplicationJsonRequestException.class, () -> service.start(request));
+	}
+
+	private BulkExtensionStatus run(String source, String target) throws InterruptedException {
+		service.start(request(source, target));
+		BulkExtensionStatus status = service.getStatus();
+		long timeout = System.currentTimeMillis() + 10000;
+		while ((status.getState() == State.SCANNING || status.getState() == State.RUNNING) && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+			status = service.getStatus();
+		}
+		assertTrue(status.getEndTime() != null, "The bulk extension is not over");
+		return status;
+	}
+
+	private BulkExtensionRequest request(String source, String target) {
+		BulkExtensionRequest request = new BulkExtensionRequest();
+		request.setSource(source);
+		request.setTarget(target);
+		request.setSignatureForm(SignatureForm.XAdES);
+		request.setSignatureLevel(SignatureLevel.XAdES_BASELINE_LTA);
+		return request;
+	}
+
+	private BulkExtensionService newService(int logInterval) {
+		BulkExtensionService bulkExtensionService = new BulkExtensionService();
+		ReflectionTestUtils.setField(bulkExtensionService, "bulkDirectory", bulkDirectory.getAbsolutePath());
+		ReflectionTestUtils.setField(bulkExtensionService, "threads", 2);
+		ReflectionTestUtils.setField(bulkExtensionService, "logInterval", logInterval);
+		ReflectionTestUtils.setField(bulkExtensionService, "signingService", new StubSigningService());
+		ReflectionTestUtils.setField(bulkExtensionService, "certificateVerifier", new CommonCertificateVerifier());
+		return bulkExtensionService;
+	}
+
+	/**
+	 * Prefixes the content instead of extending the signatures, fails on the files named fail.txt
+	 */
+	private static class StubSigningService extends SigningService {
+
+		@Override
+		public DSSDocument extend(DSSDocument signedDocument, List<DSSDocument> originalDocuments, ASiCContainerType containerType,
+				SignatureForm signatureForm, SignatureLevel signatureLevel) {
+			if ("fail.txt".equals(signedDocument.getName())) {
+				throw new DSSException("Unable to extend");
+			}
+			try (InputStream is = signedDocument.openStream()) {
+				String content = new String(Utils.toByteArray(is), StandardCharsets.UTF_8);
+				return new InMemoryDocument(("extended " + content).getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new DSSException(e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.security.KeyStore.PasswordProtection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+
+public class CMDServiceTest {
+
+	private final AtomicInteger certificateRequests = new AtomicInteger();
+
+	private CMDConnectorPool pool;
+
+	private CMDService service;
+
+	@BeforeEach
+	public void init() throws IOException {
+		KeyStoreSignatureTokenConnection token = new KeyStoreSignatureTokenConnection(new ClassPathResource("user_a_rsa.p12").getFile(),
+				"PKCS12", new PasswordProtection("password".toCharArray()));
+		MockCMDSignature mockCMDSignature = new MockCMDSignature(token, 300) {
+
+			@Override
+			public String getCertificate(byte[] applicationId, String userId) {
+				certificateRequests.incrementAndGet();
+				return super.getCertificate(applicationId, userId);
+			}
+
+		};
+		mockCMDSignature.setLatency(200);
+		pool = new CMDConnectorPool(() -> mockCMDSignature);
+
+		CertificateTokenCache certificateTokenCache = new CertificateTokenCache();
+		ReflectionTestUtils.setField(certificateTokenCache, "maxSize", 100L);
+		certificateTokenCache.init();
+
+		service = new CMDService();
+		ReflectionTestUtils.setField(service, "connectorPool", pool);
+		ReflectionTestUtils.setField(service, "certificateTokenCache", certificateTokenCache);
+		ReflectionTestUtils.setField(service, "certificateCacheSize", 10L);
+		ReflectionTestUtils.setField(service, "certificateCacheTtl", 60L);
+		service.initCertificateCache();
+	}
+
+	@AfterEach
+	public void destroy() {
+		pool.close();
+	}
+
+	@Test
+	public void concurrentFirstRequestsLoadOnce() throws Exception {
+		int callers = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<List<CertificateToken>>> futures = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return service.getCertificatesOf("+351 912345678");
+				}));
+			}
+			start.countDown();
+
+			List<CertificateToken> certificates = futures.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<List<CertificateToken>> future : futures) {
+				assertSame(certificates, future.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, certificateRequests.get());
+
+			// the same user without the space
+			assertSame(certificates, service.getCertificatesOf("+351912345678"));
+			assertEquals(1, certificateRequests.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
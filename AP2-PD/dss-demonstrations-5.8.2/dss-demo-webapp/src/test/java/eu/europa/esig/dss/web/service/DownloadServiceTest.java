@@ -0,0 +1,196 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.model.MimeType;
+import eu.europa.esig.dss.web.model.StoredDocument;
+
+public class DownloadServiceTest {
+
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	File downloadDirectory;
+
+	private DownloadService service;
+
+	private StoredDocument document;
+
+	@BeforeEach
+	public void init() {
+		service = new DownloadService();
+		ReflectionTestUtils.setField(service, "downloadDirectory", downloadDirectory.getAbsolutePath());
+		service.init();
+
+		document = service.store(new InMemoryDocument(CONTENT, "signed.bin", MimeType.BINARY));
+	}
+
+	@AfterEach
+	public void destroy() {
+		document.delete();
+	}
+
+	@Test
+	public void fullContent() throws Exception {
+		MockHttpServletResponse response = write(new MockHttpServletRequest());
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertArrayEquals(CONTENT, response.getContentAsByteArray());
+		assertEquals(CONTENT.length, response.getContentLengthLong());
+		assertEquals(document.getETag(), response.getHeader("ETag"));
+		assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		assertNull(response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void singleRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=2-5");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertArrayEquals(Arrays.copyOfRange(CONTENT, 2, 6), response.getContentAsByteArray());
+		assertEquals(4, response.getContentLengthLong());
+		assertEquals("bytes 2-5/20", response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void openRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=15-");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertArrayEquals(Arrays.copyOfRange(CONTENT, 15, 20), response.getContentAsByteArray());
+		assertEquals("bytes 15-19/20", response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void rangeEndAfterTheLastByte() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=18-100");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertArrayEquals(Arrays.copyOfRange(CONTENT, 18, 20), response.getContentAsByteArray());
+		assertEquals("bytes 18-19/20", response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void suffixRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=-3");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertArrayEquals(Arrays.copyOfRange(CONTENT, 17, 20), response.getContentAsByteArray());
+		assertEquals("bytes 17-19/20", response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void suffixRangeLongerThanTheContent() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=-100");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertArrayEquals(CONTENT, response.getContentAsByteArray());
+		assertEquals("bytes 0-19/20", response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void unsatisfiableRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=20-30");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+		assertEquals("bytes */20", response.getHeader("Content-Range"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void emptySuffixRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=-0");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+	}
+
+	@Test
+	public void multipleRangesSendTheFullContent() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=0-1,5-6");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertArrayEquals(CONTENT, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void ifNoneMatch() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", document.getETag());
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void ifRangeMatch() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=0-4");
+		request.addHeader("If-Range", document.getETag());
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertArrayEquals(Arrays.copyOfRange(CONTENT, 0, 5), response.getContentAsByteArray());
+	}
+
+	@Test
+	public void ifRangeMismatch() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=0-4");
+		request.addHeader("If-Range", "\"stale\"");
+		MockHttpServletResponse response = write(request);
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertArrayEquals(CONTENT, response.getContentAsByteArray());
+		assertNull(response.getHeader("Content-Range"));
+	}
+
+	@Test
+	public void deletedDocument() throws Exception {
+		Files.delete(new File(document.getFilePath()).toPath());
+		MockHttpServletResponse response = write(new MockHttpServletRequest());
+
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+	}
+
+	private MockHttpServletResponse write(MockHttpServletRequest request) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		service.write(document, request, response);
+		return response;
+	}
+
+}
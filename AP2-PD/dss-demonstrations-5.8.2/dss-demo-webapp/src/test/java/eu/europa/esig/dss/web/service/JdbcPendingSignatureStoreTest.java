@@ -0,0 +1,128 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.web.model.PendingSignature;
+
+public class JdbcPendingSignatureStoreTest {
+
+	private HikariDataSource dataSource;
+
+	private JdbcPendingSignatureStore store;
+
+	@BeforeEach
+	public void init() throws Exception {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:hsqldb:mem:pendingsignatures");
+		dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		// same as PersistenceConfig
+		dataSource.setAutoCommit(false);
+
+		store = new JdbcPendingSignatureStore(dataSource);
+		store.initTable();
+	}
+
+	@AfterEach
+	public void destroy() throws Exception {
+		store.destroyTable();
+		dataSource.close();
+	}
+
+	@Test
+	public void saveAndLoad() {
+		store.save(pendingSignature("process-1", 60000));
+
+		PendingSignature pendingSignature = store.get("process-1");
+		assertNotNull(pendingSignature);
+		assertEquals("process-1", pendingSignature.getProcessId());
+		assertEquals(SignatureForm.XAdES, pendingSignature.getSignatureForm());
+		assertEquals(DigestAlgorithm.SHA256, pendingSignature.getDigestAlgorithm());
+		assertEquals(Arrays.asList("chain-1", "chain-2"), pendingSignature.getBase64CertificateChain());
+		assertEquals(1, store.size());
+
+		assertNull(store.get("unknown"));
+	}
+
+	@Test
+	public void saveReplaces() {
+		store.save(pendingSignature("process-1", 60000));
+		PendingSignature replacement = pendingSignature("process-1", 60000);
+		replacement.setDigestAlgorithm(DigestAlgorithm.SHA512);
+		store.save(replacement);
+
+		assertEquals(DigestAlgorithm.SHA512, store.get("process-1").getDigestAlgorithm());
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	public void removeOnce() {
+		store.save(pendingSignature("process-1", 60000));
+
+		assertNotNull(store.remove("process-1"));
+		assertNull(store.remove("process-1"));
+		assertNull(store.get("process-1"));
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void expire() {
+		store.save(pendingSignature("expired", -1000));
+		store.save(pendingSignature("valid", 60000));
+
+		assertNull(store.get("expired"));
+		assertNull(store.remove("expired"));
+		// not purged yet
+		assertEquals(2, store.size());
+
+		List<PendingSignature> expired = store.removeExpired();
+		assertEquals(1, expired.size());
+		assertEquals("expired", expired.get(0).getProcessId());
+		assertEquals(1, store.size());
+		assertNotNull(store.get("valid"));
+	}
+
+	@Test
+	public void rollbackOnFailure() {
+		store.save(pendingSignature("process-1", 60000));
+
+		// the previous version is deleted, then the insert fails
+		PendingSignature invalid = pendingSignature("process-1", 60000);
+		invalid.setExpirationTime(null);
+		assertThrows(NullPointerException.class, () -> store.save(invalid));
+
+		PendingSignature pendingSignature = store.get("process-1");
+		assertNotNull(pendingSignature);
+		assertNotNull(pendingSignature.getExpirationTime());
+		assertEquals(1, store.size());
+	}
+
+	private PendingSignature pendingSignature(String processId, long validity) {
+		PendingSignature pendingSignature = new PendingSignature();
+		pendingSignature.setProcessId(processId);
+		pendingSignature.setExpirationTime(new Date(System.currentTimeMillis() + validity));
+		pendingSignature.setSignatureForm(SignatureForm.XAdES);
+		pendingSignature.setDigestAlgorithm(DigestAlgorithm.SHA256);
+		pendingSignature.setSigningDate(new Date());
+		pendingSignature.setBase64Certificate("certificate");
+		pendingSignature.setBase64CertificateChain(Arrays.asList("chain-1", "chain-2"));
+		return pendingSignature;
+	}
+
+}
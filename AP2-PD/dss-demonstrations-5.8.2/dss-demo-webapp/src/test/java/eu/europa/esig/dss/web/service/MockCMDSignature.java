@@ -0,0 +1,201 @@
+package eu.europa.esig.dss.web.service;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.token.KSPrivateKeyEntry;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+import wsdlservice.ArrayOfHashStructure;
+import wsdlservice.CCMovelSignature;
+import wsdlservice.HashStructure;
+import wsdlservice.MultipleSignRequest;
+import wsdlservice.SignRequest;
+import wsdlservice.SignResponse;
+import wsdlservice.SignStatus;
+
+/**
+ * Local stand-in for the AMA Chave Movel Digital service.
+ *
+ * Every user gets the certificate chain of the given keystore and the hashes are signed with its private key. Any
+ * 6-digit code is accepted as OTP unless a fixed one is configured. The processes whose OTP is never validated expire
+ * after {@code processValidity} seconds. The whole class is thread-safe, so the same instance can be shared by all the
+ * connectors of a {@link CMDConnectorPool}.
+ */
+public class MockCMDSignature implements CCMovelSignature {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MockCMDSignature.class);
+
+	private static final String STATUS_OK = "200";
+
+	private final Cache<String, PendingProcess> processes;
+
+	private final PrivateKey privateKey;
+
+	private final String certificateChainPEM;
+
+	/* Artificial latency of every operation, in milliseconds */
+	private long latency = 0;
+
+	/* The only OTP accepted, any 6-digit code if null */
+	private String otp;
+
+	public MockCMDSignature(KeyStoreSignatureTokenConnection token, long processValidity) {
+		this.processes = CacheBuilder.newBuilder().expireAfterWrite(processValidity, TimeUnit.SECONDS).build();
+
+		KSPrivateKeyEntry keyEntry = (KSPrivateKeyEntry) token.getKeys().get(0);
+		this.privateKey = keyEntry.getPrivateKey();
+
+		StringBuilder sb = new StringBuilder();
+		for (CertificateToken certificate : keyEntry.getCertificateChain()) {
+			sb.append(DSSUtils.convertToPEM(certificate));
+		}
+		this.certificateChainPEM = sb.toString();
+	}
+
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+
+	public void setOtp(String otp) {
+		this.otp = otp;
+	}
+
+	@Override
+	public SignStatus ccMovelSign(SignRequest request) {
+		simulateLatency();
+
+		HashStructure hashStructure = new HashStructure();
+		hashStructure.setHash(request.getHash());
+		return newProcess(Collections.singletonList(hashStructure), false);
+	}
+
+	@Override
+	public String getCertificate(byte[] applicationId, String userId) {
+		simulateLatency();
+		return certificateChainPEM;
+	}
+
+	@Override
+	public SignResponse validateOtp(String code, String processId, byte[] applicationId) {
+		simulateLatency();
+
+		SignResponse response = new SignResponse();
+		PendingProcess process = processes.getIfPresent(processId);
+		if (process == null || !isValidOtp(code)) {
+			LOG.debug("OTP rejected for the process {}", processId);
+			response.setStatus(newStatus("401", processId));
+			return response;
+		}
+		processes.invalidate(processId);
+
+		if (process.multiple) {
+			ArrayOfHashStructure signatures = new ArrayOfHashStructure();
+			for (HashStructure hashStructure : process.hashes) {
+				HashStructure signature = new HashStructure();
+				signature.setId(hashStructure.getId());
+				signature.setName(hashStructure.getName());
+				signature.setHash(sign(hashStructure.getHash()));
+				signatures.getHashStructure().add(signature);
+			}
+			response.setArrayOfHashStructure(signatures);
+		} else {
+			response.setSignature(sign(process.hashes.get(0).getHash()));
+		}
+		response.setStatus(newStatus(STATUS_OK, processId));
+		return response;
+	}
+
+	@Override
+	public SignStatus ccMovelMultipleSign(MultipleSignRequest request, ArrayOfHashStructure documents) {
+		simulateLatency();
+		return newProcess(new ArrayList<>(documents.getHashStructure()), true);
+	}
+
+	@Override
+	public SignStatus forceSMS(String processId, String citizenId, byte[] applicationId) {
+		simulateLatency();
+		return newStatus(STATUS_OK, processId);
+	}
+
+	@Override
+	public SignStatus getCertificateWithPin(byte[] applicationId, String userId, String signaturePin) {
+		simulateLatency();
+		return newStatus(STATUS_OK, null);
+	}
+
+	private SignStatus newProcess(List<HashStructure> hashes, boolean multiple) {
+		String processId = UUID.randomUUID().toString();
+		processes.put(processId, new PendingProcess(hashes, multiple));
+		LOG.debug("Process {} created with {} hash(es)", processId, hashes.size());
+		return newStatus(STATUS_OK, processId);
+	}
+
+	private SignStatus newStatus(String code, String processId) {
+		SignStatus status = new SignStatus();
+		status.setCode(code);
+		status.setProcessId(processId);
+		return status;
+	}
+
+	private boolean isValidOtp(String code) {
+		if (otp != null) {
+			return otp.equals(code);
+		}
+		return code != null && code.matches("[0-9]{6}");
+	}
+
+	/**
+	 * The hash received from CMDService is already a DigestInfo for RSA keys (a raw digest otherwise), so it is
+	 * signed without being digested again
+	 */
+	private byte[] sign(byte[] hash) {
+		try {
+			String algorithm = "RSA".equals(privateKey.getAlgorithm()) ? "NONEwithRSA" : "NONEwithECDSA";
+			Signature signature = Signature.getInstance(algorithm);
+			signature.initSign(privateKey);
+			signature.update(hash);
+			return signature.sign();
+		} catch (GeneralSecurityException e) {
+			throw new DSSException("Unable to sign the hash : " + e.getMessage(), e);
+		}
+	}
+
+	private void simulateLatency() {
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static class PendingProcess {
+
+		private final List<HashStructure> hashes;
+
+		private final boolean multiple;
+
+		private PendingProcess(List<HashStructure> hashes, boolean multiple) {
+			this.hashes = hashes;
+			this.multiple = multiple;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.web.model.StoredDocument;
+
+public class SignedDocumentStoreTest {
+
+	private static final int KB = 1024;
+
+	@TempDir
+	File downloadDirectory;
+
+	private SignedDocumentStore store;
+
+	@BeforeEach
+	public void init() {
+		DownloadService downloadService = new DownloadService();
+		ReflectionTestUtils.setField(downloadService, "downloadDirectory", downloadDirectory.getAbsolutePath());
+		downloadService.init();
+
+		store = new SignedDocumentStore();
+		ReflectionTestUtils.setField(store, "downloadService", downloadService);
+		// 1 MB
+		ReflectionTestUtils.setField(store, "maxSize", 1L);
+		ReflectionTestUtils.setField(store, "ttl", 60L);
+		store.init();
+	}
+
+	@AfterEach
+	public void destroy() {
+		store.destroy();
+	}
+
+	@Test
+	public void documentAboveAQuarterOfTheMaximumSizeIsKept() {
+		String token = store.put(new InMemoryDocument(content(900 * KB, 'a'), "large.bin"));
+
+		StoredDocument document = store.get(token);
+		assertNotNull(document);
+		assertTrue(document.exists());
+	}
+
+	@Test
+	public void leastRecentlyUsedEvicted() {
+		String first = store.put(new InMemoryDocument(content(400 * KB, 'a'), "first.bin"));
+		String second = store.put(new InMemoryDocument(content(400 * KB, 'b'), "second.bin"));
+		StoredDocument firstDocument = store.get(first);
+		StoredDocument secondDocument = store.get(second);
+
+		// the first one was accessed last
+		store.get(first);
+		String third = store.put(new InMemoryDocument(content(400 * KB, 'c'), "third.bin"));
+
+		assertNotNull(store.get(first));
+		assertNull(store.get(second));
+		assertNotNull(store.get(third));
+		assertTrue(firstDocument.exists());
+		assertFalse(secondDocument.exists());
+	}
+
+	@Test
+	public void evictionDuringADownloadDoesNotTruncateIt() throws Exception {
+		byte[] content = content(400 * KB, 'a');
+		String token = store.put(new InMemoryDocument(content, "downloaded.bin"));
+		StoredDocument document = store.get(token);
+
+		// the download starts
+		assertTrue(document.acquire());
+
+		store.put(new InMemoryDocument(content(400 * KB, 'b'), "second.bin"));
+		store.put(new InMemoryDocument(content(400 * KB, 'c'), "third.bin"));
+		assertNull(store.get(token));
+
+		// still complete for the download in progress, not available to a new one
+		File file = new File(document.getFilePath());
+		assertTrue(file.exists());
+		assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+		assertFalse(document.acquire());
+
+		// the download is over
+		document.release();
+		assertFalse(file.exists());
+	}
+
+	private byte[] content(int size, char c) {
+		byte[] content = new byte[size];
+		Arrays.fill(content, (byte) c);
+		return content;
+	}
+
+}
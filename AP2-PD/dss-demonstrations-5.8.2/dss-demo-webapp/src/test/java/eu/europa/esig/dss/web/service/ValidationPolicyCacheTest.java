@@ -0,0 +1,82 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.policy.ValidationPolicy;
+
+public class ValidationPolicyCacheTest {
+
+	private ValidationPolicyCache cache;
+
+	@BeforeEach
+	public void init() {
+		cache = new ValidationPolicyCache();
+		ReflectionTestUtils.setField(cache, "maxSize", 10L);
+		// same as DSSBeanConfig
+		ReflectionTestUtils.setField(cache, "defaultPolicy", new ClassPathResource("policy/constraint.xml"));
+		cache.init();
+	}
+
+	@Test
+	public void defaultPolicyParsedOnce() {
+		ValidationPolicy policy = cache.getDefaultPolicy();
+		assertNotNull(policy);
+		assertSame(policy, cache.getDefaultPolicy());
+
+		assertEquals(1, cache.getStats().missCount());
+		assertEquals(1, cache.getStats().hitCount());
+		assertEquals(1, cache.getSize());
+	}
+
+	@Test
+	public void uploadedPolicyParsedOnce() throws Exception {
+		ValidationPolicy policy = cache.get(uploadedPolicy());
+		assertNotNull(policy);
+		// uploaded again
+		assertSame(policy, cache.get(uploadedPolicy()));
+
+		assertEquals(1, cache.getStats().missCount());
+		assertEquals(1, cache.getStats().hitCount());
+	}
+
+	@Test
+	public void malformedPolicy() {
+		DSSDocument malformed = new InMemoryDocument("<ConstraintsParameters>".getBytes(StandardCharsets.UTF_8), "policy.xml");
+
+		assertThrows(DSSException.class, () -> cache.get(malformed));
+		// the failure is not cached
+		assertThrows(DSSException.class, () -> cache.get(malformed));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void keyedByContent() throws Exception {
+		DSSDocument uploadedPolicy = uploadedPolicy();
+		DSSDocument otherPolicy = new InMemoryDocument("<other/>".getBytes(StandardCharsets.UTF_8), uploadedPolicy.getName());
+
+		assertEquals(cache.getDigest(uploadedPolicy), cache.getDigest(uploadedPolicy()));
+		assertNotEquals(cache.getDigest(uploadedPolicy), cache.getDigest(otherPolicy));
+		assertNotEquals(cache.getDefaultPolicyDigest(), cache.getDigest(otherPolicy));
+	}
+
+	private DSSDocument uploadedPolicy() throws Exception {
+		return new InMemoryDocument(Files.readAllBytes(new File("src/test/resources/constraint.xml").toPath()), "constraint.xml");
+	}
+
+}
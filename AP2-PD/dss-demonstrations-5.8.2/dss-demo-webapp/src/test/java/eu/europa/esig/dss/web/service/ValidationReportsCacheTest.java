@@ -0,0 +1,83 @@
+package eu.europa.esig.dss.web.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+
+public class ValidationReportsCacheTest {
+
+	private static final String POLICY_DIGEST = "policy";
+
+	private ValidationReportsCache cache;
+
+	@BeforeEach
+	public void init() {
+		cache = newCache(true);
+	}
+
+	@Test
+	public void sameKeyForTheSameValidation() {
+		assertEquals(cache.getKey(document("content", "signed.xml"), Collections.singletonList(document("detached", "doc.txt")), POLICY_DIGEST, "option"),
+				cache.getKey(document("content", "signed.xml"), Collections.singletonList(document("detached", "doc.txt")), POLICY_DIGEST, "option"));
+	}
+
+	@Test
+	public void signedDocumentNameInTheKey() {
+		assertNotEquals(cache.getKey(document("content", "first.xml"), null, POLICY_DIGEST),
+				cache.getKey(document("content", "second.xml"), null, POLICY_DIGEST));
+	}
+
+	@Test
+	public void detachedContentNamesInTheKey() {
+		DSSDocument signedDocument = document("content", "signed.xml");
+		assertNotEquals(cache.getKey(signedDocument, Collections.singletonList(document("detached", "first.txt")), POLICY_DIGEST),
+				cache.getKey(signedDocument, Collections.singletonList(document("detached", "second.txt")), POLICY_DIGEST));
+		// the same contents under swapped names
+		assertNotEquals(
+				cache.getKey(signedDocument, Arrays.asList(document("a", "first.txt"), document("b", "second.txt")), POLICY_DIGEST),
+				cache.getKey(signedDocument, Arrays.asList(document("a", "second.txt"), document("b", "first.txt")), POLICY_DIGEST));
+	}
+
+	@Test
+	public void contentsPolicyAndOptionsInTheKey() {
+		DSSDocument signedDocument = document("content", "signed.xml");
+		String key = cache.getKey(signedDocument, null, POLICY_DIGEST, "option");
+
+		assertNotEquals(key, cache.getKey(document("other content", "signed.xml"), null, POLICY_DIGEST, "option"));
+		assertNotEquals(key, cache.getKey(signedDocument, Collections.singletonList(document("detached", "doc.txt")), POLICY_DIGEST, "option"));
+		assertNotEquals(key, cache.getKey(signedDocument, null, "other policy", "option"));
+		assertNotEquals(key, cache.getKey(signedDocument, null, POLICY_DIGEST, "other option"));
+	}
+
+	@Test
+	public void noKeyWhenDisabled() {
+		assertNull(newCache(false).getKey(document("content", "signed.xml"), null, POLICY_DIGEST));
+		assertNull(cache.getKey(document("content", "signed.xml"), null, null));
+	}
+
+	private ValidationReportsCache newCache(boolean enabled) {
+		ValidationReportsCache validationReportsCache = new ValidationReportsCache();
+		ReflectionTestUtils.setField(validationReportsCache, "enabled", enabled);
+		ReflectionTestUtils.setField(validationReportsCache, "maxSize", 10L);
+		ReflectionTestUtils.setField(validationReportsCache, "ttl", 60L);
+		ReflectionTestUtils.setField(validationReportsCache, "timeBucket", 3600L);
+		validationReportsCache.init();
+		return validationReportsCache;
+	}
+
+	private DSSDocument document(String content, String name) {
+		return new InMemoryDocument(content.getBytes(StandardCharsets.UTF_8), name);
+	}
+
+}
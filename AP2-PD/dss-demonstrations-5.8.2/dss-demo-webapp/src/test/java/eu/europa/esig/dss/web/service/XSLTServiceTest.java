@@ -1,16 +1,22 @@
 package eu.europa.esig.dss.web.service;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.TransformerException;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -121,4 +127,40 @@ public class XSLTServiceTest {
 		LOG.debug("Detailed report html : " + htmlDetailedReport);
 	}
 
+	@Test
+	public void simpleReportWriterSameAsString() throws Exception {
+		for (String file : new String[] { "simpleReport.xml", "simple-report-multi-signatures.xml" }) {
+			String simpleReport = read(file);
+
+			StringWriter writer = new StringWriter();
+			service.generateSimpleReport(simpleReport, writer);
+			assertTrue(Utils.isStringNotEmpty(writer.toString()));
+			assertEquals(service.generateSimpleReport(simpleReport), writer.toString(), file);
+		}
+	}
+
+	@Test
+	public void detailedReportWriterSameAsString() throws Exception {
+		for (String file : new String[] { "detailedReport.xml", "detailed-report-multi-signatures.xml" }) {
+			String detailedReport = read(file);
+
+			StringWriter writer = new StringWriter();
+			service.generateDetailedReport(detailedReport, writer);
+			assertTrue(Utils.isStringNotEmpty(writer.toString()));
+			assertEquals(service.generateDetailedReport(detailedReport), writer.toString(), file);
+		}
+	}
+
+	@Test
+	public void malformedDetailedReport() {
+		String detailedReport = "<DetailedReport xmlns=\"http://dss.esig.europa.eu/validation/detailed-report\">";
+
+		assertThrows(TransformerException.class, () -> service.generateDetailedReport(detailedReport, new StringWriter()));
+		assertNull(service.generateDetailedReport(detailedReport));
+	}
+
+	private String read(String file) throws Exception {
+		return new String(Files.readAllBytes(new File("src/test/resources/" + file).toPath()), StandardCharsets.UTF_8);
+	}
+
 }
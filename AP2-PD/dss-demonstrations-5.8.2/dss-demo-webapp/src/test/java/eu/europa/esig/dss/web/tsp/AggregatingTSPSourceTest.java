@@ -0,0 +1,148 @@
+package eu.europa.esig.dss.web.tsp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.security.KeyStore.PasswordProtection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+import eu.europa.esig.dss.x509.tsp.MockTSPSource;
+
+public class AggregatingTSPSourceTest {
+
+	private MockTSPSource mock;
+
+	private final AtomicInteger tsaRequests = new AtomicInteger();
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void init() throws IOException {
+		mock = new MockTSPSource();
+		mock.setToken(new KeyStoreSignatureTokenConnection(new ClassPathResource("self_signed_tsa.p12").getFile(), "PKCS12",
+				new PasswordProtection("whrmbQRp2nZHx7T5".toCharArray())));
+		mock.setAlias("self-signed-tsa");
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void identicalDigestsCoalesced() throws Exception {
+		CountDownLatch gate = new CountDownLatch(1);
+		AggregatingTSPSource aggregating = new AggregatingTSPSource((digestAlgorithm, digest) -> {
+			await(gate);
+			return count(digestAlgorithm, digest);
+		});
+		int callers = 5;
+		byte[] digest = digest("Hello");
+		List<Future<TimestampBinary>> futures = new ArrayList<>();
+		for (int i = 0; i < callers; i++) {
+			futures.add(executor.submit(() -> aggregating.getTimeStampResponse(DigestAlgorithm.SHA256, digest)));
+		}
+		// the TSA answers once all the other callers wait for the first request
+		while ((long) aggregating.getMetrics().get("coalesced") < callers - 1) {
+			Thread.sleep(10);
+		}
+		gate.countDown();
+
+		byte[] timestamp = futures.get(0).get().getBytes();
+		for (Future<TimestampBinary> future : futures) {
+			assertArrayEquals(timestamp, future.get().getBytes());
+		}
+		assertEquals(1, tsaRequests.get());
+	}
+
+	@Test
+	public void differentDigestsNotCoalesced() throws Exception {
+		CountDownLatch gate = new CountDownLatch(1);
+		AggregatingTSPSource aggregating = new AggregatingTSPSource((digestAlgorithm, digest) -> {
+			await(gate);
+			return count(digestAlgorithm, digest);
+		});
+		Future<TimestampBinary> hello = executor.submit(() -> aggregating.getTimeStampResponse(DigestAlgorithm.SHA256, digest("Hello")));
+		Future<TimestampBinary> world = executor.submit(() -> aggregating.getTimeStampResponse(DigestAlgorithm.SHA256, digest("World")));
+		Future<TimestampBinary> sha512 = executor.submit(() -> aggregating.getTimeStampResponse(DigestAlgorithm.SHA512,
+				DSSUtils.digest(DigestAlgorithm.SHA512, "Hello".getBytes())));
+		gate.countDown();
+
+		assertNotNull(hello.get(10, TimeUnit.SECONDS));
+		assertNotNull(world.get(10, TimeUnit.SECONDS));
+		assertNotNull(sha512.get(10, TimeUnit.SECONDS));
+		assertEquals(3, tsaRequests.get());
+		assertEquals(0L, aggregating.getMetrics().get("coalesced"));
+	}
+
+	@Test
+	public void failureSharedThenRetried() throws Exception {
+		CountDownLatch gate = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		AggregatingTSPSource aggregating = new AggregatingTSPSource((digestAlgorithm, digest) -> {
+			await(gate);
+			if (calls.incrementAndGet() == 1) {
+				throw new DSSException("TSA unavailable");
+			}
+			return count(digestAlgorithm, digest);
+		});
+		byte[] digest = digest("Hello");
+		Future<TimestampBinary> first = executor.submit(() -> aggregating.getTimeStampResponse(DigestAlgorithm.SHA256, digest));
+		Future<TimestampBinary> second = executor.submit(() -> aggregating.getTimeStampResponse(DigestAlgorithm.SHA256, digest));
+		while ((long) aggregating.getMetrics().get("coalesced") < 1) {
+			Thread.sleep(10);
+		}
+		gate.countDown();
+
+		ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+		assertTrue(firstFailure.getCause() instanceof DSSException);
+		ExecutionException secondFailure = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+		assertTrue(secondFailure.getCause() instanceof DSSException);
+
+		// the failed request is not kept
+		assertNotNull(aggregating.getTimeStampResponse(DigestAlgorithm.SHA256, digest));
+		assertEquals(1, tsaRequests.get());
+	}
+
+	private TimestampBinary count(DigestAlgorithm digestAlgorithm, byte[] digest) {
+		tsaRequests.incrementAndGet();
+		return mock.getTimeStampResponse(digestAlgorithm, digest);
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DSSException(e);
+		}
+	}
+
+	private byte[] digest(String content) {
+		return DSSUtils.digest(DigestAlgorithm.SHA256, content.getBytes());
+	}
+
+}
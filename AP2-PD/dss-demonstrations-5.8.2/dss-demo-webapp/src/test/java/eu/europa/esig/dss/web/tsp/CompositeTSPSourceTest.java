@@ -0,0 +1,224 @@
+package eu.europa.esig.dss.web.tsp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.security.KeyStore.PasswordProtection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.service.tsp.OnlineTSPSource;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+import eu.europa.esig.dss.x509.tsp.MockTSAServer;
+import eu.europa.esig.dss.x509.tsp.MockTSPSource;
+
+public class CompositeTSPSourceTest {
+
+	private static final byte[] DIGEST = DSSUtils.digest(DigestAlgorithm.SHA256, "Hello".getBytes());
+
+	private static final TimestampBinary TIMESTAMP = new TimestampBinary(new byte[] { 1 });
+
+	private final List<MockTSAServer> servers = new ArrayList<>();
+
+	@AfterEach
+	public void stop() {
+		for (MockTSAServer server : servers) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void failover() throws IOException {
+		MockTSAServer failing = startServer(server -> {
+			server.setErrorRate(1);
+			server.setErrorStatus(500);
+		});
+
+		Map<String, TSPSource> tspSources = new LinkedHashMap<>();
+		tspSources.put("failing", new OnlineTSPSource(url(failing)));
+		tspSources.put("working", new OnlineTSPSource(url(startServer())));
+		CompositeTSPSource composite = new CompositeTSPSource(tspSources);
+		// the failing TSA costs more than the working one after its first failure
+		composite.setFailureThreshold(1);
+		composite.setOpenDuration(60000);
+
+		for (int i = 0; i < 5; i++) {
+			assertNotNull(composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+		}
+		assertEquals(CompositeTSPSource.State.OPEN, composite.getState("failing"));
+		assertEquals(CompositeTSPSource.State.CLOSED, composite.getState("working"));
+		composite.shutdown();
+	}
+
+	@Test
+	public void deadline() throws IOException {
+		MockTSAServer slow = startServer(server -> server.setLatency(2000));
+
+		Map<String, TSPSource> tspSources = new LinkedHashMap<>();
+		tspSources.put("slow", new OnlineTSPSource(url(slow)));
+		CompositeTSPSource composite = new CompositeTSPSource(tspSources);
+		composite.setTimeout(200);
+		composite.setFailureThreshold(1);
+
+		long start = System.currentTimeMillis();
+		assertThrows(DSSException.class, () -> composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		assertEquals(CompositeTSPSource.State.OPEN, composite.getState("slow"));
+
+		// the circuit is open, no request is sent
+		assertThrows(DSSException.class, () -> composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+		composite.shutdown();
+	}
+
+	@Test
+	public void slowTSAFailsOver() {
+		boolean slowTriedFirst = false;
+		for (int i = 0; i < 20 && !slowTriedFirst; i++) {
+			AtomicBoolean slowTried = new AtomicBoolean();
+			AtomicBoolean fastTried = new AtomicBoolean();
+			Map<String, TSPSource> tspSources = new LinkedHashMap<>();
+			tspSources.put("slow", (digestAlgorithm, digest) -> {
+				slowTried.set(!fastTried.get());
+				try {
+					Thread.sleep(5000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return TIMESTAMP;
+			});
+			tspSources.put("fast", (digestAlgorithm, digest) -> {
+				fastTried.set(true);
+				return TIMESTAMP;
+			});
+			CompositeTSPSource composite = new CompositeTSPSource(tspSources);
+			composite.setTimeout(1000);
+
+			long start = System.currentTimeMillis();
+			// the slow TSA only gets its share of the timeout when it is tried first
+			assertNotNull(composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+			assertTrue(System.currentTimeMillis() - start < 1000);
+			assertTrue(fastTried.get());
+			slowTriedFirst = slowTried.get();
+			composite.shutdown();
+		}
+		assertTrue(slowTriedFirst);
+	}
+
+	@Test
+	public void sameCostInRandomOrder() {
+		Set<String> firstTried = new HashSet<>();
+		for (int i = 0; i < 50 && firstTried.size() < 2; i++) {
+			Map<String, TSPSource> tspSources = new LinkedHashMap<>();
+			tspSources.put("first", (digestAlgorithm, digest) -> {
+				firstTried.add("first");
+				return TIMESTAMP;
+			});
+			tspSources.put("second", (digestAlgorithm, digest) -> {
+				firstTried.add("second");
+				return TIMESTAMP;
+			});
+			// no request yet, the same cost
+			CompositeTSPSource composite = new CompositeTSPSource(tspSources);
+			composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST);
+			composite.shutdown();
+		}
+		assertEquals(2, firstTried.size());
+	}
+
+	@Test
+	public void boundedQueue() throws Exception {
+		CountDownLatch answer = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		Map<String, TSPSource> tspSources = new LinkedHashMap<>();
+		tspSources.put("blocked", (digestAlgorithm, digest) -> {
+			started.countDown();
+			try {
+				answer.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return TIMESTAMP;
+		});
+		CompositeTSPSource composite = new CompositeTSPSource(tspSources);
+		composite.setThreads(1);
+		composite.setQueueSize(1);
+
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			Future<TimestampBinary> running = callers.submit(() -> composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			Future<TimestampBinary> queued = callers.submit(() -> composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+			while (!queued.isDone() && getQueueSize(composite) == 0) {
+				Thread.sleep(10);
+			}
+
+			// neither a thread nor a place in the queue
+			assertThrows(DSSException.class, () -> composite.getTimeStampResponse(DigestAlgorithm.SHA256, DIGEST));
+			// not a failure of the TSA
+			assertEquals(CompositeTSPSource.State.CLOSED, composite.getState("blocked"));
+
+			answer.countDown();
+			assertNotNull(running.get(5, TimeUnit.SECONDS));
+			assertNotNull(queued.get(5, TimeUnit.SECONDS));
+		} finally {
+			answer.countDown();
+			callers.shutdownNow();
+			composite.shutdown();
+		}
+	}
+
+	private int getQueueSize(CompositeTSPSource composite) {
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(composite, "executor");
+		return executor.getQueue().size();
+	}
+
+	private MockTSAServer startServer() throws IOException {
+		return startServer(server -> {
+		});
+	}
+
+	private MockTSAServer startServer(Consumer<MockTSAServer> configuration) throws IOException {
+		MockTSPSource mock = new MockTSPSource();
+		mock.setToken(new KeyStoreSignatureTokenConnection(new ClassPathResource("self_signed_tsa.p12").getFile(), "PKCS12",
+				new PasswordProtection("whrmbQRp2nZHx7T5".toCharArray())));
+		mock.setAlias("self-signed-tsa");
+
+		MockTSAServer server = new MockTSAServer(mock);
+		server.setPort(0);
+		server.setThreads(2);
+		configuration.accept(server);
+		server.start();
+		servers.add(server);
+		return server;
+	}
+
+	private String url(MockTSAServer server) {
+		return "http://localhost:" + server.getPort() + "/tsa";
+	}
+
+}
@@ -0,0 +1,275 @@
+package eu.europa.esig.dss.x509.tsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.KeyStore.PasswordProtection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.cmp.PKIFailureInfo;
+import org.bouncycastle.asn1.cmp.PKIFreeText;
+import org.bouncycastle.asn1.cmp.PKIStatus;
+import org.bouncycastle.asn1.cmp.PKIStatusInfo;
+import org.bouncycastle.asn1.tsp.TimeStampResp;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+
+/**
+ * Serves the timestamps of a {@link MockTSPSource} over HTTP with the RFC 3161 protocol, so that an
+ * {@code OnlineTSPSource} can be tested without a real TSA. The requests are answered by a pool of threads, after an
+ * optional latency. When more than {@code maxConcurrentRequests} requests are processed, the new ones are refused
+ * with a 503 status. A part of the requests can be failed on purpose, either with a rejected timestamp response or
+ * with an HTTP error status.
+ * <p>
+ * The server is launched with the system properties below (default values between brackets) :
+ * <ul>
+ * <li>mock.tsa.keystore, mock.tsa.keystore.type [PKCS12], mock.tsa.keystore.password, mock.tsa.alias : the key of
+ * the TSA</li>
+ * <li>mock.tsa.port [9797], mock.tsa.path [/tsa], mock.tsa.threads [number of processors]</li>
+ * <li>mock.tsa.max.concurrent.requests [0 : unlimited]</li>
+ * <li>mock.tsa.latency [0], mock.tsa.latency.jitter [0] : the delay before the response, in milliseconds</li>
+ * <li>mock.tsa.error.rate [0] : the part of the requests failed, between 0 and 1</li>
+ * <li>mock.tsa.error.status [0] : the HTTP status of the failed requests, 0 for a rejected timestamp response</li>
+ * </ul>
+ */
+public class MockTSAServer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MockTSAServer.class);
+
+	public static final String TIMESTAMP_QUERY = "application/timestamp-query";
+
+	public static final String TIMESTAMP_REPLY = "application/timestamp-reply";
+
+	private final MockTSPSource tspSource;
+
+	private int port = 9797;
+
+	private String path = "/tsa";
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private int maxConcurrentRequests;
+
+	private long latency;
+
+	private long latencyJitter;
+
+	private double errorRate;
+
+	private int errorStatus;
+
+	private Semaphore permits;
+
+	private ExecutorService executor;
+
+	private HttpServer server;
+
+	public MockTSAServer(MockTSPSource tspSource) {
+		this.tspSource = tspSource;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+
+	public void setLatencyJitter(long latencyJitter) {
+		this.latencyJitter = latencyJitter;
+	}
+
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	public void setErrorStatus(int errorStatus) {
+		this.errorStatus = errorStatus;
+	}
+
+	/**
+	 * @return the port the server listens to, useful when it was started on the port 0
+	 */
+	public int getPort() {
+		return server != null ? server.getAddress().getPort() : port;
+	}
+
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("The server is already started");
+		}
+		permits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+		executor = Executors.newFixedThreadPool(threads);
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext(path, new TimestampHandler());
+		server.setExecutor(executor);
+		server.start();
+		LOG.info("Mock TSA listening on http://localhost:{}{} ({} threads, {} max concurrent requests, {} ms latency, {} error rate)",
+				getPort(), path, threads, maxConcurrentRequests, latency, errorRate);
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+			LOG.info("Mock TSA stopped");
+		}
+	}
+
+	private class TimestampHandler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				if (!"POST".equals(exchange.getRequestMethod())) {
+					exchange.getResponseHeaders().set("Allow", "POST");
+					send(exchange, 405, null);
+					return;
+				}
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				if (contentType == null || !contentType.toLowerCase().startsWith(TIMESTAMP_QUERY)) {
+					send(exchange, 415, null);
+					return;
+				}
+				if (permits != null && !permits.tryAcquire()) {
+					send(exchange, 503, null);
+					return;
+				}
+				try {
+					answer(exchange);
+				} finally {
+					if (permits != null) {
+						permits.release();
+					}
+				}
+			} catch (Exception e) {
+				LOG.warn("Unable to answer the timestamp request : {}", e.getMessage(), e);
+				send(exchange, 500, null);
+			} finally {
+				exchange.close();
+			}
+		}
+
+		private void answer(HttpExchange exchange) throws IOException, InterruptedException {
+			byte[] query = read(exchange.getRequestBody());
+
+			long delay = latency + (latencyJitter > 0 ? ThreadLocalRandom.current().nextLong(latencyJitter + 1) : 0);
+			if (delay > 0) {
+				TimeUnit.MILLISECONDS.sleep(delay);
+			}
+
+			if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				if (errorStatus > 0) {
+					send(exchange, errorStatus, null);
+				} else {
+					send(exchange, 200, rejection(PKIFailureInfo.systemFailure, "Error injected by the mock TSA"));
+				}
+				return;
+			}
+
+			TimeStampRequest request;
+			try {
+				request = new TimeStampRequest(query);
+			} catch (IOException | RuntimeException e) {
+				send(exchange, 200, rejection(PKIFailureInfo.badDataFormat, "Invalid timestamp request"));
+				return;
+			}
+
+			DigestAlgorithm digestAlgorithm;
+			try {
+				digestAlgorithm = DigestAlgorithm.forOID(request.getMessageImprintAlgOID().getId());
+			} catch (RuntimeException e) {
+				send(exchange, 200, rejection(PKIFailureInfo.badAlg, "Unsupported digest algorithm"));
+				return;
+			}
+
+			send(exchange, 200, tspSource.getTimeStampResponse(request, digestAlgorithm).getEncoded());
+		}
+
+		private byte[] rejection(int failInfo, String message) throws IOException {
+			PKIStatusInfo statusInfo = new PKIStatusInfo(PKIStatus.rejection, new PKIFreeText(message), new PKIFailureInfo(failInfo));
+			return new TimeStampResp(statusInfo, null).getEncoded();
+		}
+
+		private byte[] read(InputStream is) throws IOException {
+			try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+				byte[] buffer = new byte[4096];
+				int count;
+				while ((count = is.read(buffer)) != -1) {
+					baos.write(buffer, 0, count);
+				}
+				return baos.toByteArray();
+			}
+		}
+
+		private void send(HttpExchange exchange, int status, byte[] reply) throws IOException {
+			if (reply == null) {
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", TIMESTAMP_REPLY);
+			exchange.sendResponseHeaders(status, reply.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(reply);
+			}
+		}
+
+	}
+
+	public static void main(String[] args) throws IOException {
+		String keystore = System.getProperty("mock.tsa.keystore");
+		if (keystore == null) {
+			throw new DSSException("The keystore of the TSA is not defined (-Dmock.tsa.keystore=...)");
+		}
+		String password = System.getProperty("mock.tsa.keystore.password", "");
+
+		MockTSPSource tspSource = new MockTSPSource();
+		tspSource.setToken(new KeyStoreSignatureTokenConnection(new File(keystore), System.getProperty("mock.tsa.keystore.type", "PKCS12"),
+				new PasswordProtection(password.toCharArray())));
+		tspSource.setAlias(System.getProperty("mock.tsa.alias"));
+
+		MockTSAServer server = new MockTSAServer(tspSource);
+		server.setPort(Integer.getInteger("mock.tsa.port", 9797));
+		server.setPath(System.getProperty("mock.tsa.path", "/tsa"));
+		server.setThreads(Integer.getInteger("mock.tsa.threads", Runtime.getRuntime().availableProcessors()));
+		server.setMaxConcurrentRequests(Integer.getInteger("mock.tsa.max.concurrent.requests", 0));
+		server.setLatency(Long.getLong("mock.tsa.latency", 0L));
+		server.setLatencyJitter(Long.getLong("mock.tsa.latency.jitter", 0L));
+		server.setErrorRate(Double.parseDouble(System.getProperty("mock.tsa.error.rate", "0")));
+		server.setErrorStatus(Integer.getInteger("mock.tsa.error.status", 0));
+
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		server.start();
+	}
+
+}
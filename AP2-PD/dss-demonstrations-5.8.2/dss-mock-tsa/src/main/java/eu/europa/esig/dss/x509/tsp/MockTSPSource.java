@@ -6,10 +6,16 @@ import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
@@ -45,79 +51,172 @@ import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
 import eu.europa.esig.dss.token.KSPrivateKeyEntry;
 import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
 
+/**
+ * Issues timestamps with a key of a keystore. The key, the certificates and the accepted algorithms are loaded once.
+ * The BouncyCastle generators are not thread-safe : a generator is used by one thread at a time, then returned to a
+ * pool of at most one generator per processor and digest algorithm. The serial numbers are taken from a shared
+ * counter.
+ */
 public class MockTSPSource implements TSPSource {
 
 	private static final long serialVersionUID = 8863748492343274842L;
 
-	private final Logger LOG = LoggerFactory.getLogger(MockTSPSource.class);
+	private static final Logger LOG = LoggerFactory.getLogger(MockTSPSource.class);
 
-	private static SecureRandom random = new SecureRandom();
+	private static final ASN1ObjectIdentifier POLICY_OID = new ASN1ObjectIdentifier("1.2.3.4");
+
+	/* The idle generators kept per digest algorithm */
+	private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
 
 	private KeyStoreSignatureTokenConnection token;
 
 	private String alias;
 
+	private transient volatile Issuer issuer;
+
 	public void setToken(KeyStoreSignatureTokenConnection token) {
 		this.token = token;
+		this.issuer = null;
 	}
 
 	public void setAlias(String alias) {
 		this.alias = alias;
+		this.issuer = null;
 	}
 
 	@Override
 	public TimestampBinary getTimeStampResponse(DigestAlgorithm digestAlgorithm, byte[] digest) {
-		if (token == null) {
-			throw new DSSException("KeyStore token is not defined!");
-		}
 		try {
 			TimeStampRequestGenerator requestGenerator = new TimeStampRequestGenerator();
 			requestGenerator.setCertReq(true);
 			TimeStampRequest request = requestGenerator.generate(new ASN1ObjectIdentifier(digestAlgorithm.getOid()), digest);
 
-			KSPrivateKeyEntry ksPK = (KSPrivateKeyEntry) token.getKey(alias);
-			if (ksPK == null) {
-				throw new DSSException("Unable to initialize the MockTSPSource");
+			TimeStampResponse response = getIssuer().generate(request, digestAlgorithm);
+			TimeStampToken timeStampToken = response.getTimeStampToken();
+
+			return new TimestampBinary(DSSASN1Utils.getDEREncoded(timeStampToken));
+
+		} catch (IOException | TSPException | OperatorException e) {
+			throw new DSSException("Unable to generate a timestamp from the Mock", e);
+
+		}
+	}
+
+	/**
+	 * Answers a timestamp request as a TSA would do, the algorithms other than SHA-1, SHA-256 and SHA-512 are rejected
+	 * 
+	 * @param request
+	 *            the timestamp request
+	 * @param digestAlgorithm
+	 *            the digest algorithm of the message imprint
+	 * @return the timestamp response, granted or rejected
+	 */
+	public TimeStampResponse getTimeStampResponse(TimeStampRequest request, DigestAlgorithm digestAlgorithm) {
+		try {
+			return getIssuer().generate(request, digestAlgorithm);
+		} catch (TSPException | OperatorException e) {
+			throw new DSSException("Unable to generate a timestamp from the Mock", e);
+		}
+	}
+
+	private Issuer getIssuer() {
+		Issuer current = issuer;
+		if (current == null) {
+			synchronized (this) {
+				current = issuer;
+				if (current == null) {
+					current = new Issuer(token, alias);
+					issuer = current;
+				}
 			}
+		}
+		return current;
+	}
+
+	/**
+	 * The key and the certificates of the TSA, shared by all the threads
+	 */
+	private static class Issuer {
 
-			LOG.info("Timestamping with {}", ksPK.getCertificate());
+		private final KSPrivateKeyEntry privateKey;
 
-			X509CertificateHolder certificate = new X509CertificateHolder(ksPK.getCertificate().getEncoded());
-			List<X509Certificate> chain = new ArrayList<X509Certificate>();
-			CertificateToken[] certificateChain = ksPK.getCertificateChain();
-			for (CertificateToken token : certificateChain) {
-				chain.add(token.getCertificate());
+		private final X509CertificateHolder certificate;
+
+		private final JcaCertStore certificates;
+
+		private final Set<ASN1ObjectIdentifier> accepted;
+
+		/* The high bits of the serial numbers, to avoid duplicates between two runs */
+		private final BigInteger serialPrefix = new BigInteger(64, new SecureRandom()).shiftLeft(64);
+
+		private final AtomicLong serialNumbers = new AtomicLong();
+
+		private final Map<DigestAlgorithm, BlockingQueue<TimeStampResponseGenerator>> generators = new ConcurrentHashMap<>();
+
+		Issuer(KeyStoreSignatureTokenConnection token, String alias) {
+			if (token == null) {
+				throw new DSSException("KeyStore token is not defined!");
+			}
+			privateKey = (KSPrivateKeyEntry) token.getKey(alias);
+			if (privateKey == null) {
+				throw new DSSException("Unable to initialize the MockTSPSource");
+			}
+
+			LOG.info("Timestamping with {}", privateKey.getCertificate());
+
+			try {
+				certificate = new X509CertificateHolder(privateKey.getCertificate().getEncoded());
+				List<X509Certificate> chain = new ArrayList<X509Certificate>();
+				for (CertificateToken certificateToken : privateKey.getCertificateChain()) {
+					chain.add(certificateToken.getCertificate());
+				}
+				certificates = new JcaCertStore(chain);
+			} catch (IOException | CertificateException e) {
+				throw new DSSException("Unable to initialize the MockTSPSource", e);
 			}
 
-			Set<ASN1ObjectIdentifier> accepted = new HashSet<ASN1ObjectIdentifier>();
-			accepted.add(TSPAlgorithms.SHA1);
-			accepted.add(TSPAlgorithms.SHA256);
-			accepted.add(TSPAlgorithms.SHA512);
+			Set<ASN1ObjectIdentifier> acceptedAlgorithms = new HashSet<ASN1ObjectIdentifier>();
+			acceptedAlgorithms.add(TSPAlgorithms.SHA1);
+			acceptedAlgorithms.add(TSPAlgorithms.SHA256);
+			acceptedAlgorithms.add(TSPAlgorithms.SHA512);
+			accepted = Collections.unmodifiableSet(acceptedAlgorithms);
+		}
 
+		TimeStampResponse generate(TimeStampRequest request, DigestAlgorithm digestAlgorithm) throws TSPException, OperatorException {
+			BlockingQueue<TimeStampResponseGenerator> idle = generators.computeIfAbsent(digestAlgorithm,
+					a -> new ArrayBlockingQueue<>(POOL_SIZE));
+			TimeStampResponseGenerator responseGenerator = idle.poll();
+			if (responseGenerator == null) {
+				responseGenerator = newResponseGenerator(digestAlgorithm);
+			}
+			TimeStampResponse response = responseGenerator.generate(request, nextSerialNumber(), new Date());
+			// dropped when the pool is full, or after a failure which may have left its signer in use
+			idle.offer(responseGenerator);
+			return response;
+		}
+
+		private TimeStampResponseGenerator newResponseGenerator(DigestAlgorithm digestAlgorithm) throws TSPException, OperatorException {
 			AlgorithmIdentifier digestAlgorithmIdentifier = new AlgorithmIdentifier(new ASN1ObjectIdentifier(digestAlgorithm.getOid()));
 			AlgorithmIdentifier encryptionAlg = new AlgorithmIdentifier(PKCSObjectIdentifiers.rsaEncryption);
 
 			DefaultCMSSignatureAlgorithmNameGenerator sigAlgoGenerator = new DefaultCMSSignatureAlgorithmNameGenerator();
 			String sigAlgoName = sigAlgoGenerator.getSignatureName(digestAlgorithmIdentifier, encryptionAlg);
 
-			ContentSigner signer = new JcaContentSignerBuilder(sigAlgoName).build(ksPK.getPrivateKey());
+			ContentSigner signer = new JcaContentSignerBuilder(sigAlgoName).build(privateKey.getPrivateKey());
 
 			SignerInfoGenerator infoGenerator = new SignerInfoGeneratorBuilder(new BcDigestCalculatorProvider()).build(signer, certificate);
 			DigestCalculator digestCalculator = new JcaDigestCalculatorProviderBuilder().build().get(digestAlgorithmIdentifier);
 
-			TimeStampTokenGenerator tokenGenerator = new TimeStampTokenGenerator(infoGenerator, digestCalculator, new ASN1ObjectIdentifier("1.2.3.4"));
-			tokenGenerator.addCertificates(new JcaCertStore(chain));
+			TimeStampTokenGenerator tokenGenerator = new TimeStampTokenGenerator(infoGenerator, digestCalculator, POLICY_OID);
+			tokenGenerator.addCertificates(certificates);
 
-			TimeStampResponseGenerator responseGenerator = new TimeStampResponseGenerator(tokenGenerator, accepted);
-			TimeStampResponse response = responseGenerator.generate(request, new BigInteger(128, random), new Date());
-			TimeStampToken timeStampToken = response.getTimeStampToken();
-			
-			return new TimestampBinary(DSSASN1Utils.getDEREncoded(timeStampToken));
-			
-		} catch (IOException | TSPException | OperatorException | CertificateException e) {
-			throw new DSSException("Unable to generate a timestamp from the Mock", e);
-			
+			return new TimeStampResponseGenerator(tokenGenerator, accepted);
 		}
+
+		private BigInteger nextSerialNumber() {
+			return serialPrefix.or(BigInteger.valueOf(serialNumbers.getAndIncrement()));
+		}
+
 	}
 
 }
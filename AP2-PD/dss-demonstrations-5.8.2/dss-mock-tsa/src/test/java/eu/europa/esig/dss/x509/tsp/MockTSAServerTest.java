@@ -0,0 +1,105 @@
+package eu.europa.esig.dss.x509.tsp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.KeyStore.PasswordProtection;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.cmp.PKIStatus;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampRequestGenerator;
+import org.bouncycastle.tsp.TimeStampResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+
+public class MockTSAServerTest {
+
+	private MockTSAServer server;
+
+	@BeforeEach
+	public void init() throws Exception {
+		MockTSPSource mock = new MockTSPSource();
+		mock.setToken(new KeyStoreSignatureTokenConnection(new File("src/test/resources/self-signed-tsa.p12"), "PKCS12",
+				new PasswordProtection("ks-password".toCharArray())));
+		mock.setAlias("self-signed-tsa");
+
+		server = new MockTSAServer(mock);
+		server.setPort(0);
+		server.setThreads(2);
+	}
+
+	@AfterEach
+	public void stop() {
+		server.stop();
+	}
+
+	@Test
+	public void test() throws Exception {
+		server.start();
+
+		byte[] digest = DSSUtils.digest(DigestAlgorithm.SHA256, "Hello".getBytes());
+		TimeStampRequestGenerator requestGenerator = new TimeStampRequestGenerator();
+		requestGenerator.setCertReq(true);
+		TimeStampRequest request = requestGenerator.generate(new ASN1ObjectIdentifier(DigestAlgorithm.SHA256.getOid()), digest);
+
+		TimeStampResponse response = new TimeStampResponse(post(request.getEncoded(), MockTSAServer.TIMESTAMP_QUERY, 200));
+		response.validate(request);
+		assertEquals(PKIStatus.GRANTED, response.getStatus());
+		assertNotNull(response.getTimeStampToken());
+		assertArrayEquals(digest, response.getTimeStampToken().getTimeStampInfo().getMessageImprintDigest());
+
+		post(request.getEncoded(), "text/plain", 415);
+	}
+
+	@Test
+	public void errorInjection() throws Exception {
+		server.setErrorRate(1);
+		server.start();
+
+		byte[] digest = DSSUtils.digest(DigestAlgorithm.SHA256, "Hello".getBytes());
+		TimeStampRequest request = new TimeStampRequestGenerator().generate(new ASN1ObjectIdentifier(DigestAlgorithm.SHA256.getOid()), digest);
+
+		TimeStampResponse response = new TimeStampResponse(post(request.getEncoded(), MockTSAServer.TIMESTAMP_QUERY, 200));
+		assertEquals(PKIStatus.REJECTION, response.getStatus());
+	}
+
+	private byte[] post(byte[] content, String contentType, int expectedStatus) throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/tsa").openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("Content-Type", contentType);
+			connection.setDoOutput(true);
+			try (OutputStream os = connection.getOutputStream()) {
+				os.write(content);
+			}
+			assertEquals(expectedStatus, connection.getResponseCode());
+			if (expectedStatus != 200) {
+				return null;
+			}
+			try (InputStream is = connection.getInputStream(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+				byte[] buffer = new byte[4096];
+				int count;
+				while ((count = is.read(buffer)) != -1) {
+					baos.write(buffer, 0, count);
+				}
+				return baos.toByteArray();
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package eu.europa.esig.dss.x509.tsp;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.File;
+import java.security.KeyStore.PasswordProtection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.DSSUtils;
+import eu.europa.esig.dss.token.KeyStoreSignatureTokenConnection;
+
+/**
+ * Measures the number of timestamps issued per second, with one thread per core
+ */
+public class MockTSPSourceStressApp {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MockTSPSourceStressApp.class);
+
+	private static final int WARM_UP_TIMESTAMPS = 1000;
+
+	private static final int TIMESTAMPS_PER_THREAD = 5000;
+
+	@Test
+	public void test() throws Exception {
+		MockTSPSource mock = new MockTSPSource();
+		KeyStoreSignatureTokenConnection token = new KeyStoreSignatureTokenConnection(new File("src/test/resources/self-signed-tsa.p12"), "PKCS12",
+				new PasswordProtection("ks-password".toCharArray()));
+		mock.setToken(token);
+		mock.setAlias("self-signed-tsa");
+
+		byte[] digest = DSSUtils.digest(DigestAlgorithm.SHA256, "Hello".getBytes());
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(cores);
+
+		run(executor, cores, WARM_UP_TIMESTAMPS, mock, digest);
+
+		long startNanoTime = System.nanoTime();
+		run(executor, cores, TIMESTAMPS_PER_THREAD, mock, digest);
+		long totalTime = System.nanoTime() - startNanoTime;
+
+		double timestampsPerSecond = (double) cores * TIMESTAMPS_PER_THREAD * 1000000000 / totalTime;
+		LOG.info("Cores : {}", cores);
+		LOG.info("Timestamps/s : {}", Math.round(timestampsPerSecond));
+		LOG.info("Timestamps/s/core : {}", Math.round(timestampsPerSecond / cores));
+
+		executor.shutdown();
+		token.close();
+	}
+
+	private void run(ExecutorService executor, int threads, int timestamps, MockTSPSource mock, byte[] digest) throws Exception {
+		List<Future<TimestampBinary>> futures = new ArrayList<Future<TimestampBinary>>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(new TestConcurrent(mock, digest, timestamps)));
+		}
+		for (Future<TimestampBinary> future : futures) {
+			assertNotNull(future.get());
+		}
+	}
+
+	class TestConcurrent implements Callable<TimestampBinary> {
+
+		private final MockTSPSource mock;
+
+		private final byte[] digest;
+
+		private final int timestamps;
+
+		public TestConcurrent(MockTSPSource mock, byte[] digest, int timestamps) {
+			this.mock = mock;
+			this.digest = digest;
+			this.timestamps = timestamps;
+		}
+
+		@Override
+		public TimestampBinary call() throws Exception {
+			TimestampBinary timestampBinary = null;
+			for (int i = 0; i < timestamps; i++) {
+				timestampBinary = mock.getTimeStampResponse(DigestAlgorithm.SHA256, digest);
+			}
+			return timestampBinary;
+		}
+
+	}
+
+}
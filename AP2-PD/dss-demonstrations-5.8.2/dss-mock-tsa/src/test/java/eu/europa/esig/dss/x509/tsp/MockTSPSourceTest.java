@@ -2,14 +2,28 @@ package eu.europa.esig.dss.x509.tsp;
 
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.math.BigInteger;
 import java.security.KeyStore.PasswordProtection;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformationVerifier;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
 import org.bouncycastle.tsp.TimeStampToken;
 import org.junit.jupiter.api.Test;
 
@@ -41,4 +55,52 @@ public class MockTSPSourceTest {
 		assertArrayEquals(digest, timeStampToken.getTimeStampInfo().getMessageImprintDigest());
 	}
 
+	@Test
+	public void concurrentTimestamps() throws Exception {
+		MockTSPSource mock = new MockTSPSource();
+
+		KeyStoreSignatureTokenConnection token = new KeyStoreSignatureTokenConnection(new File("src/test/resources/self-signed-tsa.p12"), "PKCS12",
+				new PasswordProtection("ks-password".toCharArray()));
+		mock.setToken(token);
+		mock.setAlias("self-signed-tsa");
+		X509CertificateHolder tsaCertificate = new X509CertificateHolder(token.getKey("self-signed-tsa").getCertificate().getEncoded());
+		SignerInformationVerifier verifier = new JcaSimpleSignerInfoVerifierBuilder().build(tsaCertificate);
+
+		int threads = 8;
+		int timestampsPerThread = 50;
+		DigestAlgorithm[] digestAlgorithms = { DigestAlgorithm.SHA1, DigestAlgorithm.SHA256, DigestAlgorithm.SHA512 };
+		Set<BigInteger> serialNumbers = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < timestampsPerThread; i++) {
+						DigestAlgorithm digestAlgorithm = digestAlgorithms[(thread + i) % digestAlgorithms.length];
+						byte[] digest = DSSUtils.digest(digestAlgorithm, ("Hello " + thread + " " + i).getBytes());
+						TimestampBinary timeStampResponse = mock.getTimeStampResponse(digestAlgorithm, digest);
+
+						TimeStampToken timeStampToken = new TimeStampToken(new CMSSignedData(timeStampResponse.getBytes()));
+						// throws if the signature does not verify
+						timeStampToken.validate(verifier);
+						assertArrayEquals(digest, timeStampToken.getTimeStampInfo().getMessageImprintDigest());
+						assertTrue(serialNumbers.add(timeStampToken.getTimeStampInfo().getSerialNumber()));
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(threads * timestampsPerThread, serialNumbers.size());
+	}
+
 }